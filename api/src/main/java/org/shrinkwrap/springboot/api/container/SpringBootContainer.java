@@ -2,13 +2,20 @@ package org.shrinkwrap.springboot.api.container;
 
 import java.io.File;
 import java.net.URL;
+import java.nio.file.Path;
 import java.util.Collection;
+import java.util.Map;
 
 import org.jboss.shrinkwrap.api.Archive;
 import org.jboss.shrinkwrap.api.ArchivePath;
 import org.jboss.shrinkwrap.api.Filter;
 import org.jboss.shrinkwrap.api.asset.Asset;
 import org.shrinkwrap.springboot.api.SpringBootLayout;
+import org.shrinkwrap.springboot.api.layer.SpringBootLayer;
+import org.shrinkwrap.springboot.api.library.LibraryConflictPolicy;
+import org.shrinkwrap.springboot.api.library.LibraryConflicts;
+import org.shrinkwrap.springboot.api.metrics.SpringBootBuildListener;
+import org.shrinkwrap.springboot.api.metrics.SpringBootOperation;
 
 /**
  * Defines the contract for a component capable of storing spring-boot-related resources.
@@ -33,6 +40,34 @@ public interface SpringBootContainer<T extends Archive<T>> {
 
     T setSpringBootManifest(String applicationClassName, String springBootVersion);
 
+    /**
+     * Returns a new archive with the same name, layout, build listener and content as this one, to be used as a
+     * template for near-identical archives. Assets are shared, not copied: adding, replacing or deleting entries of
+     * either archive does not affect the other, but archives added as libraries are shared too, so they should be
+     * replaced rather than modified in place. Indexes added to this archive are recomputed from the content of the
+     * new one.
+     *
+     * @return a new archive sharing the assets of this one
+     */
+    T fork();
+
+    // -------------------------------------------------------------------------------------||
+    // Build metrics -----------------------------------------------------------------------||
+    // -------------------------------------------------------------------------------------||
+
+    /**
+     * Sets the listener receiving the metrics of the {@link SpringBootOperation#ADD_LIBRARY},
+     * {@link SpringBootOperation#ADD_LAUNCHER_LIBRARY}, {@link SpringBootOperation#ADD_BOOT_INF_RESOURCE} and
+     * {@link SpringBootOperation#PRUNE} operations of this archive. Like the layout, the listener is only known to this archive and not to the views
+     * returned by {@code as}; exports are reported to a listener set on the exporter. Nothing is measured without a
+     * listener.
+     *
+     * @param listener
+     *            listener to notify, or null to stop measuring
+     * @return This virtual archive
+     */
+    T setBuildListener(SpringBootBuildListener listener);
+
     // -------------------------------------------------------------------------------------||
     // Spring Boot BOOT-INF resources ------------------------------------------------------||
     // -------------------------------------------------------------------------------------||
@@ -243,6 +278,224 @@ public interface SpringBootContainer<T extends Archive<T>> {
     T addAsBootInfResource(Package resourcePackage, String resourceName, ArchivePath target)
             throws IllegalArgumentException;
 
+    // -------------------------------------------------------------------------------------||
+    // Spring Boot indexes -----------------------------------------------------------------||
+    // -------------------------------------------------------------------------------------||
+
+    /**
+     * Adds a {@code layers.idx} next to the classes directory, listing the entries of each {@link SpringBootLayer}.
+     * The index is computed from the content of the archive when it is exported, so it can be added at any time; add
+     * it before calling {@link #setSpringBootManifest(String)} for the manifest to reference it.
+     *
+     * @return This virtual archive
+     * @throws UnsupportedOperationException
+     *             If the layout stores classes at the root of the archive
+     */
+    T addLayersIndex() throws UnsupportedOperationException;
+
+    /**
+     * Adds a {@code classpath.idx} next to the classes directory, listing the libraries in the order the launcher puts
+     * them on the class path: those holding the most classes first, whatever the order they were added in. The index
+     * is computed from the content of the archive when it is exported; add it before calling
+     * {@link #setSpringBootManifest(String)} for the manifest to reference it.
+     *
+     * @return This virtual archive
+     * @throws UnsupportedOperationException
+     *             If the layout stores classes at the root of the archive
+     */
+    T addClassPathIndex() throws UnsupportedOperationException;
+
+    /**
+     * Adds a {@code classpath.idx} like {@link #addClassPathIndex()}, putting first the libraries most classes were
+     * loaded from during a recorded run, for instance counted from the {@code -verbose:class} output of a previous
+     * start. Libraries without recorded class loads follow, ordered as by {@link #addClassPathIndex()}.
+     *
+     * @param classLoads
+     *            number of classes loaded from each library, by library file name
+     * @return This virtual archive
+     * @throws IllegalArgumentException
+     *             If the class loads are not specified
+     * @throws UnsupportedOperationException
+     *             If the layout stores classes at the root of the archive
+     */
+    T addClassPathIndex(Map<String, Long> classLoads) throws IllegalArgumentException, UnsupportedOperationException;
+
+    /**
+     * Adds a {@code packages.idx} next to the classes directory, mapping every package to the classes directory and
+     * the libraries holding classes in it, so that a launcher can load each class straight from the right nested
+     * archive. The index is computed from the content of the archive when it is exported; add it before calling
+     * {@link #setSpringBootManifest(String)} for the manifest to reference it.
+     *
+     * @return This virtual archive
+     * @throws UnsupportedOperationException
+     *             If the layout stores classes at the root of the archive
+     */
+    T addPackageIndex() throws UnsupportedOperationException;
+
+    /**
+     * Adds a {@code META-INF/spring.components} at the root of the classes path, listing the application classes that
+     * are candidate components with their stereotypes, as the {@code spring-context-indexer} annotation processor
+     * would, so that Spring 5 and later read the candidates from the index instead of scanning the class path. The
+     * stereotypes are found by reading the class files of the application and of the libraries, in parallel, without
+     * loading them. The index is computed from the content of the archive when it is exported.
+     *
+     * Once an index is found on the class path, Spring no longer scans it, so libraries holding components found by
+     * scanning must hold their own index.
+     *
+     * @return This virtual archive
+     */
+    T addComponentIndex();
+
+    /**
+     * Adds a {@code META-INF/factories.idx} at the root of the classes path, merging the
+     * {@code META-INF/spring.factories}, {@code META-INF/spring-autoconfigure-metadata.properties},
+     * {@code META-INF/services} and {@code META-INF/spring/*.imports} files of the application classes and of all the
+     * libraries, so that a launcher can answer the lookups of those resources from the index instead of probing every
+     * library. The index is computed from the content of the archive when it is exported; add it before calling
+     * {@link #setSpringBootManifest(String)} for the manifest to reference it.
+     *
+     * @return This virtual archive
+     */
+    T addFactoriesIndex();
+
+    // -------------------------------------------------------------------------------------||
+    // Spring Boot web resources -----------------------------------------------------------||
+    // -------------------------------------------------------------------------------------||
+
+    /**
+     * Adds a gzip compressed {@code .gz} sibling to every compressible static web resource, so that a resource chain
+     * serving encoded resources sends them without compressing them on each request. Text resources are compressed:
+     * {@code css}, {@code csv}, {@code htm}, {@code html}, {@code ico}, {@code js}, {@code json}, {@code map},
+     * {@code mjs}, {@code svg}, {@code txt}, {@code wasm} and {@code xml} files.
+     *
+     * @return This virtual archive
+     * @see #precompressWebResources(String...)
+     */
+    T precompressWebResources();
+
+    /**
+     * Adds a gzip compressed {@code .gz} sibling to every static web resource with one of the specified extensions.
+     * Only the web resources already added are considered, and resources that already have a {@code .gz} sibling are
+     * left as they are. Resources are compressed from their content when the archive is exported, on the threads
+     * preparing the entries.
+     *
+     * @param extensions
+     *            extensions of the resources to compress, without leading dot
+     * @return This virtual archive
+     * @throws IllegalArgumentException
+     *             If the extensions are not specified or contain null values
+     */
+    T precompressWebResources(String... extensions) throws IllegalArgumentException;
+
+    /**
+     * Renames every static web resource that is not an entry point to a name holding a hash of its content, such as
+     * {@code js/app.3f9a1c2e.js} for {@code js/app.js}, so that it can be served with an {@code immutable} cache
+     * header. Stylesheets, scripts, images and fonts are renamed: {@code avif}, {@code css}, {@code eot}, {@code gif},
+     * {@code jpeg}, {@code jpg}, {@code js}, {@code mjs}, {@code png}, {@code svg}, {@code ttf}, {@code webp},
+     * {@code woff} and {@code woff2} files.
+     *
+     * @return This virtual archive
+     * @throws IllegalArgumentException
+     *             If a web resource cannot be read
+     * @see #fingerprintWebResources(String...)
+     */
+    T fingerprintWebResources() throws IllegalArgumentException;
+
+    /**
+     * Renames every static web resource with one of the specified extensions to a name holding a hash of its content,
+     * inserted before the extension, and writes a {@code fingerprints.properties} file at the root of the classes path
+     * mapping each logical name to its fingerprinted name, both relative to the web path. Resources are hashed as they
+     * are streamed, one chunk at a time. Only the web resources already added are renamed, together with their
+     * {@code .gz} siblings; resources renamed by an earlier call keep their names, and are still mapped by the file.
+     *
+     * @param extensions
+     *            extensions of the resources to rename, without leading dot
+     * @return This virtual archive
+     * @throws IllegalArgumentException
+     *             If the extensions are not specified or contain null values, or if a web resource cannot be read
+     */
+    T fingerprintWebResources(String... extensions) throws IllegalArgumentException;
+
+    // -------------------------------------------------------------------------------------||
+    // Spring Boot libraries ---------------------------------------------------------------||
+    // -------------------------------------------------------------------------------------||
+
+    /**
+     * Adds the jar file at the specified {@link Path} as a library, returning the container itself. <br/>
+     * The file is copied into the libraries path unchanged under its own name; it is never opened as an
+     * {@link Archive}.
+     *
+     * @param library
+     *            jar file to add
+     * @return This {@link Archive}
+     * @throws IllegalArgumentException
+     *             if the library is null or is not an existing file
+     */
+    T addAsLibrary(Path library) throws IllegalArgumentException;
+
+    /**
+     * Adds the jar files at the specified {@link Path}s as libraries, returning the container itself.
+     *
+     * @param libraries
+     *            jar files to add
+     * @return This {@link Archive}
+     * @throws IllegalArgumentException
+     *             if libraries are null or contain null values
+     * @see #addAsLibrary(Path)
+     */
+    T addAsLibraries(Path... libraries) throws IllegalArgumentException;
+
+    /**
+     * Adds the jar files at the specified {@link Path}s as libraries, returning the container itself.
+     *
+     * @param libraries
+     *            jar files to add
+     * @return This {@link Archive}
+     * @throws IllegalArgumentException
+     *             if the {@link Collection} of libraries is null or contains null values
+     * @see #addAsLibrary(Path)
+     */
+    T addAsLibraryPaths(Collection<? extends Path> libraries) throws IllegalArgumentException;
+
+    /**
+     * Indexes the classes and resources of all the libraries once, and looks for entries held by several libraries and
+     * for artifacts bundled in several versions, which make the archive bigger and let the class path order decide
+     * which class is loaded. Libraries are read without being exported: libraries added as archives from their
+     * content, library files from their central directory.
+     *
+     * @param policy
+     *            what to do with the conflicts found
+     * @return the conflicts found, before any library was deleted
+     * @throws IllegalArgumentException
+     *             If the policy is not specified, or if a library cannot be read
+     * @throws IllegalStateException
+     *             If conflicts were found and the policy is {@link LibraryConflictPolicy#FAIL}
+     */
+    LibraryConflicts checkLibraries(LibraryConflictPolicy policy) throws IllegalArgumentException,
+            IllegalStateException;
+
+    /**
+     * Deletes the application classes and the libraries that the application cannot reach. Starting from the
+     * {@code Start-Class} and {@code Main-Class} of the manifest, the classes in the package of the start class and its
+     * subpackages, which Spring scans for components, and the kept classes, every class file is read, libraries in
+     * parallel, for the classes it refers to. Providers listed in {@code META-INF/services} files,
+     * {@code META-INF/spring.factories} and {@code META-INF/spring/*.imports} are reached with the type they are
+     * registered for.
+     *
+     * Classes outside of the classes directory, such as the launcher, and libraries holding no class are never
+     * deleted, nor are the classes stored at the root of the archive. Classes only loaded by names that are not found
+     * in the bytecode, for instance from configuration files, must be kept explicitly.
+     *
+     * @param keep
+     *            fully-qualified names of classes to keep, or of packages to keep with their subpackages, ending with
+     *            {@code .*}
+     * @return This virtual archive
+     * @throws IllegalArgumentException
+     *             If the kept classes contain null values, if the archive has no Spring Boot manifest, or if a class
+     *             or a library cannot be read
+     */
+    T pruneUnreachable(String... keep) throws IllegalArgumentException;
+
     // -------------------------------------------------------------------------------------||
     // Spring Boot launcher classes --------------------------------------------------------||
     // -------------------------------------------------------------------------------------||
@@ -0,0 +1,292 @@
+package org.shrinkwrap.springboot.api.exporter;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.shrinkwrap.api.Assignable;
+import org.jboss.shrinkwrap.api.exporter.ArchiveExportException;
+import org.jboss.shrinkwrap.api.exporter.FileExistsException;
+import org.shrinkwrap.springboot.api.layer.SpringBootLayer;
+import org.shrinkwrap.springboot.api.metrics.SpringBootBuildListener;
+import org.shrinkwrap.springboot.api.metrics.SpringBootOperationMetrics;
+
+/**
+ * Exporter used to materialize an executable Spring Boot archive.
+ *
+ * The archive is written one entry at a time straight to the target, nested jars are STORED as the Spring Boot
+ * launcher requires, and nested libraries are serialized directly into the outer archive. Other entries are STORED too
+ * unless a compression level is set. Peak memory is bounded by the largest single entry instead of the whole archive.
+ * Entries are read and checksummed in parallel ahead of the writer, so peak memory grows with the parallelism.
+ *
+ * Every export returns the {@link SpringBootOperationMetrics} of its run, also reported to the listener if one is set.
+ */
+public interface SpringBootExporter extends Assignable {
+
+    // -------------------------------------------------------------------------------------||
+    // Contracts ---------------------------------------------------------------------------||
+    // -------------------------------------------------------------------------------------||
+
+    /**
+     * Sets the number of threads reading and checksumming entries ahead of the writer. Entries are always written in
+     * archive order, whatever the parallelism. Defaults to the number of available processors; 1 exports everything
+     * on the calling thread.
+     *
+     * @param parallelism
+     *            number of threads preparing entries
+     * @return this exporter
+     * @throws IllegalArgumentException
+     *             if the parallelism is lower than 1
+     */
+    SpringBootExporter withParallelism(int parallelism) throws IllegalArgumentException;
+
+    /**
+     * Sets the level entries other than nested jars are DEFLATED with when exported to a jar, 0 storing every entry.
+     * Nested jars, and the entries inside them, are always STORED, as the Spring Boot launcher requires, and entries
+     * that compression would not make smaller are STORED too. Entries are compressed on the threads preparing them.
+     * Defaults to 0; exploded and layered exports ignore it.
+     *
+     * @param level
+     *            compression level, from 0 to 9
+     * @return this exporter
+     * @throws IllegalArgumentException
+     *             if the level is not between 0 and 9
+     */
+    SpringBootExporter withCompressionLevel(int level) throws IllegalArgumentException;
+
+    /**
+     * Enables an on-disk cache shared by repeated exports. Files added to the archive are identified by path, size and
+     * modification time, so unchanged ones are not read to compute their checksums, and libraries are identified by a
+     * digest of their content, so unchanged ones are copied from the cache instead of being serialized again. The
+     * directory is created if needed and may be deleted at any time. Only what the last export used is kept, so the
+     * cache does not grow as libraries change, and a directory should not be shared by exports of different archives.
+     *
+     * @param directory
+     *            cache directory
+     * @return this exporter
+     * @throws IllegalArgumentException
+     *             if the directory is not specified or is an existing file
+     */
+    SpringBootExporter withCache(Path directory) throws IllegalArgumentException;
+
+    /**
+     * Sets the listener receiving the metrics of every export of this exporter.
+     *
+     * @param listener
+     *            listener to notify, or null to stop notifying
+     * @return this exporter
+     */
+    SpringBootExporter withListener(SpringBootBuildListener listener);
+
+    /**
+     * Exports the archive to the specified {@link WritableByteChannel}. The channel will not be closed; this is the
+     * responsibility of the caller.
+     *
+     * @param target
+     *            channel to write to
+     * @return the metrics of the export
+     * @throws ArchiveExportException
+     *             if the export process fails
+     * @throws IllegalArgumentException
+     *             if the target is not specified or is closed
+     */
+    SpringBootOperationMetrics exportTo(WritableByteChannel target) throws ArchiveExportException,
+            IllegalArgumentException;
+
+    /**
+     * Exports the archive to the specified {@link OutputStream}. The stream will not be closed or flushed; this is the
+     * responsibility of the caller.
+     *
+     * @param target
+     *            stream to write to
+     * @return the metrics of the export
+     * @throws ArchiveExportException
+     *             if the export process fails
+     * @throws IllegalArgumentException
+     *             if the target is not specified
+     */
+    SpringBootOperationMetrics exportTo(OutputStream target) throws ArchiveExportException,
+            IllegalArgumentException;
+
+    /**
+     * Exports the archive to the specified {@link Path}. If the target exists this call will fail.
+     *
+     * @param target
+     *            file to write to
+     * @return the metrics of the export
+     * @throws IllegalArgumentException
+     *             if the target is not specified, is a directory or is the file the archive was imported from
+     * @throws FileExistsException
+     *             if the target already exists
+     * @throws ArchiveExportException
+     *             if the export process fails
+     */
+    SpringBootOperationMetrics exportTo(Path target) throws ArchiveExportException, FileExistsException;
+
+    /**
+     * Exports the archive to the specified {@link Path}, optionally overwriting an existing file.
+     *
+     * @param target
+     *            file to write to
+     * @param overwrite
+     *            whether an existing target may be overwritten
+     * @return the metrics of the export
+     * @throws IllegalArgumentException
+     *             if the target is not specified, is a directory or is the file the archive was imported from
+     * @throws FileExistsException
+     *             if the target already exists and the overwrite flag is false
+     * @throws ArchiveExportException
+     *             if the export process fails
+     */
+    SpringBootOperationMetrics exportTo(Path target, boolean overwrite) throws ArchiveExportException,
+            FileExistsException;
+
+    /**
+     * Updates an archive previously exported to the specified {@link Path}. Entries whose content did not change are
+     * kept where they are, and only changed or added entries are appended together with a new central directory, so
+     * the cost of the update is proportional to the change. Once enough space is taken by entries no longer
+     * referenced, the archive is rewritten instead, still copying unchanged entries as they are. A missing target is
+     * exported from scratch, while a target that is not a readable archive is left untouched.
+     *
+     * Changed entries and the new central directory are appended after the previous one, which is kept until the
+     * update is complete, and a failing update truncates the target back to what it was. Only if the process itself
+     * dies part way may the target be left unreadable, and then has to be exported again.
+     *
+     * @param target
+     *            archive to update
+     * @return the metrics of the export
+     * @throws IllegalArgumentException
+     *             if the target is not specified, is a directory or is the file the archive was imported from
+     * @throws ArchiveExportException
+     *             if the target is not a readable archive or the export process fails
+     */
+    SpringBootOperationMetrics updateTo(Path target) throws ArchiveExportException;
+
+    /**
+     * Exports the archive exploded into the specified directory. Every entry is written as a plain file; libraries
+     * added from disk are copied as they are, and only libraries built with ShrinkWrap are zipped. Existing files are
+     * overwritten and other files are left in place.
+     *
+     * A {@code launch.args} Java argument file is written at the root of the directory, putting the classes directory
+     * and every library on the class path and naming the start class, so the application can be started with
+     * {@code java @launch.args} from that directory on Java 9 or later, bypassing the slower jar-in-jar loading of
+     * the Spring Boot launcher. Paths in the file are relative to the directory. A {@code launch.sh} shell script
+     * starting the application the same way, which also runs on Java 8, is written next to it.
+     *
+     * @param directory
+     *            directory to write to, created if needed
+     * @return the metrics of the export
+     * @throws IllegalArgumentException
+     *             if the directory is not specified or is an existing file, or if the archive has no Spring Boot
+     *             manifest
+     * @throws ArchiveExportException
+     *             if the export process fails
+     */
+    SpringBootOperationMetrics exportExplodedTo(Path directory) throws ArchiveExportException;
+
+    /**
+     * Exports the archive to the specified {@link Path}, overwriting an existing file, then builds a class data sharing
+     * archive for it to speed up startup. The exported jar is launched with {@code java -jar}, by the JVM running this
+     * export, for a training run recording the classes it loads; the run is stopped after the training time if the
+     * application did not exit by itself, and killed, failing the export, if it does not stop within 30 seconds then.
+     * Training arguments are passed to the application, for instance to make it listen on a free port. A {@code .jsa}
+     * shared archive named after the jar, such as {@code app.jsa} for {@code app.jar}, is then dumped next to it
+     * together with the {@code .classlist} it was built from.
+     *
+     * The shared archive only holds classes of the JVM class loaders, that is the JDK and, from Java 10, the Spring Boot
+     * launcher, and can only be used by the same JVM build, with
+     * {@code -XX:+UnlockDiagnosticVMOptions -Xshare:auto -XX:SharedArchiveFile=app.jsa -jar app.jar}.
+     *
+     * @param target
+     *            file to write to
+     * @param trainingTime
+     *            how long the training run may last
+     * @param unit
+     *            unit of the training time
+     * @param launchScript
+     *            whether to also write a shell script, such as {@code app.sh}, launching the jar with these flags
+     * @param trainingArguments
+     *            arguments of the application during the training run
+     * @return the shared archive
+     * @throws IllegalArgumentException
+     *             if the target or the unit is not specified, if the target is a directory, or if the training time is
+     *             not positive
+     * @throws ArchiveExportException
+     *             if the export process, the training run or the dump fails
+     */
+    Path exportWithClassDataSharingTo(Path target, long trainingTime, TimeUnit unit, boolean launchScript,
+            String... trainingArguments) throws ArchiveExportException;
+
+    /**
+     * Exports every {@link SpringBootLayer} of the archive into its own sub-directory of the specified directory, named
+     * after the layer, the way {@code COPY} instructions of a container image build expect them. Existing files are
+     * overwritten. Entries are classified using the paths declared in the Spring Boot manifest.
+     *
+     * @param directory
+     *            parent of the layer directories, created if needed
+     * @return the metrics of the export
+     * @throws IllegalArgumentException
+     *             if the directory is not specified or is an existing file, or if the archive has no Spring Boot
+     *             manifest
+     * @throws UnsupportedOperationException
+     *             if the layout stores classes at the root of the archive
+     * @throws ArchiveExportException
+     *             if the export process fails
+     */
+    SpringBootOperationMetrics exportLayersTo(Path directory) throws ArchiveExportException;
+
+    /**
+     * Exports every {@link SpringBootLayer} of the archive as a TAR file named after the layer, such as
+     * {@code application.tar}, in the specified directory. Existing files are overwritten.
+     *
+     * @param directory
+     *            directory of the TAR files, created if needed
+     * @return the metrics of the export
+     * @throws IllegalArgumentException
+     *             if the directory is not specified or is an existing file, or if the archive has no Spring Boot
+     *             manifest
+     * @throws UnsupportedOperationException
+     *             if the layout stores classes at the root of the archive
+     * @throws ArchiveExportException
+     *             if the export process fails
+     * @see #exportLayersTo(Path)
+     */
+    SpringBootOperationMetrics exportLayerTarsTo(Path directory) throws ArchiveExportException;
+
+    /**
+     * Exports the archive to the specified {@link File}. If the target exists this call will fail.
+     *
+     * @param target
+     *            file to write to
+     * @return the metrics of the export
+     * @throws IllegalArgumentException
+     *             if the target is not specified, is a directory or is the file the archive was imported from
+     * @throws FileExistsException
+     *             if the target already exists
+     * @throws ArchiveExportException
+     *             if the export process fails
+     * @see #exportTo(Path)
+     */
+    SpringBootOperationMetrics exportTo(File target) throws ArchiveExportException, FileExistsException;
+
+    /**
+     * Exports the archive to the specified {@link File}, optionally overwriting an existing file.
+     *
+     * @param target
+     *            file to write to
+     * @param overwrite
+     *            whether an existing target may be overwritten
+     * @return the metrics of the export
+     * @throws IllegalArgumentException
+     *             if the target is not specified, is a directory or is the file the archive was imported from
+     * @throws FileExistsException
+     *             if the target already exists and the overwrite flag is false
+     * @throws ArchiveExportException
+     *             if the export process fails
+     * @see #exportTo(Path, boolean)
+     */
+    SpringBootOperationMetrics exportTo(File target, boolean overwrite) throws ArchiveExportException,
+            FileExistsException;
+}
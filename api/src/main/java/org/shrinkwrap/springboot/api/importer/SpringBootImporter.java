@@ -0,0 +1,52 @@
+package org.shrinkwrap.springboot.api.importer;
+
+import java.io.File;
+import java.nio.file.Path;
+
+import org.jboss.shrinkwrap.api.Assignable;
+import org.jboss.shrinkwrap.api.importer.ArchiveImportException;
+
+/**
+ * Importer reading an existing executable Spring Boot archive into an archive, typically to patch a few entries and
+ * export it again.
+ *
+ * The file is memory-mapped and only its central directory is read: every entry becomes a lazy asset backed by the
+ * mapped bytes of its data, inflated if needed each time it is opened. The {@code SpringBootExporter} writes imported
+ * entries it does not have to compress differently straight from the mapping, with the checksum recorded in the file,
+ * so untouched nested libraries go back out without being copied to the heap.
+ *
+ * The file must not be modified while the imported archive is in use, which is why it cannot be the target of an
+ * export of that archive. Files larger than 2 GiB and ZIP64 archives are not supported.
+ */
+public interface SpringBootImporter extends Assignable {
+
+    // -------------------------------------------------------------------------------------||
+    // Contracts ---------------------------------------------------------------------------||
+    // -------------------------------------------------------------------------------------||
+
+    /**
+     * Imports every entry of the specified archive file, replacing the entries of the archive with the same path.
+     *
+     * @param file
+     *            archive file to import
+     * @return this importer
+     * @throws IllegalArgumentException
+     *             if the file is not specified or is not a regular file
+     * @throws ArchiveImportException
+     *             if the file cannot be mapped or is not a ZIP archive this importer can read
+     */
+    SpringBootImporter importFrom(Path file) throws ArchiveImportException, IllegalArgumentException;
+
+    /**
+     * Imports every entry of the specified archive file, replacing the entries of the archive with the same path.
+     *
+     * @param file
+     *            archive file to import
+     * @return this importer
+     * @throws IllegalArgumentException
+     *             if the file is not specified or is not a regular file
+     * @throws ArchiveImportException
+     *             if the file cannot be mapped or is not a ZIP archive this importer can read
+     */
+    SpringBootImporter importFrom(File file) throws ArchiveImportException, IllegalArgumentException;
+}
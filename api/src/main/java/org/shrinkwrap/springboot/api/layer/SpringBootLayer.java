@@ -0,0 +1,45 @@
+package org.shrinkwrap.springboot.api.layer;
+
+/**
+ * Layers a Spring Boot archive is split into, in the order they are meant to be stacked in a container image.
+ *
+ * Layers change more and more often from first to last, so rebuilding an image after an application change only
+ * invalidates the last one. Names match the layers written by the Spring Boot build plugins.
+ */
+public enum SpringBootLayer {
+
+    /**
+     * Released libraries.
+     */
+    DEPENDENCIES("dependencies"),
+
+    /**
+     * Launcher classes, as added with {@code addAsLauncherLibrary}.
+     */
+    SPRING_BOOT_LOADER("spring-boot-loader"),
+
+    /**
+     * Libraries whose name contains {@code SNAPSHOT}.
+     */
+    SNAPSHOT_DEPENDENCIES("snapshot-dependencies"),
+
+    /**
+     * Application classes and resources, the manifest and everything else.
+     */
+    APPLICATION("application");
+
+    private final String layerName;
+
+    SpringBootLayer(String layerName) {
+        this.layerName = layerName;
+    }
+
+    /**
+     * Returns the name of the layer, as written in {@code layers.idx}.
+     *
+     * @return the name of the layer
+     */
+    public String getLayerName() {
+        return layerName;
+    }
+}
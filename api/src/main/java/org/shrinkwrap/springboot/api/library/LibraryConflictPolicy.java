@@ -0,0 +1,24 @@
+package org.shrinkwrap.springboot.api.library;
+
+/**
+ * What to do with the conflicts found among the libraries of a Spring Boot archive.
+ */
+public enum LibraryConflictPolicy {
+
+    /**
+     * Only reports the conflicts, leaving the archive unchanged.
+     */
+    REPORT,
+
+    /**
+     * Fails with an {@link IllegalStateException} describing the conflicts, if any.
+     */
+    FAIL,
+
+    /**
+     * Keeps the first library, in archive order, and deletes the later ones that only conflict with it: other versions
+     * of the same artifact, and libraries all entries of which are already held by the libraries kept. Libraries
+     * partially overlapping others are kept, as deleting them would lose entries.
+     */
+    KEEP_FIRST
+}
@@ -0,0 +1,45 @@
+package org.shrinkwrap.springboot.api.library;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Conflicts found among the libraries of a Spring Boot archive. Libraries are named by their entry name in the
+ * archive, without leading slash, and listed in archive order.
+ *
+ * Directories and the entries under {@code META-INF}, such as manifests, Maven descriptors or service files that
+ * every library is expected to hold, are not reported as duplicates.
+ */
+public interface LibraryConflicts {
+
+    /**
+     * Returns the classes and resources held by more than one library, with the libraries holding them. Only the
+     * first library holding an entry provides it on the class path.
+     *
+     * @return the libraries holding each duplicate entry, by entry name
+     */
+    Map<String, List<String>> getDuplicateEntries();
+
+    /**
+     * Returns the artifacts for which more than one version is bundled, with the libraries holding each version.
+     * Artifacts are identified as {@code groupId:artifactId} by the Maven {@code pom.properties} of the library, or by
+     * the artifact id found in its file name when it does not hold exactly one.
+     *
+     * @return the libraries of each artifact bundled in several versions, by artifact
+     */
+    Map<String, List<String>> getConflictingVersions();
+
+    /**
+     * Returns the libraries deleted from the archive by {@link LibraryConflictPolicy#KEEP_FIRST}.
+     *
+     * @return the deleted libraries, empty for the other policies
+     */
+    List<String> getDeletedLibraries();
+
+    /**
+     * Returns whether no duplicate entry nor conflicting version was found.
+     *
+     * @return true if the libraries do not conflict
+     */
+    boolean isEmpty();
+}
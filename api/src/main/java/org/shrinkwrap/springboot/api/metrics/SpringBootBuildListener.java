@@ -0,0 +1,18 @@
+package org.shrinkwrap.springboot.api.metrics;
+
+/**
+ * Receives the {@link SpringBootOperationMetrics} of every operation of a Spring Boot archive or exporter it is set
+ * on, once the operation completed successfully. Operations that fail are not reported.
+ *
+ * The listener is called on the thread running the operation, so it should return quickly.
+ */
+public interface SpringBootBuildListener {
+
+    /**
+     * Called once an operation completed.
+     *
+     * @param metrics
+     *            measurements of the operation
+     */
+    void operationCompleted(SpringBootOperationMetrics metrics);
+}
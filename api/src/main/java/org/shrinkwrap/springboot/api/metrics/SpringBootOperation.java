@@ -0,0 +1,37 @@
+package org.shrinkwrap.springboot.api.metrics;
+
+/**
+ * Operations on a Spring Boot archive reported to a {@link SpringBootBuildListener}.
+ */
+public enum SpringBootOperation {
+
+    /**
+     * A library added with {@code addAsLibrary}, from an archive, a file or any other asset.
+     */
+    ADD_LIBRARY,
+
+    /**
+     * A launcher library merged into the archive with {@code addAsLauncherLibrary}.
+     */
+    ADD_LAUNCHER_LIBRARY,
+
+    /**
+     * A resource added under the BOOT-INF path with {@code addAsBootInfResource}.
+     */
+    ADD_BOOT_INF_RESOURCE,
+
+    /**
+     * Application classes and libraries that cannot be reached, deleted with {@code pruneUnreachable}.
+     */
+    PRUNE,
+
+    /**
+     * Static web resources renamed after a hash of their content with {@code fingerprintWebResources}.
+     */
+    FINGERPRINT,
+
+    /**
+     * An export of the whole archive by the {@code SpringBootExporter}.
+     */
+    EXPORT
+}
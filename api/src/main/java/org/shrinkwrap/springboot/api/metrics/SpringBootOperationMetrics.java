@@ -0,0 +1,62 @@
+package org.shrinkwrap.springboot.api.metrics;
+
+/**
+ * Measurements of a single {@link SpringBootOperation}.
+ *
+ * ShrinkWrap reads assets lazily, so adding content to an archive does not read it: add operations only account for
+ * the size of the files they reference, and the content of every entry is read, and counted, when the archive is
+ * exported.
+ */
+public interface SpringBootOperationMetrics {
+
+    /**
+     * Returns the measured operation.
+     *
+     * @return the operation
+     */
+    SpringBootOperation getOperation();
+
+    /**
+     * Returns what the operation applied to: the name of the added library or resource, or the export target.
+     *
+     * @return the subject of the operation
+     */
+    String getTarget();
+
+    /**
+     * Returns the wall clock time the operation took.
+     *
+     * @return the wall time, in nanoseconds
+     */
+    long getWallTimeNanos();
+
+    /**
+     * Returns the number of bytes read: the size of the files referenced by an add operation, or the uncompressed
+     * size of the entries of an export.
+     *
+     * @return the number of bytes read
+     */
+    long getBytesIn();
+
+    /**
+     * Returns the number of bytes written to the export target, 0 for add operations.
+     *
+     * @return the number of bytes written
+     */
+    long getBytesOut();
+
+    /**
+     * Returns the number of entries added to the archive, deleted by pruning, or written by an export.
+     *
+     * @return the number of entries
+     */
+    long getEntries();
+
+    /**
+     * Returns the number of bytes allocated on the heap by the operation, on the calling thread and on the threads it
+     * used, or -1 if the JVM does not measure allocations per thread.
+     *
+     * @return the number of bytes allocated, or -1
+     */
+    long getAllocatedBytes();
+}
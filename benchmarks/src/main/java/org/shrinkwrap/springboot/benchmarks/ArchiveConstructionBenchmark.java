@@ -0,0 +1,86 @@
+package org.shrinkwrap.springboot.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.shrinkwrap.springboot.api.SpringBootLayout;
+import org.shrinkwrap.springboot.api.library.LibraryConflictPolicy;
+import org.shrinkwrap.springboot.api.library.LibraryConflicts;
+import org.shrinkwrap.springboot.api.spec.SpringBootArchive;
+
+/**
+ * Measures the construction of a {@link SpringBootArchive}: adding libraries, merging launcher libraries, writing
+ * the Spring Boot manifest, forking a populated archive and checking its libraries for conflicts, for every layout
+ * and a growing number of libraries. Run with {@code -prof gc} to also report the allocation rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ArchiveConstructionBenchmark {
+
+    @Param({ "SPRING_BOOT_10", "SPRING_BOOT_14", "SPRING_BOOT_15_JAR", "SPRING_BOOT_15_WAR" })
+    public String layout;
+
+    @Param({ "10", "100", "1000" })
+    public int libraries;
+
+    private SpringBootLayout springBootLayout;
+    private List<JavaArchive> libraryArchives;
+    private List<JavaArchive> launcherArchives;
+    private SpringBootArchive populated;
+
+    @Setup
+    public void setUp() {
+        springBootLayout = SyntheticArchives.layout(layout);
+        libraryArchives = SyntheticArchives.libraries(libraries);
+        launcherArchives = SyntheticArchives.launcherLibraries();
+        populated = create()
+                .addAsLibraries(libraryArchives)
+                .addAsLauncherLibraries(launcherArchives);
+    }
+
+    @Benchmark
+    public SpringBootArchive addAsLibraries() {
+        return create().addAsLibraries(libraryArchives);
+    }
+
+    @Benchmark
+    public SpringBootArchive addAsLauncherLibraries() {
+        return create().addAsLauncherLibraries(launcherArchives);
+    }
+
+    @Benchmark
+    public SpringBootArchive setSpringBootManifest() {
+        return populated.setSpringBootManifest(SyntheticArchives.START_CLASS, SyntheticArchives.SPRING_BOOT_VERSION);
+    }
+
+    @Benchmark
+    public SpringBootArchive fork() {
+        return populated.fork();
+    }
+
+    @Benchmark
+    public LibraryConflicts checkLibraries() {
+        return populated.checkLibraries(LibraryConflictPolicy.REPORT);
+    }
+
+    private SpringBootArchive create() {
+        return ShrinkWrap.create(SpringBootArchive.class).setSpringBootLayout(springBootLayout);
+    }
+}
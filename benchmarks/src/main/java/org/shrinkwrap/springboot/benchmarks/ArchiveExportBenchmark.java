@@ -0,0 +1,101 @@
+package org.shrinkwrap.springboot.benchmarks;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.exporter.ZipStoredExporter;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.shrinkwrap.springboot.api.exporter.SpringBootExporter;
+import org.shrinkwrap.springboot.api.spec.SpringBootArchive;
+
+/**
+ * Measures the export of a complete {@link SpringBootArchive} with {@link ZipStoredExporter} and with
+ * {@link SpringBootExporter}, for every layout and a growing number of libraries. Exported bytes are discarded; the
+ * {@code bytes} counter reports the export rate in bytes per second next to the number of exports. Run with
+ * {@code -prof gc} to also report the allocation rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ArchiveExportBenchmark {
+
+    @Param({ "SPRING_BOOT_10", "SPRING_BOOT_14", "SPRING_BOOT_15_JAR", "SPRING_BOOT_15_WAR" })
+    public String layout;
+
+    @Param({ "10", "100", "1000" })
+    public int libraries;
+
+    private SpringBootArchive archive;
+
+    @Setup
+    public void setUp() {
+        archive = ShrinkWrap.create(SpringBootArchive.class)
+                .setSpringBootLayout(SyntheticArchives.layout(layout))
+                .addAsLibraries(SyntheticArchives.libraries(libraries))
+                .addAsLauncherLibraries(SyntheticArchives.launcherLibraries())
+                .setSpringBootManifest(SyntheticArchives.START_CLASS, SyntheticArchives.SPRING_BOOT_VERSION);
+    }
+
+    @Benchmark
+    public void zipStoredExporter(final ExportedBytes exported) {
+        final CountingOutputStream out = new CountingOutputStream();
+        archive.as(ZipStoredExporter.class).exportTo(out);
+        exported.bytes += out.count;
+    }
+
+    @Benchmark
+    public void springBootExporter(final ExportedBytes exported) {
+        final CountingOutputStream out = new CountingOutputStream();
+        archive.as(SpringBootExporter.class).exportTo(out);
+        exported.bytes += out.count;
+    }
+
+    /**
+     * Bytes exported during the current iteration, reported as a rate.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class ExportedBytes {
+
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytes = 0;
+        }
+    }
+
+    /**
+     * Output stream discarding everything but the number of bytes written.
+     */
+    private static final class CountingOutputStream extends OutputStream {
+
+        private long count;
+
+        @Override
+        public void write(final int b) {
+            count++;
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) {
+            count += len;
+        }
+    }
+}
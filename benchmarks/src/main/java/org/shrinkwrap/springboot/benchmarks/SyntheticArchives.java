@@ -0,0 +1,77 @@
+package org.shrinkwrap.springboot.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.ByteArrayAsset;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.shrinkwrap.springboot.api.SpringBootLayout;
+import org.shrinkwrap.springboot.impl.SpringBootLayouts;
+
+/**
+ * Synthetic content shared by the benchmarks, generated from a fixed seed so that every run measures the same archives.
+ */
+final class SyntheticArchives {
+
+    static final String START_CLASS = "org.shrinkwrap.springboot.benchmarks.app.Application";
+    static final String SPRING_BOOT_VERSION = "1.4.4.RELEASE";
+
+    private static final int ENTRIES_PER_LIBRARY = 16;
+    private static final int ENTRY_SIZE = 2 * 1024;
+    private static final int LAUNCHER_LIBRARIES = 2;
+
+    private SyntheticArchives() {
+    }
+
+    /**
+     * Returns the {@link SpringBootLayouts} constant with the specified name.
+     *
+     * @param name
+     *            name of the constant, such as {@code SPRING_BOOT_14}
+     * @return the layout
+     */
+    static SpringBootLayout layout(final String name) {
+        try {
+            return (SpringBootLayout) SpringBootLayouts.class.getField(name).get(null);
+        } catch (final ReflectiveOperationException e) {
+            throw new IllegalArgumentException("Unknown layout: " + name, e);
+        }
+    }
+
+    /**
+     * Creates libraries of {@value #ENTRIES_PER_LIBRARY} pseudo class files of {@value #ENTRY_SIZE} bytes each.
+     *
+     * @param count
+     *            number of libraries
+     * @return the libraries
+     */
+    static List<JavaArchive> libraries(final int count) {
+        return archives("library", count);
+    }
+
+    /**
+     * Creates stand-ins for the Spring Boot loader jars, merged at the root of the archive.
+     *
+     * @return the launcher libraries
+     */
+    static List<JavaArchive> launcherLibraries() {
+        return archives("launcher", LAUNCHER_LIBRARIES);
+    }
+
+    private static List<JavaArchive> archives(final String prefix, final int count) {
+        final Random random = new Random(count);
+        final List<JavaArchive> archives = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final JavaArchive archive = ShrinkWrap.create(JavaArchive.class, prefix + "-" + i + ".jar");
+            for (int j = 0; j < ENTRIES_PER_LIBRARY; j++) {
+                final byte[] content = new byte[ENTRY_SIZE];
+                random.nextBytes(content);
+                archive.add(new ByteArrayAsset(content), "org/" + prefix + i + "/Class" + j + ".class");
+            }
+            archives.add(archive);
+        }
+        return archives;
+    }
+}
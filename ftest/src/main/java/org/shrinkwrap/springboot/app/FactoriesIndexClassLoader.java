@@ -0,0 +1,102 @@
+package org.shrinkwrap.springboot.app;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Map;
+
+import org.springframework.boot.loader.LaunchedURLClassLoader;
+
+/**
+ * {@link LaunchedURLClassLoader} answering the lookups of {@code spring.factories}, autoconfigure metadata, services
+ * and imports from the factories index: each of them is a single resource holding the merged content of every nested
+ * archive, or no resource at all when no archive provides it. Other resources are still looked up along the whole
+ * class path.
+ */
+public class FactoriesIndexClassLoader extends LaunchedURLClassLoader {
+
+    static {
+        ClassLoader.registerAsParallelCapable();
+    }
+
+    private static final String SERVICES = "META-INF/services/";
+    private static final String SPRING_IMPORTS = "META-INF/spring/";
+
+    private final Map<String, byte[]> resources;
+    private final URLStreamHandler handler = new IndexedResourceHandler();
+
+    public FactoriesIndexClassLoader(URL[] urls, ClassLoader parent, Map<String, byte[]> resources) {
+        super(urls, parent);
+        this.resources = resources;
+    }
+
+    @Override
+    public URL findResource(String name) {
+        if (!isIndexed(name)) {
+            return super.findResource(name);
+        }
+        return resources.containsKey(name) ? indexedResource(name) : null;
+    }
+
+    @Override
+    public Enumeration<URL> findResources(String name) throws IOException {
+        if (!isIndexed(name)) {
+            return super.findResources(name);
+        }
+        return resources.containsKey(name) ? Collections.enumeration(Collections.singleton(indexedResource(name)))
+                : Collections.<URL>emptyEnumeration();
+    }
+
+    private URL indexedResource(String name) {
+        try {
+            return new URL("factories-index", null, -1, "/" + name, handler);
+        } catch (MalformedURLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean isIndexed(String name) {
+        return name.equals("META-INF/spring.factories")
+                || name.equals("META-INF/spring-autoconfigure-metadata.properties")
+                || name.startsWith(SERVICES) && name.length() > SERVICES.length()
+                        && name.indexOf('/', SERVICES.length()) < 0
+                || name.startsWith(SPRING_IMPORTS) && name.endsWith(".imports");
+    }
+
+    /**
+     * Opens the merged content of an indexed resource.
+     */
+    private final class IndexedResourceHandler extends URLStreamHandler {
+
+        @Override
+        protected URLConnection openConnection(URL url) throws IOException {
+            final byte[] content = resources.get(url.getPath().substring(1));
+            if (content == null) {
+                throw new IOException("Resource is not indexed: " + url);
+            }
+            return new URLConnection(url) {
+
+                @Override
+                public void connect() {
+                    connected = true;
+                }
+
+                @Override
+                public int getContentLength() {
+                    return content.length;
+                }
+
+                @Override
+                public InputStream getInputStream() {
+                    return new ByteArrayInputStream(content);
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package org.shrinkwrap.springboot.app;
+
+import java.io.BufferedReader;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.jar.Manifest;
+
+import org.springframework.boot.loader.archive.Archive;
+
+/**
+ * {@link ManifestJarLauncher} answering the lookups of factories and services from the factories index of the archive,
+ * when its manifest names one, so that they are not probed in every nested archive of the class path.
+ */
+public class FactoriesIndexJarLauncher extends ManifestJarLauncher {
+
+    static final String FACTORIES_INDEX_ATTRIBUTE = "Spring-Boot-Factories-Index";
+
+    public FactoriesIndexJarLauncher() {
+    }
+
+    protected FactoriesIndexJarLauncher(Archive archive) {
+        super(archive);
+    }
+
+    @Override
+    protected ClassLoader createClassLoader(URL[] urls) throws Exception {
+        Manifest manifest = getArchive().getManifest();
+        String indexPath = manifest == null ? null : manifest.getMainAttributes().getValue(FACTORIES_INDEX_ATTRIBUTE);
+        if (indexPath == null) {
+            return super.createClassLoader(urls);
+        }
+
+        Map<String, byte[]> resources = new HashMap<String, byte[]>();
+        try (BufferedReader reader = openIndex(indexPath)) {
+            String name = null;
+            StringBuilder content = null;
+            for (String line; (line = reader.readLine()) != null; ) {
+                if (line.isEmpty()) {
+                    if (name != null) {
+                        resources.put(name, content.toString().getBytes("UTF-8"));
+                    }
+                    name = "";
+                    content = new StringBuilder();
+                } else if (name == null) {
+                    continue; // header
+                } else if (name.isEmpty()) {
+                    name = line;
+                } else {
+                    content.append(line).append('\n');
+                }
+            }
+            if (name != null && !name.isEmpty()) {
+                resources.put(name, content.toString().getBytes("UTF-8"));
+            }
+        }
+        return new FactoriesIndexClassLoader(urls, getClass().getClassLoader(), resources);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new FactoriesIndexJarLauncher().launch(args);
+    }
+}
@@ -1,6 +1,15 @@
 package org.shrinkwrap.springboot.app;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.jar.Attributes;
 import java.util.jar.Manifest;
 
@@ -15,6 +24,7 @@ public class ManifestJarLauncher extends ExecutableArchiveLauncher {
 
     private String libsPath;
     private String classesPath;
+    private String classPathIndexPath;
 
     public ManifestJarLauncher() {
     }
@@ -26,7 +36,62 @@ public class ManifestJarLauncher extends ExecutableArchiveLauncher {
     @Override
     protected List<Archive> getClassPathArchives() throws Exception {
         initializePaths();
-        return super.getClassPathArchives();
+        if (classPathIndexPath == null) {
+            return super.getClassPathArchives();
+        }
+
+        // classes first, then libraries in index order, then libraries missing from the index in archive order
+        Map<String, Integer> index = readClassPathIndex();
+        List<String> names = new ArrayList<String>();
+        List<Archive> archives = getArchive().getNestedArchives(new Archive.EntryFilter() {
+            @Override
+            public boolean matches(Archive.Entry entry) {
+                if (isNestedArchive(entry)) {
+                    names.add(entry.getName());
+                    return true;
+                }
+                return false;
+            }
+        });
+        Map<Archive, Integer> ranks = new HashMap<Archive, Integer>();
+        for (int i = 0; i < archives.size(); i++) {
+            String name = names.get(i);
+            Integer position = index.get(name);
+            ranks.put(archives.get(i), name.equals(classesPath) ? -1 : position == null ? Integer.MAX_VALUE : position);
+        }
+        List<Archive> sorted = new ArrayList<Archive>(archives);
+        Collections.sort(sorted, new Comparator<Archive>() {
+            @Override
+            public int compare(Archive first, Archive second) {
+                return ranks.get(first).compareTo(ranks.get(second));
+            }
+        });
+        postProcessClassPathArchives(sorted);
+        return sorted;
+    }
+
+    /**
+     * Returns the position of each library in the class path index, read once so ranking the archives stays linear.
+     */
+    private Map<String, Integer> readClassPathIndex() throws IOException {
+        Map<String, Integer> positions = new HashMap<String, Integer>();
+        try (BufferedReader reader = openIndex(classPathIndexPath)) {
+            for (String line; (line = reader.readLine()) != null; ) {
+                line = line.trim();
+                if (line.startsWith("- \"") && line.endsWith("\"")) {
+                    String library = line.substring(3, line.length() - 1);
+                    if (!positions.containsKey(library)) {
+                        positions.put(library, positions.size());
+                    }
+                }
+            }
+        }
+        return positions;
+    }
+
+    protected BufferedReader openIndex(String path) throws IOException {
+        URL index = new URL(getArchive().getUrl(), path);
+        return new BufferedReader(new InputStreamReader(index.openStream(), "UTF-8"));
     }
 
     protected void initializePaths() throws Exception {
@@ -35,6 +100,7 @@ public class ManifestJarLauncher extends ExecutableArchiveLauncher {
             Attributes attrs = manifest.getMainAttributes();
             libsPath = normalizeToJarPath(attrs.getValue("Spring-Boot-Lib"));
             classesPath = normalizeToJarPath(attrs.getValue("Spring-Boot-Classes"));
+            classPathIndexPath = attrs.getValue("Spring-Boot-Classpath-Index");
         }
         if (libsPath == null) {
             libsPath = BOOT_INF_LIB;
@@ -0,0 +1,135 @@
+package org.shrinkwrap.springboot.app;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.security.CodeSource;
+import java.security.ProtectionDomain;
+import java.security.cert.Certificate;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.Manifest;
+
+import org.springframework.boot.loader.LaunchedURLClassLoader;
+
+/**
+ * {@link LaunchedURLClassLoader} reading each class from the nested archives the package index maps its package to,
+ * instead of probing every archive of the class path in turn. Classes of packages missing from the index, and all
+ * resources, are still looked up along the whole class path.
+ */
+public class PackageIndexClassLoader extends LaunchedURLClassLoader {
+
+    static {
+        ClassLoader.registerAsParallelCapable();
+    }
+
+    private final Map<String, List<URL>> packages;
+    private final Map<String, Manifest> manifests = new ConcurrentHashMap<String, Manifest>();
+    private final Map<String, ProtectionDomain> protectionDomains = new ConcurrentHashMap<String, ProtectionDomain>();
+    private final Set<String> definedPackages = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    public PackageIndexClassLoader(URL[] urls, ClassLoader parent, Map<String, List<URL>> packages) {
+        super(urls, parent);
+        this.packages = packages;
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        int dot = name.lastIndexOf('.');
+        List<URL> owners = dot < 0 ? null : packages.get(name.substring(0, dot).replace('.', '/'));
+        if (owners == null) {
+            return super.loadClass(name, resolve);
+        }
+
+        synchronized (getClassLoadingLock(name)) {
+            Class<?> loaded = findLoadedClass(name);
+            if (loaded == null) {
+                try {
+                    loaded = getParent().loadClass(name);
+                } catch (ClassNotFoundException e) {
+                    loaded = defineIndexedClass(name, name.substring(0, dot), owners);
+                }
+            }
+            if (resolve) {
+                resolveClass(loaded);
+            }
+            return loaded;
+        }
+    }
+
+    private Class<?> defineIndexedClass(String name, String packageName, List<URL> owners)
+            throws ClassNotFoundException {
+        String path = name.replace('.', '/') + ".class";
+        for (URL owner : owners) {
+            byte[] bytes;
+            try (InputStream in = new URL(owner, path).openStream()) {
+                bytes = readFully(in);
+            } catch (FileNotFoundException e) {
+                continue;
+            } catch (IOException e) {
+                throw new ClassNotFoundException(name, e);
+            }
+            definePackageIfNecessary(packageName, owner);
+            return defineClass(name, bytes, 0, bytes.length, protectionDomain(owner));
+        }
+        throw new ClassNotFoundException(name);
+    }
+
+    private void definePackageIfNecessary(String packageName, URL owner) {
+        if (definedPackages.contains(packageName)) {
+            return;
+        }
+        try {
+            definePackage(packageName, manifest(owner), owner);
+        } catch (IllegalArgumentException e) {
+            // defined concurrently for another class of the package
+        }
+        definedPackages.add(packageName);
+    }
+
+    private Manifest manifest(URL owner) {
+        String key = owner.toString();
+        Manifest manifest = manifests.get(key);
+        if (manifest == null) {
+            try {
+                URLConnection connection = owner.openConnection();
+                if (connection instanceof JarURLConnection) {
+                    manifest = ((JarURLConnection) connection).getManifest();
+                }
+            } catch (IOException e) {
+                // packages are defined without version information
+            }
+            if (manifest == null) {
+                manifest = new Manifest();
+            }
+            manifests.put(key, manifest);
+        }
+        return manifest;
+    }
+
+    private ProtectionDomain protectionDomain(URL owner) {
+        String key = owner.toString();
+        ProtectionDomain protectionDomain = protectionDomains.get(key);
+        if (protectionDomain == null) {
+            protectionDomain = new ProtectionDomain(new CodeSource(owner, (Certificate[]) null), null, this, null);
+            protectionDomains.put(key, protectionDomain);
+        }
+        return protectionDomain;
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        for (int read; (read = in.read(buffer)) != -1; ) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,83 @@
+package org.shrinkwrap.springboot.app;
+
+import java.io.BufferedReader;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.Manifest;
+
+import org.springframework.boot.loader.archive.Archive;
+
+/**
+ * {@link ManifestJarLauncher} loading classes through the package index of the archive, when its manifest names one,
+ * so that each class is read straight from the nested archive holding its package.
+ */
+public class PackageIndexJarLauncher extends ManifestJarLauncher {
+
+    static final String PACKAGES_INDEX_ATTRIBUTE = "Spring-Boot-Packages-Index";
+
+    public PackageIndexJarLauncher() {
+    }
+
+    protected PackageIndexJarLauncher(Archive archive) {
+        super(archive);
+    }
+
+    @Override
+    protected ClassLoader createClassLoader(URL[] urls) throws Exception {
+        Manifest manifest = getArchive().getManifest();
+        String indexPath = manifest == null ? null : manifest.getMainAttributes().getValue(PACKAGES_INDEX_ATTRIBUTE);
+        if (indexPath == null) {
+            return super.createClassLoader(urls);
+        }
+
+        Map<String, URL> archives = new HashMap<String, URL>();
+        for (URL url : urls) {
+            archives.put(entryName(url.toString()), url);
+        }
+        Map<String, List<URL>> packages = new HashMap<String, List<URL>>();
+        try (BufferedReader reader = openIndex(indexPath)) {
+            String block = null;
+            URL owner = null;
+            for (String line; (line = reader.readLine()) != null; ) {
+                if (line.isEmpty()) {
+                    block = "";
+                    owner = null;
+                } else if (block == null) {
+                    continue; // header
+                } else if (block.isEmpty()) {
+                    block = line;
+                    owner = archives.get(entryName(line));
+                } else if (owner != null) {
+                    List<URL> owners = packages.get(line);
+                    if (owners == null) {
+                        owners = new ArrayList<URL>(1);
+                        packages.put(line, owners);
+                    }
+                    owners.add(owner);
+                }
+            }
+        }
+        return new PackageIndexClassLoader(urls, getClass().getClassLoader(), packages);
+    }
+
+    /**
+     * Returns the entry name of a nested archive, from its URL or from the index, without trailing separator.
+     */
+    private static String entryName(String name) {
+        int separator = name.indexOf("!/");
+        if (separator >= 0) {
+            name = name.substring(separator + 2);
+        }
+        while (name.endsWith("/") || name.endsWith("!")) {
+            name = name.substring(0, name.length() - 1);
+        }
+        return name;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new PackageIndexJarLauncher().launch(args);
+    }
+}
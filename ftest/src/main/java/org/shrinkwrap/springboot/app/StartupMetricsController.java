@@ -0,0 +1,55 @@
+/**
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package org.shrinkwrap.springboot.app;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Reports the footprint of the running application to the startup benchmark.
+ */
+@RestController
+public class StartupMetricsController {
+
+    @RequestMapping("/startup-metrics")
+    public Map<String, Long> metrics() {
+        Map<String, Long> metrics = new LinkedHashMap<String, Long>();
+        metrics.put("loadedClasses", (long) ManagementFactory.getClassLoadingMXBean().getLoadedClassCount());
+        metrics.put("rssKiB", residentSetSize());
+        return metrics;
+    }
+
+    /**
+     * Returns the resident set size in KiB, or -1 where /proc is not available.
+     */
+    private static long residentSetSize() {
+        try {
+            for (String line : Files.readAllLines(Paths.get("/proc/self/status"), StandardCharsets.UTF_8)) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", ""));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // not on Linux
+        }
+        return -1;
+    }
+}
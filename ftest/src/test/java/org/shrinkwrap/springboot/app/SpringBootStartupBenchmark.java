@@ -0,0 +1,216 @@
+package org.shrinkwrap.springboot.app;
+
+import static io.restassured.RestAssured.given;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.restassured.path.json.JsonPath;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.shrinkwrap.springboot.api.SpringBootLayout;
+import org.shrinkwrap.springboot.api.exporter.SpringBootExporter;
+import org.shrinkwrap.springboot.api.spec.SpringBootArchive;
+import org.shrinkwrap.springboot.impl.SpringBootLayoutImpl;
+import org.shrinkwrap.springboot.impl.SpringBootLayouts;
+
+/**
+ * Startup benchmark launching every packaging variant of the functional test application several times, and
+ * recording the time to the first HTTP 200, the resident set size and the number of loaded classes of each launch.
+ *
+ * Not part of the regular test run; run it with {@code mvn test -Pstartup-benchmark} from the ftest module. The
+ * {@code startup.runs} system property sets the number of launches per variant (5 by default), and
+ * {@code startup.variants} restricts the run to a comma separated list of variant names. Results are written to
+ * {@code target/startup-benchmark/startup.csv}, one line per launch, and {@code startup.json}, with the medians of
+ * every variant.
+ */
+public class SpringBootStartupBenchmark {
+
+    private static final int RUNS = Integer.getInteger("startup.runs", 5);
+    private static final String VARIANTS = System.getProperty("startup.variants", "");
+    private static final Path REPORT_DIRECTORY = Paths.get("target", "startup-benchmark");
+
+    private static final long STARTUP_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final long POLL_INTERVAL_MILLIS = 5;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void should_measure_startup_of_every_variant() throws Exception {
+        List<Launch> launches = new ArrayList<Launch>();
+        for (Variant variant : variants()) {
+            File jar = new File(temporaryFolder.getRoot(), variant.name + ".jar");
+            variant.create().as(SpringBootExporter.class).exportTo(jar);
+            for (int run = 1; run <= RUNS; run++) {
+                launches.add(launch(variant, jar, run));
+            }
+        }
+
+        Files.createDirectories(REPORT_DIRECTORY);
+        writeCsv(launches, REPORT_DIRECTORY.resolve("startup.csv"));
+        writeJson(launches, REPORT_DIRECTORY.resolve("startup.json"));
+    }
+
+    /**
+     * Returns the variants to launch: every layout and the custom launcher, unless restricted by
+     * {@code startup.variants}.
+     */
+    protected List<Variant> variants() {
+        SpringBootLayout customLayout = new SpringBootLayoutImpl(
+                ManifestJarLauncher.class.getName(),
+                "/INTERNAL/SPRING-BOOT-INF", "/INTERNAL/WEB-INF", "/INTERNAL/LIBRARIES", "/INTERNAL/CLASSES"
+        );
+        List<Variant> variants = Arrays.asList(
+                new Variant("spring-boot-13", SpringBootLayouts.SPRING_BOOT_10, SpringBootTest.SPRING_BOOT_VERSION_13),
+                new Variant("spring-boot-14", SpringBootLayouts.SPRING_BOOT_14, SpringBootTest.SPRING_BOOT_VERSION_14),
+                new Variant("spring-boot-15-jar", SpringBootLayouts.SPRING_BOOT_15_JAR,
+                        SpringBootTest.SPRING_BOOT_VERSION_15),
+                new Variant("spring-boot-15-war", SpringBootLayouts.SPRING_BOOT_15_WAR,
+                        SpringBootTest.SPRING_BOOT_VERSION_15),
+                new Variant("custom-manifest-launcher", customLayout, SpringBootTest.SPRING_BOOT_VERSION_15,
+                        ManifestJarLauncher.class));
+
+        if (VARIANTS.isEmpty()) {
+            return variants;
+        }
+        List<String> selected = Arrays.asList(VARIANTS.split("\\s*,\\s*"));
+        List<Variant> filtered = new ArrayList<Variant>();
+        for (Variant variant : variants) {
+            if (selected.contains(variant.name)) {
+                filtered.add(variant);
+            }
+        }
+        return filtered;
+    }
+
+    private Launch launch(Variant variant, File jar, int run) throws Exception {
+        File output = new File(temporaryFolder.getRoot(), variant.name + "-" + run + ".log");
+        int port = SpringBootTest.freePort();
+        long start = System.nanoTime();
+        Process process = SpringBootTest.start(
+                new ProcessBuilder("java", "-jar", jar.getAbsolutePath(), "--server.port=" + port), output);
+        try {
+            while (SpringBootTest.localServiceHttpStatus(port) != 200) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException(variant.name + " exited with " + process.exitValue()
+                            + ", see " + output);
+                }
+                if (System.nanoTime() - start > TimeUnit.MILLISECONDS.toNanos(STARTUP_TIMEOUT_MILLIS)) {
+                    throw new IllegalStateException(variant.name + " did not answer in time, see " + output);
+                }
+                Thread.sleep(POLL_INTERVAL_MILLIS);
+            }
+            long timeToFirstResponse = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            JsonPath metrics = given().port(port).get("/startup-metrics").jsonPath();
+            return new Launch(variant.name, run, timeToFirstResponse, metrics.getLong("rssKiB"),
+                    metrics.getLong("loadedClasses"));
+        } finally {
+            SpringBootTest.stop(process);
+        }
+    }
+
+    private static void writeCsv(List<Launch> launches, Path file) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("variant,run,timeToFirstResponseMillis,rssKiB,loadedClasses\n");
+            for (Launch launch : launches) {
+                writer.write(launch.variant + "," + launch.run + "," + launch.timeToFirstResponseMillis + ","
+                        + launch.rssKiB + "," + launch.loadedClasses + "\n");
+            }
+        }
+    }
+
+    private static void writeJson(List<Launch> launches, Path file) throws IOException {
+        StringBuilder json = new StringBuilder("{\n  \"runs\": ").append(RUNS).append(",\n  \"variants\": [");
+        List<String> variants = new ArrayList<String>();
+        for (Launch launch : launches) {
+            if (!variants.contains(launch.variant)) {
+                variants.add(launch.variant);
+            }
+        }
+        for (int i = 0; i < variants.size(); i++) {
+            List<Long> times = new ArrayList<Long>();
+            List<Long> rss = new ArrayList<Long>();
+            List<Long> classes = new ArrayList<Long>();
+            for (Launch launch : launches) {
+                if (launch.variant.equals(variants.get(i))) {
+                    times.add(launch.timeToFirstResponseMillis);
+                    rss.add(launch.rssKiB);
+                    classes.add(launch.loadedClasses);
+                }
+            }
+            json.append(i == 0 ? "\n" : ",\n")
+                    .append("    {\"name\": \"").append(variants.get(i)).append('"')
+                    .append(", \"timeToFirstResponseMillis\": ").append(median(times))
+                    .append(", \"minTimeToFirstResponseMillis\": ").append(Collections.min(times))
+                    .append(", \"maxTimeToFirstResponseMillis\": ").append(Collections.max(times))
+                    .append(", \"rssKiB\": ").append(median(rss))
+                    .append(", \"loadedClasses\": ").append(median(classes))
+                    .append('}');
+        }
+        json.append("\n  ]\n}\n");
+        Files.write(file, json.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static long median(List<Long> values) {
+        List<Long> sorted = new ArrayList<Long>(values);
+        Collections.sort(sorted);
+        return sorted.get(sorted.size() / 2);
+    }
+
+    /**
+     * Packaging of the application to launch.
+     */
+    protected static class Variant {
+
+        final String name;
+        final SpringBootLayout layout;
+        final String springBootVersion;
+        final Class<?>[] launcherClasses;
+
+        Variant(String name, SpringBootLayout layout, String springBootVersion, Class<?>... launcherClasses) {
+            this.name = name;
+            this.layout = layout;
+            this.springBootVersion = springBootVersion;
+            this.launcherClasses = launcherClasses;
+        }
+
+        SpringBootArchive create() {
+            SpringBootArchive archive = SpringBootTest.createSpringBootArchive(layout, springBootVersion)
+                    .addClass(StartupMetricsController.class);
+            if (launcherClasses.length > 0) {
+                archive.addLauncherClasses(launcherClasses);
+            }
+            return archive;
+        }
+    }
+
+    private static final class Launch {
+
+        final String variant;
+        final int run;
+        final long timeToFirstResponseMillis;
+        final long rssKiB;
+        final long loadedClasses;
+
+        Launch(String variant, int run, long timeToFirstResponseMillis, long rssKiB, long loadedClasses) {
+            this.variant = variant;
+            this.run = run;
+            this.timeToFirstResponseMillis = timeToFirstResponseMillis;
+            this.rssKiB = rssKiB;
+            this.loadedClasses = loadedClasses;
+        }
+    }
+}
@@ -2,25 +2,33 @@ package org.shrinkwrap.springboot.app;
 
 import static org.awaitility.Awaitility.await;
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
 
-import static io.restassured.RestAssured.get;
+import static io.restassured.RestAssured.given;
 
 import java.io.File;
 import java.io.IOException;
 import java.net.ConnectException;
 import java.net.HttpURLConnection;
+import java.net.ServerSocket;
 import java.net.URL;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import org.awaitility.Duration;
 import org.jboss.shrinkwrap.api.ShrinkWrap;
 import org.jboss.shrinkwrap.api.asset.StringAsset;
-import org.jboss.shrinkwrap.api.exporter.ZipStoredExporter;
 import org.jboss.shrinkwrap.api.spec.JavaArchive;
 import org.jboss.shrinkwrap.resolver.api.maven.Maven;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 import org.shrinkwrap.springboot.api.SpringBootLayout;
+import org.shrinkwrap.springboot.api.exporter.SpringBootExporter;
+import org.shrinkwrap.springboot.api.importer.SpringBootImporter;
 import org.shrinkwrap.springboot.api.spec.SpringBootArchive;
 import org.shrinkwrap.springboot.impl.SpringBootLayoutImpl;
 import org.shrinkwrap.springboot.impl.SpringBootLayouts;
@@ -29,14 +37,27 @@ import org.shrinkwrap.springboot.impl.SpringBootLayouts;
  *
  * Functional test that checks that the Spring Boot file created is bootable.
  *
+ * Every application is started on its own free port, so test methods can run in parallel, and is stopped when its
+ * test ends or, at the latest, when the test JVM exits.
+ *
  * @author <a href="rivasdiaz@gmail.com">Ramon Rivas</a>
  *
  */
 public class SpringBootTest {
 
-    private static String SPRING_BOOT_VERSION_13 = "1.3.7.RELEASE";
-    private static String SPRING_BOOT_VERSION_14 = "1.4.4.RELEASE";
-    private static String SPRING_BOOT_VERSION_15 = "1.5.1.RELEASE";
+    static String SPRING_BOOT_VERSION_13 = "1.3.7.RELEASE";
+    static String SPRING_BOOT_VERSION_14 = "1.4.4.RELEASE";
+    static String SPRING_BOOT_VERSION_15 = "1.5.1.RELEASE";
+
+    private static final Set<Process> LAUNCHED = Collections.newSetFromMap(new ConcurrentHashMap<Process, Boolean>());
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            for (Process process : LAUNCHED) {
+                process.destroyForcibly();
+            }
+        }));
+    }
 
     @Rule
     public TemporaryFolder temporaryFolder = new TemporaryFolder();
@@ -81,27 +102,158 @@ public class SpringBootTest {
         validateSpringBootArchive(archive);
     }
 
+    @Test
+    public void should_launch_libraries_in_class_path_index_order() throws IOException {
+
+        SpringBootLayout customLayout = new SpringBootLayoutImpl(
+                ManifestJarLauncher.class.getName(),
+                "/INTERNAL/SPRING-BOOT-INF", "/INTERNAL/WEB-INF", "/INTERNAL/LIBRARIES", "/INTERNAL/CLASSES"
+        );
+        SpringBootArchive archive = createSpringBootArchive(customLayout, SPRING_BOOT_VERSION_14);
+        archive.addLauncherClass(ManifestJarLauncher.class);
+        archive.addClassPathIndex();
+        archive.setSpringBootManifest(Application.class.getName(), SPRING_BOOT_VERSION_14);
+        validateSpringBootArchive(archive);
+    }
+
+    @Test
+    public void should_launch_classes_through_package_index() throws IOException {
+
+        SpringBootLayout customLayout = new SpringBootLayoutImpl(
+                PackageIndexJarLauncher.class.getName(),
+                "/INTERNAL/SPRING-BOOT-INF", "/INTERNAL/WEB-INF", "/INTERNAL/LIBRARIES", "/INTERNAL/CLASSES"
+        );
+        SpringBootArchive archive = createSpringBootArchive(customLayout, SPRING_BOOT_VERSION_14);
+        archive.addLauncherClasses(ManifestJarLauncher.class, PackageIndexJarLauncher.class,
+                PackageIndexClassLoader.class);
+        archive.addPackageIndex();
+        archive.setSpringBootManifest(Application.class.getName(), SPRING_BOOT_VERSION_14);
+        validateSpringBootArchive(archive);
+    }
+
+    @Test
+    public void should_launch_with_factories_index() throws IOException {
+
+        SpringBootLayout customLayout = new SpringBootLayoutImpl(
+                FactoriesIndexJarLauncher.class.getName(),
+                "/INTERNAL/SPRING-BOOT-INF", "/INTERNAL/WEB-INF", "/INTERNAL/LIBRARIES", "/INTERNAL/CLASSES"
+        );
+        SpringBootArchive archive = createSpringBootArchive(customLayout, SPRING_BOOT_VERSION_14);
+        archive.addLauncherClasses(ManifestJarLauncher.class, FactoriesIndexJarLauncher.class,
+                FactoriesIndexClassLoader.class);
+        archive.addFactoriesIndex();
+        archive.setSpringBootManifest(Application.class.getName(), SPRING_BOOT_VERSION_14);
+        validateSpringBootArchive(archive);
+    }
+
+    @Test
+    public void should_launch_imported_and_patched_spring_boot_14_archive() throws IOException {
+
+        File source = new File(temporaryFolder.getRoot(), "source.jar");
+        createSpringBootArchive(SpringBootLayouts.SPRING_BOOT_14, SPRING_BOOT_VERSION_14)
+                .as(SpringBootExporter.class)
+                .exportTo(source);
+
+        SpringBootArchive archive = ShrinkWrap.create(SpringBootArchive.class)
+                .setSpringBootLayout(SpringBootLayouts.SPRING_BOOT_14);
+        archive.as(SpringBootImporter.class).importFrom(source);
+        archive.addClass(HelloController.class);
+        validateSpringBootArchive(archive);
+    }
+
+    @Test
+    public void should_launch_pruned_spring_boot_14_archive() throws IOException {
+
+        SpringBootArchive archive = createSpringBootArchive(SpringBootLayouts.SPRING_BOOT_14, SPRING_BOOT_VERSION_14);
+        archive.addAsLibraries(Maven.resolver()
+                .resolve("org.assertj:assertj-core:2.5.0")
+                .withoutTransitivity()
+                .asFile());
+        archive.pruneUnreachable();
+        assertThat(archive.contains("/BOOT-INF/lib/assertj-core-2.5.0.jar"), is(false));
+        validateSpringBootArchive(archive);
+    }
+
+    @Test
+    public void should_launch_with_class_data_sharing_archive() throws IOException {
+
+        SpringBootArchive archive = createSpringBootArchive(SpringBootLayouts.SPRING_BOOT_14, SPRING_BOOT_VERSION_14);
+        File target = new File(temporaryFolder.getRoot(), "app.jar");
+        archive.as(SpringBootExporter.class).exportWithClassDataSharingTo(target.toPath(), 15, TimeUnit.SECONDS, true,
+                "--server.port=" + freePort());
+
+        int port = freePort();
+        ProcessBuilder launch = new ProcessBuilder("sh", new File(temporaryFolder.getRoot(), "app.sh").getAbsolutePath(),
+                "--server.port=" + port);
+        launch.environment().put("JAVA_HOME", System.getProperty("java.home"));
+        validateLaunch(launch, port);
+    }
+
     private void validateSpringBootArchive(SpringBootArchive archive) throws IOException {
-        archive.as(ZipStoredExporter.class).exportTo(new File(temporaryFolder.getRoot(), "app.jar"));
-        Process process = new ProcessBuilder("java", "-jar", temporaryFolder.getRoot().getAbsolutePath() + "/app.jar").start();
+        archive.as(SpringBootExporter.class).exportTo(new File(temporaryFolder.getRoot(), "app.jar"));
+        int port = freePort();
+        validateLaunch(new ProcessBuilder("java", "-jar", temporaryFolder.getRoot().getAbsolutePath() + "/app.jar",
+                "--server.port=" + port), port);
+    }
+
+    private void validateLaunch(ProcessBuilder launch, int port) throws IOException {
+        Process process = start(launch, new File(temporaryFolder.getRoot(), "app.log"));
         try {
             await()
-                    .atMost(Duration.TEN_SECONDS)
-                    .until(SpringBootTest::localServiceHttpStatus, equalTo(200));
+                    .atMost(Duration.ONE_MINUTE)
+                    .until(() -> localServiceHttpStatus(port), equalTo(200));
 
             // check controller works
-            get().then().body(equalTo("Greetings From Spring Boot"));
+            given().port(port).get().then().body(equalTo("Greetings From Spring Boot"));
 
             // check web resource works
-            get("/hello").then().body(equalTo("world"));
+            given().port(port).get("/hello").then().body(equalTo("world"));
         } finally {
+            stop(process);
+        }
+    }
+
+    /**
+     * Starts a process writing its output to a file, and registers it to be killed when the test JVM exits.
+     */
+    static Process start(ProcessBuilder launch, File output) throws IOException {
+        Process process = launch
+                .redirectErrorStream(true)
+                .redirectOutput(output)
+                .start();
+        LAUNCHED.add(process);
+        return process;
+    }
+
+    /**
+     * Stops a process started with {@link #start(ProcessBuilder, File)}, killing it if it does not exit in time.
+     */
+    static void stop(Process process) {
+        try {
             process.destroy();
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor(10, TimeUnit.SECONDS);
+            }
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+        } finally {
+            LAUNCHED.remove(process);
         }
     }
 
-    private static int localServiceHttpStatus() throws IOException {
+    /**
+     * Returns a port nothing listens on at the time of the call.
+     */
+    static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    static int localServiceHttpStatus(int port) throws IOException {
         try {
-            URL url = new URL("http://localhost:8080");
+            URL url = new URL("http://localhost:" + port);
             HttpURLConnection connection = (HttpURLConnection) url.openConnection();
             connection.setRequestMethod("GET");
             connection.connect();
@@ -112,7 +264,7 @@ public class SpringBootTest {
         }
     }
 
-    private SpringBootArchive createSpringBootArchive(SpringBootLayout layout, String springBootVersion) {
+    static SpringBootArchive createSpringBootArchive(SpringBootLayout layout, String springBootVersion) {
         return ShrinkWrap.create(SpringBootArchive.class)
                 .setSpringBootLayout(layout)
 
@@ -122,7 +274,7 @@ public class SpringBootTest {
                 .addAsLibraries(Maven.resolver()
                         .resolve("org.springframework.boot:spring-boot-starter-web:"+springBootVersion)
                         .withTransitivity()
-                        .as(JavaArchive.class))
+                        .asFile())
 
                 .addAsLauncherLibraries(Maven.resolver()
                         .resolve("org.springframework.boot:spring-boot-loader:"+springBootVersion)
@@ -0,0 +1,101 @@
+package org.shrinkwrap.springboot.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.jar.Attributes;
+import java.util.jar.Manifest;
+
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.ArchivePath;
+import org.jboss.shrinkwrap.api.ArchivePaths;
+import org.jboss.shrinkwrap.api.Node;
+
+/**
+ * Spring Boot attributes read back from the manifest of an archive.
+ *
+ * Exporters only see the underlying archive, not its {@link org.shrinkwrap.springboot.api.SpringBootLayout}, so they
+ * rely on the manifest written by {@code setSpringBootManifest} to find where classes and libraries are stored.
+ */
+public class SpringBootManifest {
+
+    private static final String MANIFEST_PATH = "/META-INF/MANIFEST.MF";
+
+    private final String mainClass;
+    private final String startClass;
+    private final ArchivePath librariesPath;
+    private final ArchivePath classesPath;
+
+    private SpringBootManifest(final String mainClass, final String startClass, final ArchivePath librariesPath,
+            final ArchivePath classesPath) {
+        this.mainClass = mainClass;
+        this.startClass = startClass;
+        this.librariesPath = librariesPath;
+        this.classesPath = classesPath;
+    }
+
+    /**
+     * Reads the Spring Boot manifest of an archive.
+     *
+     * @param archive
+     *            archive with a Spring Boot manifest
+     * @return the manifest
+     * @throws IllegalArgumentException
+     *             if the archive has no Spring Boot manifest
+     */
+    public static SpringBootManifest read(final Archive<?> archive) {
+        final Node node = archive.get(MANIFEST_PATH);
+        if (node == null || node.getAsset() == null) {
+            throw new IllegalArgumentException("Archive has no manifest: " + archive.getName());
+        }
+        final Manifest manifest;
+        try (InputStream in = node.getAsset().openStream()) {
+            manifest = new Manifest(in);
+        } catch (final IOException e) {
+            throw new IllegalArgumentException("Manifest cannot be read: " + archive.getName(), e);
+        }
+        final Attributes attributes = manifest.getMainAttributes();
+        final String startClass = attributes.getValue(SpringBootManifestAttributes.ATTR_START_CLASS);
+        final String libraries = attributes.getValue(SpringBootManifestAttributes.ATTR_SPRING_BOOT_LIB);
+        final String classes = attributes.getValue(SpringBootManifestAttributes.ATTR_SPRING_BOOT_CLASSES);
+        if (startClass == null || libraries == null || classes == null) {
+            throw new IllegalArgumentException("Archive has no Spring Boot manifest: " + archive.getName());
+        }
+        return new SpringBootManifest(attributes.getValue(Attributes.Name.MAIN_CLASS), startClass, ArchivePaths.create(libraries), ArchivePaths.create(classes));
+    }
+
+    /**
+     * Returns the name of the launcher class.
+     *
+     * @return the launcher class, or null if the manifest has no {@code Main-Class}
+     */
+    public String getMainClass() {
+        return mainClass;
+    }
+
+    /**
+     * Returns the name of the application main class.
+     *
+     * @return the application main class
+     */
+    public String getStartClass() {
+        return startClass;
+    }
+
+    /**
+     * Returns the path holding the libraries.
+     *
+     * @return the libraries path
+     */
+    public ArchivePath getLibrariesPath() {
+        return librariesPath;
+    }
+
+    /**
+     * Returns the path holding the application classes.
+     *
+     * @return the classes path
+     */
+    public ArchivePath getClassesPath() {
+        return classesPath;
+    }
+}
@@ -11,4 +11,8 @@ public class SpringBootManifestAttributes {
     public static final String ATTR_SPRING_BOOT_CLASSES = "Spring-Boot-Classes";
     public static final String ATTR_SPRING_BOOT_LIB = "Spring-Boot-Lib";
     public static final String ATTR_SPRING_BOOT_VERSION = "Spring-Boot-Version";
+    public static final String ATTR_SPRING_BOOT_CLASSPATH_INDEX = "Spring-Boot-Classpath-Index";
+    public static final String ATTR_SPRING_BOOT_LAYERS_INDEX = "Spring-Boot-Layers-Index";
+    public static final String ATTR_SPRING_BOOT_PACKAGES_INDEX = "Spring-Boot-Packages-Index";
+    public static final String ATTR_SPRING_BOOT_FACTORIES_INDEX = "Spring-Boot-Factories-Index";
 }
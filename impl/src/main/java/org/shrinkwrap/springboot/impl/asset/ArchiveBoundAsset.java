@@ -0,0 +1,94 @@
+package org.shrinkwrap.springboot.impl.asset;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Function;
+
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.asset.Asset;
+import org.jboss.shrinkwrap.impl.base.Validate;
+
+/**
+ * Lazy {@link Asset} bound to the archive holding it and computed from its content, such as an index file or the
+ * compressed copy of another entry.
+ *
+ * The content is computed each time the asset is opened, so changes made to the archive after the asset was added are
+ * still taken into account when the archive is exported. Such an asset cannot be shared as it is with another archive,
+ * so a fork is given its own copy, bound to the fork.
+ */
+public abstract class ArchiveBoundAsset implements Asset {
+
+    private final Archive<?> archive;
+
+    /**
+     * Creates a new asset computed from the specified archive.
+     *
+     * @param archive
+     *            archive holding the asset
+     * @throws IllegalArgumentException
+     *             if the archive is not specified
+     */
+    protected ArchiveBoundAsset(final Archive<?> archive) {
+        Validate.notNull(archive, "Archive must be specified");
+        this.archive = archive;
+    }
+
+    /**
+     * Creates a new asset holding a text index, such as {@code layers.idx}, computed from the specified archive and
+     * encoded in UTF-8.
+     *
+     * @param archive
+     *            archive to index
+     * @param index
+     *            function computing the index of an archive
+     * @return the asset indexing the specified archive
+     * @throws IllegalArgumentException
+     *             if the archive or the index are not specified
+     */
+    public static ArchiveBoundAsset of(final Archive<?> archive, final Function<Archive<?>, String> index) {
+        return new TextIndexAsset(archive, index);
+    }
+
+    /**
+     * Returns the archive the asset is computed from.
+     *
+     * @return the archive holding the asset
+     */
+    protected Archive<?> getArchive() {
+        return archive;
+    }
+
+    /**
+     * Returns the same asset bound to another archive.
+     *
+     * @param archive
+     *            archive to bind the copy to
+     * @return the asset computed from the specified archive
+     */
+    public abstract ArchiveBoundAsset forArchive(Archive<?> archive);
+
+    /**
+     * Text index computed by a function of the archive.
+     */
+    private static final class TextIndexAsset extends ArchiveBoundAsset {
+
+        private final Function<Archive<?>, String> index;
+
+        private TextIndexAsset(final Archive<?> archive, final Function<Archive<?>, String> index) {
+            super(archive);
+            Validate.notNull(index, "Index must be specified");
+            this.index = index;
+        }
+
+        @Override
+        public ArchiveBoundAsset forArchive(final Archive<?> archive) {
+            return new TextIndexAsset(archive, index);
+        }
+
+        @Override
+        public InputStream openStream() {
+            return new ByteArrayInputStream(index.apply(getArchive()).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package org.shrinkwrap.springboot.impl.asset;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.ArchivePath;
+import org.jboss.shrinkwrap.api.Node;
+import org.jboss.shrinkwrap.api.asset.Asset;
+import org.jboss.shrinkwrap.impl.base.Validate;
+
+/**
+ * Lazy {@link Asset} holding the gzip compressed form of another entry of the archive, such as the {@code .gz} sibling
+ * of a static web resource.
+ *
+ * The entry is compressed each time the asset is opened, which normally only happens when the archive is exported, on
+ * the threads preparing the entries, so a resource replaced after the asset was added is still compressed from its
+ * current content.
+ */
+public class GzipResourceAsset extends ArchiveBoundAsset {
+
+    private static final int CHUNK_SIZE = 8192;
+
+    private final ArchivePath resource;
+
+    /**
+     * Creates a new asset compressing the specified entry of an archive.
+     *
+     * @param archive
+     *            archive holding the entry
+     * @param resource
+     *            path of the entry to compress
+     * @throws IllegalArgumentException
+     *             if the archive or the entry path are not specified
+     */
+    public GzipResourceAsset(final Archive<?> archive, final ArchivePath resource) {
+        super(archive);
+        Validate.notNull(resource, "Resource must be specified");
+        this.resource = resource;
+    }
+
+    @Override
+    public ArchiveBoundAsset forArchive(final Archive<?> archive) {
+        return new GzipResourceAsset(archive, resource);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalStateException
+     *             if the compressed entry was deleted or cannot be read
+     */
+    @Override
+    public InputStream openStream() {
+        final Node node = getArchive().get(resource);
+        if (node == null || node.getAsset() == null) {
+            throw new IllegalStateException("Compressed resource was deleted: " + resource.get());
+        }
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (InputStream in = node.getAsset().openStream();
+                OutputStream out = new GZIPOutputStream(compressed, CHUNK_SIZE) {
+                    {
+                        def.setLevel(Deflater.BEST_COMPRESSION);
+                    }
+                }) {
+            final byte[] chunk = new byte[CHUNK_SIZE];
+            for (int read; (read = in.read(chunk)) != -1; ) {
+                out.write(chunk, 0, read);
+            }
+        } catch (final IOException e) {
+            throw new IllegalStateException("Resource cannot be compressed: " + resource.get(), e);
+        }
+        return new ByteArrayInputStream(compressed.toByteArray());
+    }
+}
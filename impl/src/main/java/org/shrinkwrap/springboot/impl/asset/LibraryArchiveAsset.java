@@ -0,0 +1,29 @@
+package org.shrinkwrap.springboot.impl.asset;
+
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.asset.ArchiveAsset;
+import org.jboss.shrinkwrap.api.exporter.ZipStoredExporter;
+
+/**
+ * Lazy {@link ArchiveAsset} representing a library nested under the Spring Boot libraries path.
+ *
+ * Nothing is serialized until the asset is opened, which normally only happens when the outer archive is exported, so
+ * libraries deleted or replaced before that never pay any serialization cost. Unlike the assets created by
+ * {@link Archive#add(Archive, org.jboss.shrinkwrap.api.ArchivePath, Class)} it is added as a plain asset, so it is not
+ * registered as a nested archive of the outer one: path lookups do not scan every library and a replaced library is
+ * released together with its node.
+ */
+public class LibraryArchiveAsset extends ArchiveAsset {
+
+    /**
+     * Creates a new asset for the specified library, exported as a STORED jar when opened.
+     *
+     * @param archive
+     *            the library
+     * @throws IllegalArgumentException
+     *             if the archive is not specified
+     */
+    public LibraryArchiveAsset(final Archive<?> archive) {
+        super(archive, ZipStoredExporter.class);
+    }
+}
@@ -0,0 +1,205 @@
+package org.shrinkwrap.springboot.impl.asset;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import org.jboss.shrinkwrap.api.asset.Asset;
+import org.jboss.shrinkwrap.impl.base.Validate;
+
+/**
+ * Lazy {@link Asset} holding an entry of a memory-mapped ZIP file, as described by its central directory.
+ *
+ * Its local header is only read, to locate the data, when the asset is opened or its data requested, and its data is
+ * never copied as a whole: STORED entries are streamed straight from the mapping and DEFLATED ones inflated from it.
+ */
+public class MappedEntryAsset implements Asset {
+
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int LOCAL_HEADER_LENGTH = 30;
+    private static final int CHUNK_SIZE = 8192;
+
+    private final Path source;
+    private final ByteBuffer file;
+    private final String name;
+    private final int localHeaderOffset;
+    private final boolean deflated;
+    private final long crc;
+    private final long size;
+    private final int compressedSize;
+
+    /**
+     * Creates a new asset reading the specified entry of a mapped file.
+     *
+     * @param source
+     *            path of the mapped file
+     * @param file
+     *            content of the mapped file, shared and never modified
+     * @param name
+     *            name of the entry
+     * @param localHeaderOffset
+     *            offset of the local header of the entry
+     * @param deflated
+     *            whether the entry is DEFLATED rather than STORED
+     * @param crc
+     *            CRC-32 of the uncompressed data
+     * @param size
+     *            uncompressed size
+     * @param compressedSize
+     *            size of the data in the file
+     * @throws IllegalArgumentException
+     *             if the file, its content or the entry name are not specified
+     */
+    public MappedEntryAsset(final Path source, final ByteBuffer file, final String name, final int localHeaderOffset,
+            final boolean deflated, final long crc, final long size, final int compressedSize) {
+        Validate.notNull(source, "Source must be specified");
+        Validate.notNull(file, "File must be specified");
+        Validate.notNull(name, "Name must be specified");
+        this.source = source;
+        this.file = file;
+        this.name = name;
+        this.localHeaderOffset = localHeaderOffset;
+        this.deflated = deflated;
+        this.crc = crc;
+        this.size = size;
+        this.compressedSize = compressedSize;
+    }
+
+    /**
+     * Returns the path of the mapped file holding the entry.
+     *
+     * @return the mapped file
+     */
+    public Path getSource() {
+        return source;
+    }
+
+    /**
+     * Returns whether the entry is DEFLATED rather than STORED.
+     *
+     * @return whether the data is compressed
+     */
+    public boolean isDeflated() {
+        return deflated;
+    }
+
+    /**
+     * Returns the CRC-32 of the uncompressed data, as recorded by the central directory.
+     *
+     * @return the CRC-32
+     */
+    public long getCrc() {
+        return crc;
+    }
+
+    /**
+     * Returns the uncompressed size of the entry.
+     *
+     * @return the uncompressed size
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Returns a read-only view of the data of the entry as stored in the file, compressed if the entry is DEFLATED.
+     *
+     * @return a new view of the mapped data
+     * @throws IllegalStateException
+     *             if the local header of the entry is invalid
+     */
+    public ByteBuffer getData() {
+        final ByteBuffer header = file.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        if (localHeaderOffset > header.capacity() - LOCAL_HEADER_LENGTH
+                || header.getInt(localHeaderOffset) != LOCAL_HEADER_SIGNATURE) {
+            throw new IllegalStateException("No local header found for " + name + " in " + source);
+        }
+        final long offset = (long) localHeaderOffset + LOCAL_HEADER_LENGTH
+                + (header.getShort(localHeaderOffset + 26) & 0xFFFF)
+                + (header.getShort(localHeaderOffset + 28) & 0xFFFF);
+        if (offset + compressedSize > header.capacity()) {
+            throw new IllegalStateException("Data of " + name + " exceeds the end of " + source);
+        }
+        final ByteBuffer data = file.duplicate();
+        // Through Buffer, whose methods return Buffer on Java 8 too
+        ((Buffer) data).position((int) offset);
+        ((Buffer) data).limit((int) offset + compressedSize);
+        return data.slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalStateException
+     *             if the local header of the entry is invalid
+     */
+    @Override
+    public InputStream openStream() {
+        final InputStream data = new ByteBufferInputStream(getData());
+        if (!deflated) {
+            return data;
+        }
+        final Inflater inflater = new Inflater(true);
+        // Raw inflation may need one byte past the end of the data
+        return new InflaterInputStream(new SequenceInputStream(data, new ByteArrayInputStream(new byte[1])),
+                inflater, CHUNK_SIZE) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    inflater.end();
+                }
+            }
+        };
+    }
+
+    /**
+     * Stream reading a buffer without copying it.
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(final ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(final byte[] bytes, final int offset, final int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            final int read = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, read);
+            return read;
+        }
+
+        @Override
+        public long skip(final long count) {
+            final int skipped = (int) Math.max(0, Math.min(count, buffer.remaining()));
+            ((Buffer) buffer).position(buffer.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -2,18 +2,28 @@ package org.shrinkwrap.springboot.impl.container;
 
 import java.io.File;
 import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Collection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 
 import org.jboss.shrinkwrap.api.Archive;
 import org.jboss.shrinkwrap.api.ArchivePath;
 import org.jboss.shrinkwrap.api.ArchivePaths;
 import org.jboss.shrinkwrap.api.Filter;
+import org.jboss.shrinkwrap.api.Node;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
 import org.jboss.shrinkwrap.api.asset.Asset;
 import org.jboss.shrinkwrap.api.asset.ClassLoaderAsset;
 import org.jboss.shrinkwrap.api.asset.FileAsset;
 import org.jboss.shrinkwrap.api.asset.StringAsset;
 import org.jboss.shrinkwrap.api.asset.UrlAsset;
-import org.jboss.shrinkwrap.api.exporter.ZipStoredExporter;
 import org.jboss.shrinkwrap.api.spec.JavaArchive;
 import org.jboss.shrinkwrap.descriptor.api.Descriptors;
 import org.jboss.shrinkwrap.descriptor.api.spec.se.manifest.ManifestDescriptor;
@@ -21,8 +31,29 @@ import org.jboss.shrinkwrap.impl.base.Validate;
 import org.jboss.shrinkwrap.impl.base.asset.AssetUtil;
 import org.jboss.shrinkwrap.impl.base.container.WebContainerBase;
 import org.jboss.shrinkwrap.impl.base.path.BasicPath;
+import org.jboss.shrinkwrap.impl.base.path.PathUtil;
+import org.jboss.shrinkwrap.spi.Configurable;
+import org.shrinkwrap.springboot.api.SpringBootLayout;
 import org.shrinkwrap.springboot.api.container.SpringBootContainer;
+import org.shrinkwrap.springboot.api.library.LibraryConflictPolicy;
+import org.shrinkwrap.springboot.api.library.LibraryConflicts;
+import org.shrinkwrap.springboot.api.metrics.SpringBootBuildListener;
+import org.shrinkwrap.springboot.api.metrics.SpringBootOperation;
+import org.shrinkwrap.springboot.impl.SpringBootManifest;
 import org.shrinkwrap.springboot.impl.SpringBootManifestAttributes;
+import org.shrinkwrap.springboot.impl.asset.ArchiveBoundAsset;
+import org.shrinkwrap.springboot.impl.asset.GzipResourceAsset;
+import org.shrinkwrap.springboot.impl.asset.LibraryArchiveAsset;
+import org.shrinkwrap.springboot.impl.index.ClassPathIndex;
+import org.shrinkwrap.springboot.impl.index.ClassReachability;
+import org.shrinkwrap.springboot.impl.index.ComponentIndex;
+import org.shrinkwrap.springboot.impl.index.FactoriesIndex;
+import org.shrinkwrap.springboot.impl.index.LibraryConflictsImpl;
+import org.shrinkwrap.springboot.impl.index.LibraryIndex;
+import org.shrinkwrap.springboot.impl.index.PackageIndex;
+import org.shrinkwrap.springboot.impl.layer.Layers;
+import org.shrinkwrap.springboot.impl.metrics.OperationRecorder;
+import org.shrinkwrap.springboot.impl.web.Fingerprints;
 
 /**
  * Abstract class that helps implement the {@link SpringBootContainer}. Used by specs that extends the SpringBootContainer.
@@ -33,10 +64,31 @@ public abstract class SpringBootContainerBase<T extends Archive<T>> extends WebC
 
     private static String NO_VERSION_SPECIFIED = ".";
 
+    private static final String META_INF = "/META-INF";
+
+    private static final String KEPT_PACKAGE_SUFFIX = ".*";
+
+    private static final String GZIP_SUFFIX = ".gz";
+
+    private static final String[] COMPRESSIBLE_WEB_RESOURCES = { "css", "csv", "htm", "html", "ico", "js", "json",
+            "map", "mjs", "svg", "txt", "wasm", "xml" };
+
+    private static final String[] FINGERPRINTED_WEB_RESOURCES = { "avif", "css", "eot", "gif", "jpeg", "jpg", "js",
+            "mjs", "png", "svg", "ttf", "webp", "woff", "woff2" };
+
+    private SpringBootBuildListener buildListener;
+
     protected SpringBootContainerBase(Class<T> actualType, Archive<?> archive) {
         super(actualType, archive);
     }
 
+    /**
+     * Returns the Spring Boot layout
+     *
+     * @return the Spring Boot layout
+     */
+    protected abstract SpringBootLayout getSpringBootLayout();
+
     /**
      * Returns the Spring Boot launcher class name
      *
@@ -70,9 +122,287 @@ public abstract class SpringBootContainerBase<T extends Archive<T>> extends WebC
         if (!NO_VERSION_SPECIFIED.equals(springBootVersion)) {
             manifest.attribute(SpringBootManifestAttributes.ATTR_SPRING_BOOT_VERSION, springBootVersion);
         }
+        final ArchivePath classPathIndex = getIndexPath(ClassPathIndex.CLASSPATH_INDEX);
+        if (classPathIndex != null && contains(classPathIndex)) {
+            manifest.attribute(SpringBootManifestAttributes.ATTR_SPRING_BOOT_CLASSPATH_INDEX,
+                    PathUtil.optionallyRemovePrecedingSlash(classPathIndex.get()));
+        }
+        final ArchivePath packageIndex = getIndexPath(PackageIndex.PACKAGES_INDEX);
+        if (packageIndex != null && contains(packageIndex)) {
+            manifest.attribute(SpringBootManifestAttributes.ATTR_SPRING_BOOT_PACKAGES_INDEX,
+                    PathUtil.optionallyRemovePrecedingSlash(packageIndex.get()));
+        }
+        final ArchivePath factoriesIndex = new BasicPath(getClassesPath(), FactoriesIndex.FACTORIES_INDEX);
+        if (contains(factoriesIndex)) {
+            manifest.attribute(SpringBootManifestAttributes.ATTR_SPRING_BOOT_FACTORIES_INDEX,
+                    PathUtil.optionallyRemovePrecedingSlash(factoriesIndex.get()));
+        }
+        final ArchivePath layersIndex = getIndexPath(Layers.LAYERS_INDEX);
+        if (layersIndex != null && contains(layersIndex)) {
+            manifest.attribute(SpringBootManifestAttributes.ATTR_SPRING_BOOT_LAYERS_INDEX,
+                    PathUtil.optionallyRemovePrecedingSlash(layersIndex.get()));
+        }
         return setManifest(new StringAsset(manifest.exportAsString()));
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @see SpringBootContainer#fork()
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public T fork() {
+        final Archive<?> storage = getArchive();
+        if (!(storage instanceof Configurable)) {
+            throw new UnsupportedOperationException("Archive storage cannot be forked: " + storage.getClass());
+        }
+        final T fork = ShrinkWrap.createDomain(((Configurable) storage).getConfiguration()).getArchiveFactory()
+                .create(getActualClass(), getName());
+        final SpringBootContainer<T> container = (SpringBootContainer<T>) fork;
+        container.setSpringBootLayout(getSpringBootLayout());
+        container.setBuildListener(buildListener);
+
+        final Node root = get(ArchivePaths.root());
+        if (root != null) {
+            for (final Node node : root.getChildren()) {
+                forkNode(node, fork);
+            }
+        }
+        return fork;
+    }
+
+    /**
+     * Adds a node, then its children, to the fork at the same path, sharing their paths and assets. Assets bound to
+     * the archive, such as indexes, are bound to the fork instead.
+     */
+    private static void forkNode(final Node node, final Archive<?> fork) {
+        final Asset asset = node.getAsset();
+        if (asset instanceof ArchiveBoundAsset) {
+            fork.add(((ArchiveBoundAsset) asset).forArchive(fork), node.getPath());
+        } else if (asset != null) {
+            fork.add(asset, node.getPath());
+        } else {
+            fork.addAsDirectory(node.getPath());
+            for (final Node child : node.getChildren()) {
+                forkNode(child, fork);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see SpringBootContainer#setBuildListener(SpringBootBuildListener)
+     */
+    @Override
+    public T setBuildListener(final SpringBootBuildListener listener) {
+        this.buildListener = listener;
+        return covarientReturn();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see SpringBootContainer#addLayersIndex()
+     */
+    @Override
+    public T addLayersIndex() throws UnsupportedOperationException {
+        final Layers layers = Layers.of(getLibraryPath(), getClassesPath());
+        return add(ArchiveBoundAsset.of(this, layers::index), layers.getIndexPath());
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see SpringBootContainer#addClassPathIndex()
+     */
+    @Override
+    public T addClassPathIndex() throws UnsupportedOperationException {
+        return addClassPathIndex(Collections.<String, Long>emptyMap());
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see SpringBootContainer#addClassPathIndex(Map)
+     */
+    @Override
+    public T addClassPathIndex(final Map<String, Long> classLoads) throws IllegalArgumentException,
+            UnsupportedOperationException {
+        Validate.notNull(classLoads, "Class loads must be specified");
+        final ArchivePath indexPath = getIndexPath(ClassPathIndex.CLASSPATH_INDEX);
+        if (indexPath == null) {
+            throw new UnsupportedOperationException("Class path index is not supported when classes are stored at "
+                    + getClassesPath().get());
+        }
+        return add(ArchiveBoundAsset.of(this, new ClassPathIndex(getLibraryPath(), classLoads)::index), indexPath);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see SpringBootContainer#addPackageIndex()
+     */
+    @Override
+    public T addPackageIndex() throws UnsupportedOperationException {
+        final ArchivePath indexPath = getIndexPath(PackageIndex.PACKAGES_INDEX);
+        if (indexPath == null) {
+            throw new UnsupportedOperationException("Package index is not supported when classes are stored at "
+                    + getClassesPath().get());
+        }
+        return add(ArchiveBoundAsset.of(this, new PackageIndex(getLibraryPath(), getClassesPath())::index), indexPath);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see SpringBootContainer#addComponentIndex()
+     */
+    @Override
+    public T addComponentIndex() {
+        final ComponentIndex index = new ComponentIndex(getLibraryPath(), getClassesPath(),
+                Runtime.getRuntime().availableProcessors());
+        return add(ArchiveBoundAsset.of(this, index::index),
+                new BasicPath(getClassesPath(), ComponentIndex.COMPONENTS_INDEX));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see SpringBootContainer#addFactoriesIndex()
+     */
+    @Override
+    public T addFactoriesIndex() {
+        return add(ArchiveBoundAsset.of(this, new FactoriesIndex(getLibraryPath(), getClassesPath())::index),
+                new BasicPath(getClassesPath(), FactoriesIndex.FACTORIES_INDEX));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see SpringBootContainer#precompressWebResources()
+     */
+    @Override
+    public T precompressWebResources() {
+        return precompressWebResources(COMPRESSIBLE_WEB_RESOURCES);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see SpringBootContainer#precompressWebResources(String...)
+     */
+    @Override
+    public T precompressWebResources(final String... extensions) throws IllegalArgumentException {
+        Validate.notNullAndNoNullValues(extensions, "Extensions must be specified and can not contain null values");
+        final Set<String> suffixes = new HashSet<>();
+        for (final String extension : extensions) {
+            suffixes.add("." + extension.toLowerCase(Locale.ROOT));
+        }
+        final Node web = get(getWebPath());
+        if (web != null) {
+            precompress(web, suffixes);
+        }
+        return covarientReturn();
+    }
+
+    private void precompress(final Node directory, final Set<String> suffixes) {
+        // Siblings are added to the children being iterated
+        for (final Node node : new ArrayList<>(directory.getChildren())) {
+            if (node.getAsset() == null) {
+                precompress(node, suffixes);
+                continue;
+            }
+            final String path = node.getPath().get();
+            final String name = path.substring(path.lastIndexOf('/') + 1).toLowerCase(Locale.ROOT);
+            final int dot = name.lastIndexOf('.');
+            final ArchivePath compressed = ArchivePaths.create(path + GZIP_SUFFIX);
+            if (dot > 0 && suffixes.contains(name.substring(dot)) && !contains(compressed)) {
+                add(new GzipResourceAsset(this, node.getPath()), compressed);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see SpringBootContainer#fingerprintWebResources()
+     */
+    @Override
+    public T fingerprintWebResources() throws IllegalArgumentException {
+        return fingerprintWebResources(FINGERPRINTED_WEB_RESOURCES);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see SpringBootContainer#fingerprintWebResources(String...)
+     */
+    @Override
+    public T fingerprintWebResources(final String... extensions) throws IllegalArgumentException {
+        Validate.notNullAndNoNullValues(extensions, "Extensions must be specified and can not contain null values");
+        final OperationRecorder recorder = OperationRecorder.start(buildListener);
+        final Set<String> suffixes = new HashSet<>();
+        for (final String extension : extensions) {
+            suffixes.add("." + extension.toLowerCase(Locale.ROOT));
+        }
+        final ArchivePath manifestPath = new BasicPath(getClassesPath(), Fingerprints.FINGERPRINTS_MANIFEST);
+        final Node manifest = get(manifestPath);
+        final Fingerprints fingerprints = manifest == null || manifest.getAsset() == null ? Fingerprints.empty()
+                : Fingerprints.read(manifest.getAsset());
+        final Node web = get(getWebPath());
+        if (web != null) {
+            fingerprint(web, PathUtil.optionallyAppendSlash(getWebPath().get()), suffixes, fingerprints, recorder);
+        }
+        add(fingerprints.asAsset(), manifestPath);
+        recorder.finish(SpringBootOperation.FINGERPRINT, getName(), 0);
+        return covarientReturn();
+    }
+
+    private void fingerprint(final Node directory, final String webPrefix, final Set<String> suffixes,
+            final Fingerprints fingerprints, final OperationRecorder recorder) {
+        // Resources are moved within the children being iterated
+        for (final Node node : new ArrayList<>(directory.getChildren())) {
+            if (node.getAsset() == null) {
+                fingerprint(node, webPrefix, suffixes, fingerprints, recorder);
+                continue;
+            }
+            final String path = node.getPath().get();
+            final String name = path.substring(webPrefix.length());
+            final String lowerCaseName = name.toLowerCase(Locale.ROOT);
+            final int dot = lowerCaseName.lastIndexOf('.');
+            if (dot <= lowerCaseName.lastIndexOf('/') + 1 || !suffixes.contains(lowerCaseName.substring(dot))
+                    || fingerprints.isFingerprinted(name) || !contains(path)) {
+                continue;
+            }
+            final ArchivePath renamed = new BasicPath(webPrefix + fingerprints.fingerprint(name, node.getAsset(),
+                    recorder));
+            add(node.getAsset(), renamed);
+            delete(path);
+
+            final Node compressed = get(path + GZIP_SUFFIX);
+            if (compressed != null && compressed.getAsset() != null) {
+                // Compressed siblings follow the resource they are compressed from
+                final Asset asset = compressed.getAsset() instanceof GzipResourceAsset
+                        ? new GzipResourceAsset(this, renamed) : compressed.getAsset();
+                add(asset, renamed.get() + GZIP_SUFFIX);
+                delete(compressed.getPath());
+            }
+        }
+    }
+
+    /**
+     * Returns the path of an index file, stored next to the classes directory
+     *
+     * @param name the name of the index file
+     * @return the path of the index file, or null if classes are stored at the root of the archive
+     */
+    protected ArchivePath getIndexPath(String name) {
+        final ArchivePath indexes = getClassesPath().getParent();
+        return indexes == null ? null : new BasicPath(indexes, name);
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -205,7 +535,14 @@ public abstract class SpringBootContainerBase<T extends Archive<T>> extends WebC
         Validate.notNull(target, "Target should be specified");
 
         final ArchivePath location = new BasicPath(getBootInfPath(), target);
-        return add(resource, location);
+        if (buildListener == null) {
+            return add(resource, location);
+        }
+        final OperationRecorder recorder = OperationRecorder.start(buildListener);
+        add(resource, location);
+        recorder.addEntries(1, OperationRecorder.knownSize(resource));
+        recorder.finish(SpringBootOperation.ADD_BOOT_INF_RESOURCE, location.get(), 0);
+        return covarientReturn();
     }
 
     /**
@@ -285,7 +622,39 @@ public abstract class SpringBootContainerBase<T extends Archive<T>> extends WebC
     @Override
     public T addAsLauncherLibrary(final Archive<?> archive) throws IllegalArgumentException {
         Validate.notNull(archive, "Archive must be specified");
-        return merge(archive, path -> !path.get().startsWith("/META-INF"));
+        final OperationRecorder recorder = buildListener == null ? null : OperationRecorder.start(buildListener);
+        final Node root = archive.get(ArchivePaths.root());
+        if (root != null) {
+            for (final Node node : root.getChildren()) {
+                // META-INF of the launcher would clash with the one of the application, skip it whole
+                if (!node.getPath().get().startsWith(META_INF)) {
+                    mergeLauncherNode(node, recorder);
+                }
+            }
+        }
+        if (recorder != null) {
+            recorder.finish(SpringBootOperation.ADD_LAUNCHER_LIBRARY, archive.getName(), 0);
+        }
+        return covarientReturn();
+    }
+
+    /**
+     * Adds a launcher node, then its children, at the same path, sharing their paths and assets instead of filtering
+     * and rebuilding the path of every entry of the library.
+     */
+    private void mergeLauncherNode(final Node node, final OperationRecorder recorder) {
+        final Asset asset = node.getAsset();
+        if (asset != null) {
+            add(asset, node.getPath());
+        } else {
+            addAsDirectory(node.getPath());
+            for (final Node child : node.getChildren()) {
+                mergeLauncherNode(child, recorder);
+            }
+        }
+        if (recorder != null) {
+            recorder.addEntries(1, OperationRecorder.knownSize(asset));
+        }
     }
 
     /*
@@ -336,8 +705,139 @@ public abstract class SpringBootContainerBase<T extends Archive<T>> extends WebC
     @Override
     public T addAsLibrary(final Archive<?> archive) throws IllegalArgumentException {
         Validate.notNull(archive, "Archive must be specified");
-        // Libraries are JARs, so add as ZIP
-        return add(archive, getLibraryPath(), ZipStoredExporter.class);
+        // Libraries are JARs, serialized as STORED ZIP only when exported
+        return addLibrary(new LibraryArchiveAsset(archive), new BasicPath(getLibraryPath(), archive.getName()));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see org.jboss.shrinkwrap.api.container.LibraryContainer#addAsLibrary(Asset, ArchivePath)
+     */
+    @Override
+    public T addAsLibrary(final Asset resource, final ArchivePath target) throws IllegalArgumentException {
+        Validate.notNull(resource, "Resource must be specified");
+        Validate.notNull(target, "Target must be specified");
+        return addLibrary(resource, new BasicPath(getLibraryPath(), target));
+    }
+
+    private T addLibrary(final Asset library, final ArchivePath location) {
+        if (buildListener == null) {
+            return add(library, location);
+        }
+        final OperationRecorder recorder = OperationRecorder.start(buildListener);
+        add(library, location);
+        recorder.addEntries(1, OperationRecorder.knownSize(library));
+        recorder.finish(SpringBootOperation.ADD_LIBRARY, location.get(), 0);
+        return covarientReturn();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see SpringBootContainer#addAsLibrary(Path)
+     */
+    @Override
+    public T addAsLibrary(final Path library) throws IllegalArgumentException {
+        Validate.notNull(library, "Library must be specified");
+        if (!Files.isRegularFile(library)) {
+            throw new IllegalArgumentException("Library must be an existing file: " + library.toAbsolutePath());
+        }
+        // Jar bytes are copied as they are, FileAsset lets the exporter stream them from disk
+        return addAsLibrary(new FileAsset(library.toFile()), library.getFileName().toString());
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see SpringBootContainer#addAsLibraries(Path...)
+     */
+    @Override
+    public T addAsLibraries(final Path... libraries) throws IllegalArgumentException {
+        Validate.notNullAndNoNullValues(libraries, "Libraries must be specified and can not contain null values");
+        for (final Path library : libraries) {
+            addAsLibrary(library);
+        }
+        return covarientReturn();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see SpringBootContainer#addAsLibraryPaths(Collection)
+     */
+    @Override
+    public T addAsLibraryPaths(final Collection<? extends Path> libraries) throws IllegalArgumentException {
+        Validate.notNull(libraries, "Libraries must be specified");
+        return addAsLibraries(libraries.toArray(new Path[libraries.size()]));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see SpringBootContainer#checkLibraries(LibraryConflictPolicy)
+     */
+    @Override
+    public LibraryConflicts checkLibraries(final LibraryConflictPolicy policy) throws IllegalArgumentException,
+            IllegalStateException {
+        Validate.notNull(policy, "Policy must be specified");
+        final LibraryIndex index = LibraryIndex.of(getLibraryPath(), this);
+        final List<String> deleted = policy == LibraryConflictPolicy.KEEP_FIRST ? index.redundantLibraries()
+                : Collections.<String>emptyList();
+        final LibraryConflicts conflicts = new LibraryConflictsImpl(index.duplicateEntries(),
+                index.conflictingVersions(), deleted);
+        if (policy == LibraryConflictPolicy.FAIL && !conflicts.isEmpty()) {
+            throw new IllegalStateException("Libraries of " + getName() + " conflict: " + conflicts);
+        }
+        for (final String library : deleted) {
+            delete(ArchivePaths.create(library));
+        }
+        return conflicts;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see SpringBootContainer#pruneUnreachable(String...)
+     */
+    @Override
+    public T pruneUnreachable(final String... keep) throws IllegalArgumentException {
+        Validate.notNullAndNoNullValues(keep, "Kept classes must be specified and can not contain null values");
+        final SpringBootManifest manifest = SpringBootManifest.read(this);
+        final OperationRecorder recorder = OperationRecorder.start(buildListener);
+
+        final String startClass = internalName(manifest.getStartClass());
+        final Set<String> rootClasses = new HashSet<>();
+        final Set<String> rootPackages = new HashSet<>();
+        rootClasses.add(startClass);
+        if (manifest.getMainClass() != null) {
+            rootClasses.add(internalName(manifest.getMainClass()));
+        }
+        if (startClass.lastIndexOf('/') > 0) {
+            // Spring scans the package of the application class for components
+            rootPackages.add(startClass.substring(0, startClass.lastIndexOf('/')));
+        }
+        for (final String kept : keep) {
+            if (kept.endsWith(KEPT_PACKAGE_SUFFIX)) {
+                rootPackages.add(internalName(kept.substring(0, kept.length() - KEPT_PACKAGE_SUFFIX.length())));
+            } else {
+                rootClasses.add(internalName(kept));
+            }
+        }
+
+        final ClassReachability reachability = ClassReachability.scan(this, getLibraryPath(), getClassesPath(),
+                Runtime.getRuntime().availableProcessors(), recorder);
+        final List<ArchivePath> unreachable = reachability.unreachable(rootClasses, rootPackages);
+        for (final ArchivePath path : unreachable) {
+            delete(path);
+        }
+        recorder.addEntries(unreachable.size(), 0);
+        recorder.finish(SpringBootOperation.PRUNE, getName(), 0);
+        return covarientReturn();
+    }
+
+    private static String internalName(final String className) {
+        return className.trim().replace('.', '/');
     }
 
     /*
@@ -0,0 +1,170 @@
+package org.shrinkwrap.springboot.impl.exporter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import org.jboss.shrinkwrap.api.exporter.ArchiveExportException;
+
+/**
+ * Builds a class data sharing archive for an exported jar with the JVM running the export.
+ *
+ * The jar is first launched with {@code java -jar}, exactly as it is shipped, recording every class loaded during the
+ * training time; the JVM is stopped once the time is up if the application did not exit by itself. A static shared
+ * archive is then dumped from the recorded class list, with the jar as class path. Only classes of the JVM class
+ * loaders can be shared this way: the JDK, and the Spring Boot launcher on JVMs sharing application classes, but not
+ * the nested libraries, which are loaded by the launcher class loader.
+ */
+class ClassDataSharingTrainer {
+
+    private static final Logger log = Logger.getLogger(ClassDataSharingTrainer.class.getName());
+
+    private static final String CLASS_LIST_EXTENSION = ".classlist";
+    private static final String SHARED_ARCHIVE_EXTENSION = ".jsa";
+    private static final String SCRIPT_EXTENSION = ".sh";
+    private static final String LOG_EXTENSION = ".log";
+
+    private static final String UNLOCK_DIAGNOSTIC_OPTIONS = "-XX:+UnlockDiagnosticVMOptions";
+
+    private static final long DUMP_TIMEOUT_MINUTES = 10;
+    private static final long STOP_GRACE_SECONDS = 30;
+
+    private final Path java;
+    private final long stopGraceTime;
+
+    ClassDataSharingTrainer() {
+        this(TimeUnit.SECONDS.toMillis(STOP_GRACE_SECONDS));
+    }
+
+    /**
+     * Creates a trainer giving the training launch the specified time to stop once the training time is up.
+     *
+     * @param stopGraceTime
+     *            how long the training launch may take to stop, in milliseconds
+     */
+    ClassDataSharingTrainer(final long stopGraceTime) {
+        this.java = Paths.get(System.getProperty("java.home"), "bin", "java");
+        this.stopGraceTime = stopGraceTime;
+    }
+
+    /**
+     * Trains the jar and dumps its shared archive next to it, named after it.
+     *
+     * @param exported
+     *            exported jar
+     * @param trainingTime
+     *            how long the training launch may run, in milliseconds
+     * @param arguments
+     *            arguments of the application during the training launch
+     * @return the shared archive
+     */
+    Path train(final Path exported, final long trainingTime, final String... arguments)
+            throws IOException, InterruptedException {
+        final Path jar = exported.toAbsolutePath();
+        final Path classList = sibling(jar, CLASS_LIST_EXTENSION);
+        final Path sharedArchive = sibling(jar, SHARED_ARCHIVE_EXTENSION);
+        final Path output = Files.createTempFile(classList.getFileName().toString(), LOG_EXTENSION);
+        Files.deleteIfExists(classList);
+        Files.deleteIfExists(sharedArchive);
+
+        final List<String> training = new ArrayList<>(Arrays.asList(java.toString(), "-Xshare:off",
+                "-XX:DumpLoadedClassList=" + classList, "-jar", jar.toString()));
+        if (arguments != null) {
+            training.addAll(Arrays.asList(arguments));
+        }
+        run(output, trainingTime, true, training.toArray(new String[training.size()]));
+        if (!Files.isRegularFile(classList) || Files.size(classList) == 0) {
+            throw new ArchiveExportException("Training launch did not record any class, see " + output);
+        }
+        run(output, TimeUnit.MINUTES.toMillis(DUMP_TIMEOUT_MINUTES), false, java.toString(),
+                UNLOCK_DIAGNOSTIC_OPTIONS, "-Xshare:dump", "-XX:SharedClassListFile=" + classList,
+                "-XX:SharedArchiveFile=" + sharedArchive, "-cp", jar.toString());
+        if (!Files.isRegularFile(sharedArchive)) {
+            throw new ArchiveExportException("Shared archive was not dumped, see " + output);
+        }
+        Files.delete(output);
+        return sharedArchive;
+    }
+
+    /**
+     * Writes a shell script launching the jar with its shared archive, next to it and named after it.
+     *
+     * @param jar
+     *            exported jar
+     * @return the launch script
+     */
+    Path writeLaunchScript(final Path jar) throws IOException {
+        final Path script = sibling(jar, SCRIPT_EXTENSION);
+        final String content = "#!/bin/sh\n"
+                + "DIR=$(cd \"$(dirname \"$0\")\" && pwd)\n"
+                + "exec \"${JAVA_HOME:+$JAVA_HOME/bin/}java\" " + UNLOCK_DIAGNOSTIC_OPTIONS
+                + " -Xshare:auto -XX:SharedArchiveFile=\"$DIR/" + sibling(jar, SHARED_ARCHIVE_EXTENSION).getFileName()
+                + "\" $JAVA_OPTS -jar \"$DIR/" + jar.getFileName() + "\" \"$@\"\n";
+        Files.write(script, content.getBytes(StandardCharsets.UTF_8));
+        makeExecutable(script);
+        return script;
+    }
+
+    /**
+     * Makes a script executable by everyone, where the file system has POSIX permissions.
+     *
+     * @param script
+     *            script to make executable
+     */
+    static void makeExecutable(final Path script) throws IOException {
+        try {
+            Files.setPosixFilePermissions(script, EnumSet.of(PosixFilePermission.OWNER_READ,
+                    PosixFilePermission.OWNER_WRITE, PosixFilePermission.OWNER_EXECUTE,
+                    PosixFilePermission.GROUP_READ, PosixFilePermission.GROUP_EXECUTE,
+                    PosixFilePermission.OTHERS_READ, PosixFilePermission.OTHERS_EXECUTE));
+        } catch (final UnsupportedOperationException e) {
+            log.fine("Launch script cannot be made executable on this file system - " + script);
+        }
+    }
+
+    /**
+     * Runs a JVM until it exits, or until the timeout if it may be stopped then. A JVM still running after the stop
+     * grace time, such as one whose shutdown hooks block, is killed and fails the run, as its output cannot be trusted.
+     */
+    private void run(final Path output, final long timeout, final boolean stopOnTimeout,
+            final String... command) throws IOException, InterruptedException {
+        final List<String> arguments = Arrays.asList(command);
+        log.fine("Running " + arguments);
+        final Process process = new ProcessBuilder(arguments)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.appendTo(output.toFile()))
+                .start();
+        try {
+            if (!process.waitFor(timeout, TimeUnit.MILLISECONDS)) {
+                if (!stopOnTimeout) {
+                    throw new ArchiveExportException("JVM did not exit in time, see " + output);
+                }
+                process.destroy();
+                if (!process.waitFor(stopGraceTime, TimeUnit.MILLISECONDS)) {
+                    process.destroyForcibly().waitFor();
+                    throw new ArchiveExportException("JVM did not stop within " + stopGraceTime
+                            + " ms once training was over and was killed, see " + output);
+                }
+            } else if (process.exitValue() != 0) {
+                throw new ArchiveExportException("JVM exited with " + process.exitValue() + ", see " + output);
+            }
+        } finally {
+            process.destroyForcibly();
+        }
+    }
+
+    private static Path sibling(final Path jar, final String extension) {
+        final String name = jar.getFileName().toString();
+        final int dot = name.lastIndexOf('.');
+        return jar.resolveSibling((dot > 0 ? name.substring(0, dot) : name) + extension);
+    }
+}
@@ -0,0 +1,51 @@
+package org.shrinkwrap.springboot.impl.exporter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes prepared entries as plain files under a directory. Entries backed by a file, such as libraries added from
+ * disk, are copied as they are, and mapped entries written from the mapping.
+ */
+class DirectoryWriter implements EntryWriter {
+
+    private final Path directory;
+
+    DirectoryWriter(final Path directory) {
+        this.directory = directory.normalize();
+    }
+
+    @Override
+    public void write(final PreparedEntry entry) throws IOException {
+        final Path target = directory.resolve(entry.name).normalize();
+        if (!target.startsWith(directory)) {
+            throw new IOException("Entry would be extracted outside of " + directory + ": " + entry.name);
+        }
+        if (entry.isDirectory()) {
+            Files.createDirectories(target);
+            return;
+        }
+        Files.createDirectories(target.getParent());
+        if (entry.file != null) {
+            Files.copy(entry.file, target, StandardCopyOption.REPLACE_EXISTING);
+        } else if (entry.mapped != null) {
+            try (FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                final ByteBuffer data = entry.mapped.duplicate();
+                while (data.hasRemaining()) {
+                    out.write(data);
+                }
+            }
+        } else {
+            try (OutputStream out = Files.newOutputStream(target)) {
+                entry.buffer.writeTo(out);
+            }
+        }
+    }
+}
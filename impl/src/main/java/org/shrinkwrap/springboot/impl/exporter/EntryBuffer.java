@@ -0,0 +1,96 @@
+package org.shrinkwrap.springboot.impl.exporter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Reusable growable buffer holding the data of a single archive entry while it is being exported.
+ */
+class EntryBuffer extends ByteArrayOutputStream {
+
+    private static final int INITIAL_SIZE = 64 * 1024;
+
+    private EntryBuffer deflated;
+
+    EntryBuffer() {
+        super(INITIAL_SIZE);
+    }
+
+    /**
+     * Replaces the buffer content with everything readable from the stream. The stream is closed afterwards.
+     *
+     * @param in
+     *            stream to drain
+     */
+    void readFully(final InputStream in) throws IOException {
+        reset();
+        try {
+            int read;
+            do {
+                if (count == buf.length) {
+                    buf = Arrays.copyOf(buf, buf.length << 1);
+                }
+                read = in.read(buf, count, buf.length - count);
+                if (read > 0) {
+                    count += read;
+                }
+            } while (read != -1);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Returns the CRC-32 of the buffer content.
+     *
+     * @return the CRC-32 of the buffer content
+     */
+    long crc() {
+        final CRC32 crc = new CRC32();
+        crc.update(buf, 0, count);
+        return crc.getValue();
+    }
+
+    /**
+     * Compresses the buffer content, raw DEFLATE as stored in ZIP entries, into a second buffer owned by this one and
+     * reused by the next call.
+     *
+     * @param level
+     *            compression level, from 1 to 9
+     * @return the buffer holding the compressed content, valid until this method is called again
+     */
+    EntryBuffer deflate(final int level) {
+        if (deflated == null) {
+            deflated = new EntryBuffer();
+        }
+        deflated.reset();
+        final Deflater deflater = new Deflater(level, true);
+        try {
+            deflater.setInput(buf, 0, count);
+            deflater.finish();
+            while (!deflater.finished()) {
+                if (deflated.count == deflated.buf.length) {
+                    deflated.buf = Arrays.copyOf(deflated.buf, deflated.buf.length << 1);
+                }
+                deflated.count += deflater.deflate(deflated.buf, deflated.count, deflated.buf.length - deflated.count);
+            }
+        } finally {
+            deflater.end();
+        }
+        return deflated;
+    }
+
+    /**
+     * Returns a read-only view of the buffer content, valid until the buffer is modified.
+     *
+     * @return a view of the buffer content
+     */
+    ByteBuffer asByteBuffer() {
+        return ByteBuffer.wrap(buf, 0, count).asReadOnlyBuffer();
+    }
+}
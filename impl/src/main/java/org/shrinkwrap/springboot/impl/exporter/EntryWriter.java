@@ -0,0 +1,17 @@
+package org.shrinkwrap.springboot.impl.exporter;
+
+import java.io.IOException;
+
+/**
+ * Target of prepared entries, called in archive order from a single thread.
+ */
+interface EntryWriter {
+
+    /**
+     * Writes a prepared entry. Its buffer may be reused as soon as this method returns.
+     *
+     * @param entry
+     *            entry to write
+     */
+    void write(PreparedEntry entry) throws IOException;
+}
@@ -0,0 +1,291 @@
+package org.shrinkwrap.springboot.impl.exporter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.CRC32;
+
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.Node;
+import org.jboss.shrinkwrap.api.asset.ArchiveAsset;
+import org.jboss.shrinkwrap.api.asset.Asset;
+import org.jboss.shrinkwrap.api.asset.FileAsset;
+
+/**
+ * On-disk cache shared by repeated exports.
+ *
+ * Files are identified by their absolute path, size and modification time, and the cache remembers their CRC-32 and
+ * SHA-256 so unchanged files are not read again before being copied. Nested archives are identified by a digest of
+ * their content, and their serialized form is kept in the cache directory so an unchanged library is copied from there
+ * instead of being zipped again. The directory may be deleted at any time.
+ *
+ * The cache only keeps what the last export used: files and archives it did not look up are dropped from the index,
+ * and their serialized form deleted, when it is saved, so the directory does not grow as libraries change.
+ *
+ * Lookups are safe from concurrent export tasks; the index is only written back by {@link #save()}.
+ */
+class ExportCache {
+
+    private static final String INDEX_FILE = "index.properties";
+    private static final String JAR_EXTENSION = ".jar";
+    private static final String FILE_KEY_PREFIX = "file:";
+    private static final String ARCHIVE_KEY_PREFIX = "archive:";
+    private static final String SEPARATOR = ",";
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private final Path directory;
+    private final ConcurrentMap<String, String> index = new ConcurrentHashMap<>();
+    private final Set<String> used = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean modified;
+
+    private ExportCache(final Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Opens the cache stored in the specified directory, creating the directory if needed.
+     *
+     * @param directory
+     *            cache directory
+     * @return the cache
+     */
+    static ExportCache open(final Path directory) throws IOException {
+        Files.createDirectories(directory);
+        final ExportCache cache = new ExportCache(directory);
+        final Path indexFile = directory.resolve(INDEX_FILE);
+        if (Files.isRegularFile(indexFile)) {
+            final Properties properties = new Properties();
+            try (InputStream in = Files.newInputStream(indexFile)) {
+                properties.load(in);
+            }
+            for (final String key : properties.stringPropertyNames()) {
+                cache.index.put(key, properties.getProperty(key));
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * Returns the checksums of the file, reading it only if it changed since it was last seen.
+     *
+     * @param file
+     *            file to describe
+     * @return the checksums of the file
+     */
+    CachedEntry file(final Path file) throws IOException {
+        final Path absolute = file.toAbsolutePath();
+        final long size = Files.size(absolute);
+        final long lastModified = Files.getLastModifiedTime(absolute).toMillis();
+        final String key = FILE_KEY_PREFIX + absolute;
+        used.add(key);
+
+        final String[] cached = split(index.get(key), 4);
+        if (cached != null && Long.parseLong(cached[0]) == size && Long.parseLong(cached[1]) == lastModified) {
+            return new CachedEntry(Long.parseLong(cached[2]), size, cached[3]);
+        }
+
+        final CRC32 crc = new CRC32();
+        final MessageDigest digest = newDigest();
+        final byte[] chunk = new byte[CHUNK_SIZE];
+        long read = 0;
+        try (InputStream in = Files.newInputStream(absolute)) {
+            for (int count; (count = in.read(chunk)) != -1; ) {
+                crc.update(chunk, 0, count);
+                digest.update(chunk, 0, count);
+                read += count;
+            }
+        }
+        final CachedEntry entry = new CachedEntry(crc.getValue(), read, toHex(digest.digest()));
+        put(key, read, lastModified, entry.crc, entry.digest);
+        return entry;
+    }
+
+    /**
+     * Computes the content digest identifying a nested archive. Only file backed assets are identified without being
+     * read.
+     *
+     * @param archive
+     *            nested archive
+     * @return the digest of the archive content
+     */
+    String digest(final Archive<?> archive) throws IOException {
+        final MessageDigest digest = newDigest();
+        update(digest, archive, new byte[CHUNK_SIZE]);
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Returns the serialized archive stored under the specified digest, or null if there is none.
+     *
+     * @param digest
+     *            content digest of the archive
+     * @return the cached archive, or null
+     */
+    CachedEntry archive(final String digest) throws IOException {
+        used.add(ARCHIVE_KEY_PREFIX + digest);
+        final String[] cached = split(index.get(ARCHIVE_KEY_PREFIX + digest), 2);
+        if (cached == null) {
+            return null;
+        }
+        final Path file = directory.resolve(digest + JAR_EXTENSION);
+        final long size = Long.parseLong(cached[0]);
+        if (!Files.isRegularFile(file) || Files.size(file) != size) {
+            return null;
+        }
+        return new CachedEntry(Long.parseLong(cached[1]), size, digest, file);
+    }
+
+    /**
+     * Stores a serialized archive under the specified digest.
+     *
+     * @param digest
+     *            content digest of the archive
+     * @param crc
+     *            CRC-32 of the serialized archive
+     * @param content
+     *            serialized archive
+     */
+    void putArchive(final String digest, final long crc, final EntryBuffer content) throws IOException {
+        final Path file = directory.resolve(digest + JAR_EXTENSION);
+        final Path temporary = Files.createTempFile(directory, digest, ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temporary)) {
+                content.writeTo(out);
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        used.add(ARCHIVE_KEY_PREFIX + digest);
+        index.put(ARCHIVE_KEY_PREFIX + digest, content.size() + SEPARATOR + crc);
+        modified = true;
+    }
+
+    /**
+     * Drops the entries this export did not use, deleting the archives they stored, then writes the index back to the
+     * cache directory if anything changed.
+     */
+    void save() throws IOException {
+        for (final Iterator<String> keys = index.keySet().iterator(); keys.hasNext(); ) {
+            final String key = keys.next();
+            if (!used.contains(key)) {
+                keys.remove();
+                modified = true;
+                if (key.startsWith(ARCHIVE_KEY_PREFIX)) {
+                    Files.deleteIfExists(directory.resolve(key.substring(ARCHIVE_KEY_PREFIX.length()) + JAR_EXTENSION));
+                }
+            }
+        }
+        if (!modified) {
+            return;
+        }
+        final Properties properties = new Properties();
+        for (final Map.Entry<String, String> entry : index.entrySet()) {
+            properties.setProperty(entry.getKey(), entry.getValue());
+        }
+        final Path temporary = Files.createTempFile(directory, INDEX_FILE, ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temporary)) {
+                properties.store(out, "Spring Boot export cache");
+            }
+            Files.move(temporary, directory.resolve(INDEX_FILE), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private void put(final String key, final long size, final long lastModified, final long crc, final String digest) {
+        index.put(key, size + SEPARATOR + lastModified + SEPARATOR + crc + SEPARATOR + digest);
+        modified = true;
+    }
+
+    private static void update(final MessageDigest digest, final Archive<?> archive, final byte[] chunk)
+            throws IOException {
+        for (final Node node : archive.getContent().values()) {
+            digest.update(node.getPath().get().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            final Asset asset = node.getAsset();
+            if (asset == null) {
+                digest.update((byte) 'd');
+            } else if (asset instanceof ArchiveAsset) {
+                digest.update((byte) 'a');
+                update(digest, ((ArchiveAsset) asset).getArchive(), chunk);
+            } else if (asset instanceof FileAsset) {
+                final Path file = ((FileAsset) asset).getSource().toPath();
+                digest.update((byte) 'f');
+                digest.update((file.toAbsolutePath() + SEPARATOR + Files.size(file) + SEPARATOR
+                        + Files.getLastModifiedTime(file).toMillis()).getBytes(StandardCharsets.UTF_8));
+            } else {
+                digest.update((byte) 'c');
+                try (InputStream in = asset.openStream()) {
+                    for (int count; (count = in.read(chunk)) != -1; ) {
+                        digest.update(chunk, 0, count);
+                    }
+                }
+            }
+            digest.update((byte) 0);
+        }
+    }
+
+    private static String[] split(final String value, final int fields) {
+        if (value == null) {
+            return null;
+        }
+        final String[] split = value.split(SEPARATOR);
+        return split.length == fields ? split : null;
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(DIGEST_ALGORITHM + " is not available", e);
+        }
+    }
+
+    private static String toHex(final byte[] bytes) {
+        final StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (final byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Checksums of a cached file or archive.
+     */
+    static final class CachedEntry {
+
+        final long crc;
+        final long size;
+        final String digest;
+        final Path file;
+
+        CachedEntry(final long crc, final long size, final String digest) {
+            this(crc, size, digest, null);
+        }
+
+        CachedEntry(final long crc, final long size, final String digest, final Path file) {
+            this.crc = crc;
+            this.size = size;
+            this.digest = digest;
+            this.file = file;
+        }
+    }
+}
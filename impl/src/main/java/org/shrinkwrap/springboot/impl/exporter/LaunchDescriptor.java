@@ -0,0 +1,139 @@
+package org.shrinkwrap.springboot.impl.exporter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.Node;
+import org.jboss.shrinkwrap.impl.base.path.PathUtil;
+import org.shrinkwrap.springboot.impl.SpringBootManifest;
+
+/**
+ * Java launcher argument file and shell script starting the application of an exploded archive directly, without the
+ * Spring Boot launcher and its jar-in-jar class loading: the classes directory and every library, in archive order,
+ * are put on the class path and the start class is run. Argument files need Java 9 or later, while the script also
+ * runs Java 8.
+ *
+ * Paths are relative to the exploded directory, so it can be moved or copied into an image as a whole.
+ */
+class LaunchDescriptor {
+
+    /**
+     * Name of the argument file, stored at the root of the exploded directory.
+     */
+    static final String FILE_NAME = "launch.args";
+
+    /**
+     * Name of the shell script, stored at the root of the exploded directory.
+     */
+    static final String SCRIPT_NAME = "launch.sh";
+
+    private static final String CURRENT_DIRECTORY = ".";
+
+    private final List<String> classPath;
+    private final String startClass;
+
+    private LaunchDescriptor(final List<String> classPath, final String startClass) {
+        this.classPath = classPath;
+        this.startClass = startClass;
+    }
+
+    /**
+     * Creates the descriptor of an archive using the paths declared in its Spring Boot manifest.
+     *
+     * @param archive
+     *            archive with a Spring Boot manifest
+     * @return the descriptor
+     * @throws IllegalArgumentException
+     *             if the archive has no Spring Boot manifest
+     */
+    static LaunchDescriptor of(final Archive<?> archive) {
+        final SpringBootManifest manifest = SpringBootManifest.read(archive);
+        final String classes = PathUtil.optionallyRemovePrecedingSlash(manifest.getClassesPath().get());
+        final String libraries = PathUtil.optionallyAppendSlash(
+                PathUtil.optionallyRemovePrecedingSlash(manifest.getLibrariesPath().get()));
+
+        final List<String> classPath = new ArrayList<>();
+        classPath.add(classes.isEmpty() ? CURRENT_DIRECTORY : classes);
+        for (final Node node : archive.getContent().values()) {
+            final String name = PathUtil.optionallyRemovePrecedingSlash(node.getPath().get());
+            if (node.getAsset() != null && name.startsWith(libraries)) {
+                classPath.add(name);
+            }
+        }
+        return new LaunchDescriptor(classPath, manifest.getStartClass());
+    }
+
+    /**
+     * Writes the argument file and the shell script into the exploded directory.
+     *
+     * @param directory
+     *            exploded directory
+     */
+    void writeTo(final Path directory) throws IOException {
+        final StringBuilder path = new StringBuilder();
+        for (final String entry : classPath) {
+            if (path.length() > 0) {
+                path.append(File.pathSeparatorChar);
+            }
+            path.append(entry.replace('/', File.separatorChar));
+        }
+        final String arguments = "-cp\n" + quote(path.toString()) + "\n" + startClass + "\n";
+        Files.write(directory.resolve(FILE_NAME), arguments.getBytes(StandardCharsets.UTF_8));
+        writeScript(directory.resolve(SCRIPT_NAME));
+    }
+
+    /**
+     * Writes a POSIX shell script resolving the class path against its own directory, so it can be run from anywhere.
+     */
+    private void writeScript(final Path script) throws IOException {
+        final StringBuilder path = new StringBuilder();
+        for (final String entry : classPath) {
+            if (path.length() > 0) {
+                path.append(':');
+            }
+            path.append("$DIR");
+            if (!CURRENT_DIRECTORY.equals(entry)) {
+                path.append('/').append(shellEscape(entry));
+            }
+        }
+        final String content = "#!/bin/sh\n"
+                + "DIR=$(cd \"$(dirname \"$0\")\" && pwd)\n"
+                + "exec \"${JAVA_HOME:+$JAVA_HOME/bin/}java\" $JAVA_OPTS -cp \"" + path + "\" \""
+                + shellEscape(startClass) + "\" \"$@\"\n";
+        Files.write(script, content.getBytes(StandardCharsets.UTF_8));
+        ClassDataSharingTrainer.makeExecutable(script);
+    }
+
+    /**
+     * Escapes the characters keeping their special meaning within double quotes.
+     */
+    private static String shellEscape(final String argument) {
+        final StringBuilder escaped = new StringBuilder(argument.length());
+        for (int i = 0; i < argument.length(); i++) {
+            final char c = argument.charAt(i);
+            if (c == '"' || c == '$' || c == '`' || c == '\\') {
+                escaped.append('\\');
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+
+    private static String quote(final String argument) {
+        boolean plain = true;
+        for (int i = 0; i < argument.length() && plain; i++) {
+            final char c = argument.charAt(i);
+            plain = !Character.isWhitespace(c) && c != '"' && c != '\'' && c != '\\' && c != '#';
+        }
+        if (plain) {
+            return argument;
+        }
+        return '"' + argument.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+    }
+}
@@ -0,0 +1,118 @@
+package org.shrinkwrap.springboot.impl.exporter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.shrinkwrap.springboot.api.layer.SpringBootLayer;
+import org.shrinkwrap.springboot.impl.layer.Layers;
+
+/**
+ * Writes prepared entries into one directory, or one TAR file, per {@link SpringBootLayer}.
+ *
+ * Every layer is created, even when empty, so image builds can copy all of them unconditionally.
+ */
+class LayerWriter implements EntryWriter, Closeable {
+
+    private static final String TAR_EXTENSION = ".tar";
+
+    private final Layers layers;
+    private final Map<SpringBootLayer, EntryWriter> writers = new EnumMap<>(SpringBootLayer.class);
+    private final Map<SpringBootLayer, TarChannelWriter> tars = new EnumMap<>(SpringBootLayer.class);
+    private final Map<SpringBootLayer, FileChannel> tarFiles = new EnumMap<>(SpringBootLayer.class);
+
+    /**
+     * Creates a writer extracting each layer into a sub-directory named after it.
+     *
+     * @param directory
+     *            parent of the layer directories
+     * @param layers
+     *            layers of the archive
+     * @return the writer
+     */
+    static LayerWriter directories(final Path directory, final Layers layers) throws IOException {
+        final LayerWriter writer = new LayerWriter(layers);
+        for (final SpringBootLayer layer : SpringBootLayer.values()) {
+            final Path layerDirectory = Files.createDirectories(directory.resolve(layer.getLayerName()));
+            writer.writers.put(layer, new DirectoryWriter(layerDirectory));
+        }
+        return writer;
+    }
+
+    /**
+     * Creates a writer storing each layer into a TAR file named after it.
+     *
+     * @param directory
+     *            directory of the TAR files
+     * @param layers
+     *            layers of the archive
+     * @return the writer
+     */
+    static LayerWriter tars(final Path directory, final Layers layers) throws IOException {
+        final LayerWriter writer = new LayerWriter(layers);
+        Files.createDirectories(directory);
+        try {
+            for (final SpringBootLayer layer : SpringBootLayer.values()) {
+                final FileChannel file = FileChannel.open(directory.resolve(layer.getLayerName() + TAR_EXTENSION),
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                writer.tarFiles.put(layer, file);
+                final TarChannelWriter tar = new TarChannelWriter(file);
+                writer.tars.put(layer, tar);
+                writer.writers.put(layer, tar);
+            }
+        } catch (final IOException e) {
+            writer.close();
+            throw e;
+        }
+        return writer;
+    }
+
+    private LayerWriter(final Layers layers) {
+        this.layers = layers;
+    }
+
+    @Override
+    public void write(final PreparedEntry entry) throws IOException {
+        writers.get(layers.getLayer(entry.name)).write(entry);
+    }
+
+    /**
+     * Ends the TAR files, if any.
+     */
+    void finish() throws IOException {
+        for (final TarChannelWriter tar : tars.values()) {
+            tar.finish();
+        }
+    }
+
+    /**
+     * Returns the total size of the TAR files, 0 when writing directories.
+     */
+    long getTarSize() throws IOException {
+        long size = 0;
+        for (final FileChannel file : tarFiles.values()) {
+            size += file.size();
+        }
+        return size;
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (final FileChannel file : tarFiles.values()) {
+            try {
+                file.close();
+            } catch (final IOException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
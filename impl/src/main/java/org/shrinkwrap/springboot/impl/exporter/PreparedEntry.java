@@ -0,0 +1,64 @@
+package org.shrinkwrap.springboot.impl.exporter;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+import org.jboss.shrinkwrap.api.Node;
+
+/**
+ * Entry read and checksummed ahead of the writer. Its data is either held in a buffer, left in a file, mapped from an
+ * imported archive, or absent for a directory. Buffered data may also have been compressed, for writers storing
+ * entries DEFLATED, and mapped data may already be compressed.
+ */
+final class PreparedEntry {
+
+    final Node node;
+    final String name;
+    final long crc;
+    final long size;
+    final EntryBuffer buffer;
+    final Path file;
+    final EntryBuffer deflated;
+    final ByteBuffer mapped;
+    final boolean mappedDeflated;
+
+    PreparedEntry(final Node node, final String name, final long crc, final long size, final EntryBuffer buffer,
+            final Path file) {
+        this(node, name, crc, size, buffer, file, null);
+    }
+
+    PreparedEntry(final Node node, final String name, final long crc, final long size, final EntryBuffer buffer,
+            final Path file, final EntryBuffer deflated) {
+        this.node = node;
+        this.name = name;
+        this.crc = crc;
+        this.size = size;
+        this.buffer = buffer;
+        this.file = file;
+        this.deflated = deflated;
+        this.mapped = null;
+        this.mappedDeflated = false;
+    }
+
+    PreparedEntry(final Node node, final String name, final long crc, final long size, final ByteBuffer mapped,
+            final boolean mappedDeflated) {
+        this.node = node;
+        this.name = name;
+        this.crc = crc;
+        this.size = size;
+        this.buffer = null;
+        this.file = null;
+        this.deflated = null;
+        this.mapped = mapped;
+        this.mappedDeflated = mappedDeflated;
+    }
+
+    /**
+     * Returns whether the entry is a directory.
+     *
+     * @return whether the entry is a directory
+     */
+    boolean isDirectory() {
+        return buffer == null && file == null && mapped == null;
+    }
+}
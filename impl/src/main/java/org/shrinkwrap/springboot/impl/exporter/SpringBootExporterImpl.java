@@ -0,0 +1,629 @@
+package org.shrinkwrap.springboot.impl.exporter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.Node;
+import org.jboss.shrinkwrap.api.asset.ArchiveAsset;
+import org.jboss.shrinkwrap.api.asset.Asset;
+import org.jboss.shrinkwrap.api.asset.FileAsset;
+import org.jboss.shrinkwrap.api.exporter.ArchiveExportException;
+import org.jboss.shrinkwrap.api.exporter.FileExistsException;
+import org.jboss.shrinkwrap.impl.base.AssignableBase;
+import org.jboss.shrinkwrap.impl.base.Validate;
+import org.jboss.shrinkwrap.impl.base.path.PathUtil;
+import org.shrinkwrap.springboot.api.exporter.SpringBootExporter;
+import org.shrinkwrap.springboot.api.metrics.SpringBootBuildListener;
+import org.shrinkwrap.springboot.api.metrics.SpringBootOperation;
+import org.shrinkwrap.springboot.api.metrics.SpringBootOperationMetrics;
+import org.shrinkwrap.springboot.impl.asset.LibraryArchiveAsset;
+import org.shrinkwrap.springboot.impl.asset.MappedEntryAsset;
+import org.shrinkwrap.springboot.impl.layer.Layers;
+import org.shrinkwrap.springboot.impl.metrics.OperationRecorder;
+
+/**
+ * Implementation of the {@link SpringBootExporter} interface.
+ *
+ * Every entry is read once into a reusable buffer, checksummed there and written out, so the archive is never held
+ * in memory as a whole. Nested {@link ArchiveAsset} jars are serialized recursively with the same writer instead of
+ * going through {@link org.jboss.shrinkwrap.api.exporter.ZipStoredExporter}, which reads every asset twice. File
+ * backed assets, such as libraries added from disk, bypass the buffer and are copied from the file as they are, and so
+ * do {@link MappedEntryAsset} entries of an imported archive, written from their mapping.
+ *
+ * Top level entries, nested libraries included, are prepared on a {@link ForkJoinPool} a bounded window ahead of the
+ * writer, which still appends them in archive order from the calling thread. With a compression level, top level
+ * entries other than jars are also deflated there.
+ *
+ * Every export is measured by an {@link OperationRecorder}; allocations of the pool threads are added to it per
+ * prepared entry.
+ */
+public class SpringBootExporterImpl extends AssignableBase<Archive<?>> implements SpringBootExporter {
+
+    private static final Logger log = Logger.getLogger(SpringBootExporterImpl.class.getName());
+
+    private static final String JAR_EXTENSION = ".jar";
+
+    private static final String GZIP_EXTENSION = ".gz";
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    /**
+     * An updated archive is compacted once more than a quarter of it is no longer referenced.
+     */
+    private static final int COMPACTION_THRESHOLD = 4;
+
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    private int compressionLevel = Deflater.NO_COMPRESSION;
+
+    private Path cacheDirectory;
+
+    private SpringBootBuildListener listener;
+
+    public SpringBootExporterImpl(final Archive<?> archive) {
+        super(archive);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see SpringBootExporter#withParallelism(int)
+     */
+    @Override
+    public SpringBootExporter withParallelism(final int parallelism) throws IllegalArgumentException {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1: " + parallelism);
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see SpringBootExporter#withCompressionLevel(int)
+     */
+    @Override
+    public SpringBootExporter withCompressionLevel(final int level) throws IllegalArgumentException {
+        if (level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("Compression level must be between " + Deflater.NO_COMPRESSION
+                    + " and " + Deflater.BEST_COMPRESSION + ": " + level);
+        }
+        this.compressionLevel = level;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see SpringBootExporter#withCache(Path)
+     */
+    @Override
+    public SpringBootExporter withCache(final Path directory) throws IllegalArgumentException {
+        Validate.notNull(directory, "Cache directory must be specified");
+        if (Files.exists(directory) && !Files.isDirectory(directory)) {
+            throw new IllegalArgumentException("Cache location is not a directory: " + directory.toAbsolutePath());
+        }
+        this.cacheDirectory = directory;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see SpringBootExporter#withListener(SpringBootBuildListener)
+     */
+    @Override
+    public SpringBootExporter withListener(final SpringBootBuildListener listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see SpringBootExporter#exportTo(WritableByteChannel)
+     */
+    @Override
+    public SpringBootOperationMetrics exportTo(final WritableByteChannel target) throws ArchiveExportException,
+            IllegalArgumentException {
+        Validate.notNull(target, "Target must be specified");
+        return exportToChannel(target, target.toString());
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see SpringBootExporter#exportTo(OutputStream)
+     */
+    @Override
+    public SpringBootOperationMetrics exportTo(final OutputStream target) throws ArchiveExportException,
+            IllegalArgumentException {
+        Validate.notNull(target, "Target must be specified");
+        return exportToChannel(Channels.newChannel(target), target.toString());
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see SpringBootExporter#exportTo(Path)
+     */
+    @Override
+    public SpringBootOperationMetrics exportTo(final Path target) throws ArchiveExportException,
+            FileExistsException {
+        return exportTo(target, false);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see SpringBootExporter#exportTo(Path, boolean)
+     */
+    @Override
+    public SpringBootOperationMetrics exportTo(final Path target, final boolean overwrite)
+            throws ArchiveExportException, FileExistsException {
+        Validate.notNull(target, "Target file must be specified");
+        if (Files.isDirectory(target)) {
+            throw new IllegalArgumentException("Cannot export a stream file to existing directory: "
+                    + target.toAbsolutePath());
+        }
+        if (Files.exists(target) && !overwrite) {
+            throw new FileExistsException("Target exists and we haven't been flagged to overwrite it: "
+                    + target.toAbsolutePath());
+        }
+        checkNotImportedFrom(target);
+
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            return exportToChannel(channel, target.toString());
+        } catch (final IOException e) {
+            throw new ArchiveExportException("File could not be written: " + target, e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see SpringBootExporter#exportTo(File)
+     */
+    @Override
+    public SpringBootOperationMetrics exportTo(final File target) throws ArchiveExportException,
+            FileExistsException {
+        Validate.notNull(target, "Target file must be specified");
+        return exportTo(target.toPath(), false);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see SpringBootExporter#exportTo(File, boolean)
+     */
+    @Override
+    public SpringBootOperationMetrics exportTo(final File target, final boolean overwrite)
+            throws ArchiveExportException, FileExistsException {
+        Validate.notNull(target, "Target file must be specified");
+        return exportTo(target.toPath(), overwrite);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see SpringBootExporter#updateTo(Path)
+     */
+    @Override
+    public SpringBootOperationMetrics updateTo(final Path target) throws ArchiveExportException {
+        Validate.notNull(target, "Target file must be specified");
+        if (Files.isDirectory(target)) {
+            throw new IllegalArgumentException("Cannot export a stream file to existing directory: "
+                    + target.toAbsolutePath());
+        }
+        if (!Files.exists(target)) {
+            return exportTo(target);
+        }
+        checkNotImportedFrom(target);
+
+        final OperationRecorder recorder = OperationRecorder.start(listener);
+        try (FileChannel file = FileChannel.open(target, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            final ZipCentralDirectory previous = ZipCentralDirectory.read(file);
+            final long written;
+            if (previous == null) {
+                throw new ArchiveExportException("Target is not a readable archive and was left as it is: "
+                        + target.toAbsolutePath());
+            }
+            if (previous.getDeadBytes() > previous.getOffset() / COMPACTION_THRESHOLD) {
+                written = compact(target, file, previous, recorder);
+            } else {
+                final long size = file.size();
+                try {
+                    written = export(ZipChannelWriter.inPlace(file, previous), recorder) - size;
+                } catch (final IOException | RuntimeException e) {
+                    // Drops what was appended, so the previous central directory ends the file again
+                    file.truncate(size);
+                    throw e;
+                }
+            }
+            return recorder.finish(SpringBootOperation.EXPORT, target.toString(), written);
+        } catch (final IOException e) {
+            throw new ArchiveExportException("File could not be updated: " + target, e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see SpringBootExporter#exportWithClassDataSharingTo(Path, long, TimeUnit, boolean, String...)
+     */
+    @Override
+    public Path exportWithClassDataSharingTo(final Path target, final long trainingTime, final TimeUnit unit,
+            final boolean launchScript, final String... trainingArguments) throws ArchiveExportException {
+        Validate.notNull(unit, "Training time unit must be specified");
+        if (trainingTime <= 0) {
+            throw new IllegalArgumentException("Training time must be positive: " + trainingTime);
+        }
+        exportTo(target, true);
+
+        final ClassDataSharingTrainer trainer = new ClassDataSharingTrainer();
+        try {
+            final Path sharedArchive = trainer.train(target, unit.toMillis(trainingTime), trainingArguments);
+            if (launchScript) {
+                trainer.writeLaunchScript(target);
+            }
+            return sharedArchive;
+        } catch (final IOException e) {
+            throw new ArchiveExportException("Shared archive could not be created for " + target, e);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ArchiveExportException("Interrupted while training " + target, e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see SpringBootExporter#exportLayersTo(Path)
+     */
+    @Override
+    public SpringBootOperationMetrics exportLayersTo(final Path directory) throws ArchiveExportException {
+        return exportLayers(directory, false);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see SpringBootExporter#exportLayerTarsTo(Path)
+     */
+    @Override
+    public SpringBootOperationMetrics exportLayerTarsTo(final Path directory) throws ArchiveExportException {
+        return exportLayers(directory, true);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see SpringBootExporter#exportExplodedTo(Path)
+     */
+    @Override
+    public SpringBootOperationMetrics exportExplodedTo(final Path directory) throws ArchiveExportException {
+        Validate.notNull(directory, "Target directory must be specified");
+        if (Files.exists(directory) && !Files.isDirectory(directory)) {
+            throw new IllegalArgumentException("Target is not a directory: " + directory.toAbsolutePath());
+        }
+        final LaunchDescriptor launchDescriptor = LaunchDescriptor.of(getArchive());
+
+        final OperationRecorder recorder = OperationRecorder.start(listener);
+        try {
+            writeEntries(new DirectoryWriter(Files.createDirectories(directory)), recorder, Deflater.NO_COMPRESSION);
+            launchDescriptor.writeTo(directory);
+            return recorder.finish(SpringBootOperation.EXPORT, directory.toString(), recorder.getBytesIn());
+        } catch (final IOException e) {
+            throw new ArchiveExportException("Archive could not be exploded to " + directory, e);
+        }
+    }
+
+    private SpringBootOperationMetrics exportLayers(final Path directory, final boolean tar) {
+        Validate.notNull(directory, "Target directory must be specified");
+        if (Files.exists(directory) && !Files.isDirectory(directory)) {
+            throw new IllegalArgumentException("Target is not a directory: " + directory.toAbsolutePath());
+        }
+        final Layers layers = Layers.fromManifest(getArchive());
+
+        final OperationRecorder recorder = OperationRecorder.start(listener);
+        try (LayerWriter writer = tar ? LayerWriter.tars(directory, layers)
+                : LayerWriter.directories(directory, layers)) {
+            writeEntries(writer, recorder, Deflater.NO_COMPRESSION);
+            writer.finish();
+            return recorder.finish(SpringBootOperation.EXPORT, directory.toString(),
+                    tar ? writer.getTarSize() : recorder.getBytesIn());
+        } catch (final IOException e) {
+            throw new ArchiveExportException("Layers could not be written to " + directory, e);
+        }
+    }
+
+    private SpringBootOperationMetrics exportToChannel(final WritableByteChannel target, final String targetName) {
+        if (!target.isOpen()) {
+            throw new IllegalArgumentException("Target channel is closed: " + target);
+        }
+        if (log.isLoggable(Level.FINE)) {
+            log.fine("Exporting archive - " + getArchive().getName());
+        }
+
+        final OperationRecorder recorder = OperationRecorder.start(listener);
+        try {
+            final long written = export(new ZipChannelWriter(target), recorder);
+            return recorder.finish(SpringBootOperation.EXPORT, targetName, written);
+        } catch (final IOException e) {
+            throw new ArchiveExportException("Error encountered in exporting archive to " + targetName, e);
+        }
+    }
+
+    /**
+     * Rewrites the target into a sibling file, copying the data of unchanged entries from the previous archive, then
+     * replaces the target with it.
+     *
+     * @return the size of the rewritten archive
+     */
+    private long compact(final Path target, final FileChannel file, final ZipCentralDirectory previous,
+            final OperationRecorder recorder) throws IOException {
+        final Path absolute = target.toAbsolutePath();
+        final Path compacted = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+        try {
+            final long written;
+            try (FileChannel channel = FileChannel.open(compacted, StandardOpenOption.WRITE)) {
+                written = export(ZipChannelWriter.compacting(channel, previous, file), recorder);
+            }
+            file.close();
+            Files.move(compacted, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return written;
+        } finally {
+            Files.deleteIfExists(compacted);
+        }
+    }
+
+    /**
+     * Writes every entry and the central directory.
+     *
+     * @return the position of the writer once finished
+     */
+    private long export(final ZipChannelWriter writer, final OperationRecorder recorder) throws IOException {
+        writeEntries(writer, recorder, compressionLevel);
+        writer.finish();
+        return writer.getPosition();
+    }
+
+    private void writeEntries(final EntryWriter writer, final OperationRecorder recorder, final int level)
+            throws IOException {
+        final ExportCache cache = cacheDirectory == null ? null : ExportCache.open(cacheDirectory);
+        final EntryWriter counting = entry -> {
+            writer.write(entry);
+            recorder.addEntries(1, entry.size);
+        };
+        if (parallelism == 1) {
+            writeArchive(getArchive(), counting, new ArrayList<EntryBuffer>(), 0, cache, level);
+        } else {
+            final ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                writeArchive(getArchive(), counting, pool, cache, level, recorder);
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+        if (cache != null) {
+            cache.save();
+        }
+    }
+
+    /**
+     * Writes every node of the top level archive. Entries are prepared on the pool, at most a window of them ahead of
+     * the writer, and each prepared entry holds on to its own buffers until it has been written.
+     */
+    private static void writeArchive(final Archive<?> archive, final EntryWriter writer, final ForkJoinPool pool,
+            final ExportCache cache, final int level, final OperationRecorder recorder) {
+        final int window = pool.getParallelism() * 2;
+        final Deque<ForkJoinTask<PreparedEntry>> pending = new ArrayDeque<>(window);
+        final Deque<List<EntryBuffer>> free = new ArrayDeque<>(window);
+        final Deque<List<EntryBuffer>> used = new ArrayDeque<>(window);
+        final Iterator<Node> nodes = archive.getContent().values().iterator();
+
+        try {
+            while (true) {
+                while (pending.size() < window && nodes.hasNext()) {
+                    final Node node = nodes.next();
+                    final List<EntryBuffer> buffers = free.isEmpty() ? new ArrayList<EntryBuffer>() : free.pop();
+                    pending.add(pool.submit(new Callable<PreparedEntry>() {
+                        @Override
+                        public PreparedEntry call() throws IOException {
+                            final long allocated = OperationRecorder.threadAllocatedBytes();
+                            try {
+                                return prepare(node, buffers, 0, cache, level);
+                            } finally {
+                                recorder.addAllocatedBytes(OperationRecorder.threadAllocatedBytes() - allocated);
+                            }
+                        }
+                    }));
+                    used.add(buffers);
+                }
+                if (pending.isEmpty()) {
+                    return;
+                }
+                write(join(pending.poll()), writer);
+                free.push(used.poll());
+            }
+        } finally {
+            for (final ForkJoinTask<PreparedEntry> task : pending) {
+                task.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Writes every node of an archive on the current thread. Each nesting level owns one buffer, so a nested jar is
+     * serialized into the buffer of its own level while its entries go through the buffer of the level below.
+     */
+    private static void writeArchive(final Archive<?> archive, final EntryWriter writer,
+            final List<EntryBuffer> buffers, final int depth, final ExportCache cache, final int level) {
+        for (final Node node : archive.getContent().values()) {
+            write(prepare(node, buffers, depth, cache, level), writer);
+        }
+    }
+
+    /**
+     * Reads the node into the buffer of its nesting level and computes its checksum, without writing anything yet.
+     * With a cache, unchanged files are not read and unchanged libraries are taken from the cache directory. With a
+     * compression level, entries other than nested jars are also compressed, unless that does not make them smaller;
+     * the entries of nested jars are always left STORED. Imported entries that are already stored the way they would
+     * be written are neither read nor compressed again.
+     */
+    private static PreparedEntry prepare(final Node node, final List<EntryBuffer> buffers, final int depth,
+            final ExportCache cache, final int level) {
+        final String name = PathUtil.optionallyRemovePrecedingSlash(node.getPath().get());
+        final Asset asset = node.getAsset();
+        try {
+            if (asset == null) {
+                return new PreparedEntry(node, PathUtil.optionallyAppendSlash(name), 0, 0, null, null);
+            }
+            // Precompressed resources would not get any smaller
+            final boolean compressed = level != Deflater.NO_COMPRESSION && !name.endsWith(JAR_EXTENSION)
+                    && !name.endsWith(GZIP_EXTENSION);
+            if (asset instanceof MappedEntryAsset && ((MappedEntryAsset) asset).isDeflated() == compressed) {
+                // Imported entries already know their checksum, and are written from the mapping as they are
+                final MappedEntryAsset mapped = (MappedEntryAsset) asset;
+                return new PreparedEntry(node, name, mapped.getCrc(), mapped.getSize(), mapped.getData(), compressed);
+            }
+            if (asset instanceof FileAsset && !compressed) {
+                final Path file = ((FileAsset) asset).getSource().toPath();
+                if (cache != null) {
+                    final ExportCache.CachedEntry cached = cache.file(file);
+                    return new PreparedEntry(node, name, cached.crc, cached.size, null, file);
+                }
+                return new PreparedEntry(node, name, crc(file), Files.size(file), null, file);
+            }
+            if (buffers.size() == depth) {
+                buffers.add(new EntryBuffer());
+            }
+            final EntryBuffer buffer = buffers.get(depth);
+            if (isNestedJar(name, asset)) {
+                final Archive<?> library = ((ArchiveAsset) asset).getArchive();
+                final String digest = cache == null || depth > 0 ? null : cache.digest(library);
+                final ExportCache.CachedEntry cached = digest == null ? null : cache.archive(digest);
+                if (cached != null) {
+                    return new PreparedEntry(node, name, cached.crc, cached.size, null, cached.file);
+                }
+                buffer.reset();
+                final ZipChannelWriter nested = ZipChannelWriter.nested(Channels.newChannel(buffer));
+                writeArchive(library, nested, buffers, depth + 1, cache, Deflater.NO_COMPRESSION);
+                nested.finish();
+                if (digest != null) {
+                    final long crc = buffer.crc();
+                    cache.putArchive(digest, crc, buffer);
+                    return new PreparedEntry(node, name, crc, buffer.size(), buffer, null);
+                }
+            } else {
+                buffer.readFully(asset.openStream());
+                if (compressed) {
+                    final EntryBuffer deflated = buffer.deflate(level);
+                    return new PreparedEntry(node, name, buffer.crc(), buffer.size(), buffer, null,
+                            deflated.size() < buffer.size() ? deflated : null);
+                }
+            }
+            return new PreparedEntry(node, name, buffer.crc(), buffer.size(), buffer, null);
+        } catch (final IOException | RuntimeException e) {
+            throw failure(node, e);
+        }
+    }
+
+    private static void write(final PreparedEntry entry, final EntryWriter writer) {
+        try {
+            writer.write(entry);
+        } catch (final IOException | RuntimeException e) {
+            throw failure(entry.node, e);
+        }
+    }
+
+    /**
+     * Rejects a target holding entries of the archive, which would be overwritten while they are being read.
+     */
+    private void checkNotImportedFrom(final Path target) {
+        if (!Files.exists(target)) {
+            return;
+        }
+        Path source = null;
+        for (final Node node : getArchive().getContent().values()) {
+            if (node.getAsset() instanceof MappedEntryAsset
+                    && !((MappedEntryAsset) node.getAsset()).getSource().equals(source)) {
+                source = ((MappedEntryAsset) node.getAsset()).getSource();
+                try {
+                    if (Files.exists(source) && Files.isSameFile(source, target)) {
+                        throw new IllegalArgumentException("Cannot export over the file the archive was imported "
+                                + "from: " + target.toAbsolutePath());
+                    }
+                } catch (final IOException e) {
+                    throw new ArchiveExportException("Target could not be compared with " + source, e);
+                }
+            }
+        }
+    }
+
+    private static long crc(final Path file) throws IOException {
+        final CRC32 crc = new CRC32();
+        final byte[] chunk = new byte[CHUNK_SIZE];
+        try (InputStream in = Files.newInputStream(file)) {
+            for (int read; (read = in.read(chunk)) != -1; ) {
+                crc.update(chunk, 0, read);
+            }
+        }
+        return crc.getValue();
+    }
+
+    private static PreparedEntry join(final ForkJoinTask<PreparedEntry> task) {
+        try {
+            return task.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ArchiveExportException("Interrupted while exporting archive", e);
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new ArchiveExportException("Failed to prepare asset", cause);
+        }
+    }
+
+    private static ArchiveExportException failure(final Node node, final Exception e) {
+        if (e instanceof ArchiveExportException) {
+            return (ArchiveExportException) e;
+        }
+        return new ArchiveExportException("Failed to write asset to output: " + node.getPath().get(), e);
+    }
+
+    private static boolean isNestedJar(final String name, final Asset asset) {
+        return asset instanceof LibraryArchiveAsset || asset instanceof ArchiveAsset && name.endsWith(JAR_EXTENSION);
+    }
+}
@@ -0,0 +1,176 @@
+package org.shrinkwrap.springboot.impl.exporter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+import org.jboss.shrinkwrap.api.exporter.ArchiveExportException;
+
+/**
+ * Minimal ustar writer appending entries straight to a {@link WritableByteChannel}.
+ *
+ * Names longer than the 100 bytes of the header are split over the ustar prefix field; names that cannot be split
+ * that way are rejected, as are entries of 8 GiB or more.
+ */
+class TarChannelWriter implements EntryWriter {
+
+    private static final int BLOCK_SIZE = 512;
+
+    private static final int NAME_LENGTH = 100;
+    private static final int PREFIX_LENGTH = 155;
+    private static final long MAX_SIZE = 077777777777L;
+
+    private static final int FILE_MODE = 0644;
+    private static final int DIRECTORY_MODE = 0755;
+    private static final byte TYPE_FILE = '0';
+    private static final byte TYPE_DIRECTORY = '5';
+
+    private final WritableByteChannel channel;
+    private final long modificationTime;
+
+    TarChannelWriter(final WritableByteChannel channel) {
+        this.channel = channel;
+        this.modificationTime = System.currentTimeMillis() / 1000;
+    }
+
+    @Override
+    public void write(final PreparedEntry entry) throws IOException {
+        if (entry.isDirectory()) {
+            putDirectory(entry.name);
+        } else if (entry.file != null) {
+            try (FileChannel source = FileChannel.open(entry.file, StandardOpenOption.READ)) {
+                putEntry(entry.name, source);
+            }
+        } else if (entry.mapped != null) {
+            putEntry(entry.name, entry.mapped.duplicate());
+        } else {
+            putEntry(entry.name, entry.buffer.asByteBuffer());
+        }
+    }
+
+    /**
+     * Writes a directory entry.
+     *
+     * @param name
+     *            entry name, ending with '/'
+     */
+    void putDirectory(final String name) throws IOException {
+        write(ByteBuffer.wrap(header(name, TYPE_DIRECTORY, DIRECTORY_MODE, 0)));
+    }
+
+    /**
+     * Writes a file entry.
+     *
+     * @param name
+     *            entry name
+     * @param data
+     *            entry data
+     */
+    void putEntry(final String name, final ByteBuffer data) throws IOException {
+        final long size = data.remaining();
+        write(ByteBuffer.wrap(header(name, TYPE_FILE, FILE_MODE, size)));
+        write(data);
+        pad(size);
+    }
+
+    /**
+     * Writes a file entry whose data is transferred from a file.
+     *
+     * @param name
+     *            entry name
+     * @param source
+     *            file holding the data
+     */
+    void putEntry(final String name, final FileChannel source) throws IOException {
+        final long size = source.size();
+        write(ByteBuffer.wrap(header(name, TYPE_FILE, FILE_MODE, size)));
+        long transferred = 0;
+        while (transferred < size) {
+            final long count = source.transferTo(transferred, size - transferred, channel);
+            if (count <= 0 && transferred >= source.size()) {
+                throw new IOException("Unexpected end of file while writing " + name);
+            }
+            transferred += count;
+        }
+        pad(size);
+    }
+
+    /**
+     * Writes the two empty blocks ending the archive. The channel is left open.
+     */
+    void finish() throws IOException {
+        write(ByteBuffer.wrap(new byte[BLOCK_SIZE * 2]));
+    }
+
+    private byte[] header(final String name, final byte type, final int mode, final long size) {
+        if (size > MAX_SIZE) {
+            throw new ArchiveExportException("Entry " + name + " exceeds the 8 GiB TAR limit");
+        }
+        final byte[] encodedName = name.getBytes(StandardCharsets.UTF_8);
+        int split = 0;
+        if (encodedName.length > NAME_LENGTH) {
+            split = findPrefixEnd(name, encodedName);
+        }
+
+        final byte[] header = new byte[BLOCK_SIZE];
+        System.arraycopy(encodedName, split == 0 ? 0 : split + 1, header, 0,
+                encodedName.length - (split == 0 ? 0 : split + 1));
+        octal(header, 100, 8, mode);
+        octal(header, 108, 8, 0);
+        octal(header, 116, 8, 0);
+        octal(header, 124, 12, size);
+        octal(header, 136, 12, modificationTime);
+        header[156] = type;
+        System.arraycopy("ustar\u000000".getBytes(StandardCharsets.US_ASCII), 0, header, 257, 8);
+        if (split > 0) {
+            System.arraycopy(encodedName, 0, header, 345, split);
+        }
+
+        for (int i = 148; i < 156; i++) {
+            header[i] = ' ';
+        }
+        long checksum = 0;
+        for (final byte b : header) {
+            checksum += b & 0xFF;
+        }
+        octal(header, 148, 7, checksum);
+        return header;
+    }
+
+    private static int findPrefixEnd(final String name, final byte[] encodedName) {
+        for (int slash = Math.min(PREFIX_LENGTH, encodedName.length - 2); slash > 0; slash--) {
+            if (encodedName[slash] == '/' && encodedName.length - slash - 1 <= NAME_LENGTH) {
+                return slash;
+            }
+        }
+        throw new ArchiveExportException("Entry name is too long for a TAR archive: " + name);
+    }
+
+    private static void octal(final byte[] header, final int offset, final int length, final long value) {
+        final String digits = Long.toOctalString(value);
+        final int padding = length - 1 - digits.length();
+        for (int i = 0; i < padding; i++) {
+            header[offset + i] = '0';
+        }
+        for (int i = 0; i < digits.length(); i++) {
+            header[offset + padding + i] = (byte) digits.charAt(i);
+        }
+        header[offset + length - 1] = 0;
+    }
+
+    private void pad(final long size) throws IOException {
+        final int remainder = (int) (size % BLOCK_SIZE);
+        if (remainder != 0) {
+            write(ByteBuffer.wrap(new byte[BLOCK_SIZE - remainder]));
+        }
+    }
+
+    private void write(final ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
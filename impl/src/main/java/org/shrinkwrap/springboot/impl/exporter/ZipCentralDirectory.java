@@ -0,0 +1,209 @@
+package org.shrinkwrap.springboot.impl.exporter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Central directory of an existing ZIP file, read so that an update can keep the entries that did not change.
+ *
+ * Only what {@link ZipChannelWriter} needs to reference or copy an entry is kept. ZIP64 archives and archives spanning
+ * several disks are not supported.
+ */
+class ZipCentralDirectory {
+
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+
+    private static final int LOCAL_HEADER_LENGTH = 30;
+    private static final int CENTRAL_HEADER_LENGTH = 46;
+    private static final int END_OF_CENTRAL_DIRECTORY_LENGTH = 22;
+    private static final int MAX_COMMENT_LENGTH = 0xFFFF;
+
+    private static final long MAX_ZIP32_VALUE = 0xFFFFFFFFL;
+
+    private final Map<String, Entry> entries;
+    private final long offset;
+    private final long liveBytes;
+
+    private ZipCentralDirectory(final Map<String, Entry> entries, final long offset, final long liveBytes) {
+        this.entries = entries;
+        this.offset = offset;
+        this.liveBytes = liveBytes;
+    }
+
+    /**
+     * Reads the central directory of the file.
+     *
+     * @param file
+     *            ZIP file to read
+     * @return the central directory, or null if the file is not a ZIP file this class can read
+     */
+    static ZipCentralDirectory read(final FileChannel file) throws IOException {
+        final ByteBuffer end = findEndOfCentralDirectory(file);
+        if (end == null || end.getShort(4) != 0 || end.getShort(6) != 0) {
+            return null;
+        }
+        final int count = end.getShort(10) & 0xFFFF;
+        final long length = end.getInt(12) & MAX_ZIP32_VALUE;
+        final long offset = end.getInt(16) & MAX_ZIP32_VALUE;
+        if (length == MAX_ZIP32_VALUE || offset == MAX_ZIP32_VALUE || offset + length > file.size()) {
+            return null;
+        }
+
+        final ByteBuffer directory = readFully(file, offset, (int) length);
+        final Map<String, Entry> entries = new HashMap<>(count * 2);
+        long liveBytes = 0;
+        int position = 0;
+        for (int i = 0; i < count; i++) {
+            if (position + CENTRAL_HEADER_LENGTH > length || directory.getInt(position) != CENTRAL_HEADER_SIGNATURE) {
+                return null;
+            }
+            final int flags = directory.getShort(position + 8) & 0xFFFF;
+            final int method = directory.getShort(position + 10) & 0xFFFF;
+            final int dosTime = directory.getInt(position + 12);
+            final long crc = directory.getInt(position + 16) & MAX_ZIP32_VALUE;
+            final long compressedSize = directory.getInt(position + 20) & MAX_ZIP32_VALUE;
+            final long size = directory.getInt(position + 24) & MAX_ZIP32_VALUE;
+            final int nameLength = directory.getShort(position + 28) & 0xFFFF;
+            final int extraLength = directory.getShort(position + 30) & 0xFFFF;
+            final int commentLength = directory.getShort(position + 32) & 0xFFFF;
+            final long localHeaderOffset = directory.getInt(position + 42) & MAX_ZIP32_VALUE;
+            if (compressedSize == MAX_ZIP32_VALUE || size == MAX_ZIP32_VALUE || localHeaderOffset >= offset) {
+                return null;
+            }
+
+            final String name = new String(directory.array(), position + CENTRAL_HEADER_LENGTH, nameLength,
+                    StandardCharsets.UTF_8);
+            entries.put(name, new Entry(flags, method, dosTime, crc, size, compressedSize, localHeaderOffset));
+            liveBytes += LOCAL_HEADER_LENGTH + nameLength + extraLength + compressedSize;
+            position += CENTRAL_HEADER_LENGTH + nameLength + extraLength + commentLength;
+        }
+        return new ZipCentralDirectory(entries, offset, liveBytes);
+    }
+
+    /**
+     * Returns the entry with the specified name, or null if there is none.
+     *
+     * @param name
+     *            entry name
+     * @return the entry, or null
+     */
+    Entry get(final String name) {
+        return entries.get(name);
+    }
+
+    /**
+     * Returns the offset of the central directory, which is also the end of the entry data.
+     *
+     * @return the offset of the central directory
+     */
+    long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Returns an estimate of the bytes before the central directory that no entry refers to any more.
+     *
+     * @return the unreferenced bytes
+     */
+    long getDeadBytes() {
+        return Math.max(0, offset - liveBytes);
+    }
+
+    /**
+     * Returns the offset of the entry data, right after its local header.
+     *
+     * @param file
+     *            the file the directory was read from
+     * @param entry
+     *            entry of this directory
+     * @return the offset of the entry data
+     */
+    static long dataOffset(final FileChannel file, final Entry entry) throws IOException {
+        final ByteBuffer header = readFully(file, entry.localHeaderOffset, LOCAL_HEADER_LENGTH);
+        if (header.getInt(0) != LOCAL_HEADER_SIGNATURE) {
+            throw new IOException("No local header found at offset " + entry.localHeaderOffset);
+        }
+        return entry.localHeaderOffset + LOCAL_HEADER_LENGTH + (header.getShort(26) & 0xFFFF)
+                + (header.getShort(28) & 0xFFFF);
+    }
+
+    private static ByteBuffer findEndOfCentralDirectory(final FileChannel file) throws IOException {
+        final long size = file.size();
+        if (size < END_OF_CENTRAL_DIRECTORY_LENGTH) {
+            return null;
+        }
+        final int length = (int) Math.min(size, END_OF_CENTRAL_DIRECTORY_LENGTH + MAX_COMMENT_LENGTH);
+        final ByteBuffer tail = readFully(file, size - length, length);
+        for (int position = length - END_OF_CENTRAL_DIRECTORY_LENGTH; position >= 0; position--) {
+            if (tail.getInt(position) == END_OF_CENTRAL_DIRECTORY_SIGNATURE
+                    && position + END_OF_CENTRAL_DIRECTORY_LENGTH + (tail.getShort(position + 20) & 0xFFFF) == length) {
+                final byte[] end = new byte[END_OF_CENTRAL_DIRECTORY_LENGTH];
+                System.arraycopy(tail.array(), position, end, 0, end.length);
+                return ByteBuffer.wrap(end).order(ByteOrder.LITTLE_ENDIAN);
+            }
+        }
+        return null;
+    }
+
+    private static ByteBuffer readFully(final FileChannel file, final long offset, final int length)
+            throws IOException {
+        final byte[] bytes = new byte[length];
+        final ByteBuffer target = ByteBuffer.wrap(bytes);
+        while (target.hasRemaining()) {
+            if (file.read(target, offset + target.position()) == -1) {
+                throw new IOException("Unexpected end of file at offset " + (offset + target.position()));
+            }
+        }
+        return ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Entry of an existing central directory.
+     */
+    static final class Entry {
+
+        private static final int FLAG_ENCRYPTED = 0x0001;
+
+        final int flags;
+        final int method;
+        final int dosTime;
+        final long crc;
+        final long size;
+        final long compressedSize;
+        final long localHeaderOffset;
+
+        private Entry(final int flags, final int method, final int dosTime, final long crc, final long size,
+                final long compressedSize, final long localHeaderOffset) {
+            this.flags = flags;
+            this.method = method;
+            this.dosTime = dosTime;
+            this.crc = crc;
+            this.size = size;
+            this.compressedSize = compressedSize;
+            this.localHeaderOffset = localHeaderOffset;
+        }
+
+        /**
+         * Returns whether the entry holds the specified data, with the specified compression method.
+         *
+         * @param method
+         *            compression method, STORED or DEFLATED
+         * @param crc
+         *            CRC-32 of the data
+         * @param size
+         *            length of the data
+         * @return whether the entry can be reused for the data
+         */
+        boolean holds(final int method, final long crc, final long size) {
+            return this.method == method && (flags & FLAG_ENCRYPTED) == 0 && this.crc == crc && this.size == size
+                    && (method != ZipChannelWriter.STORED || compressedSize == size);
+        }
+    }
+}
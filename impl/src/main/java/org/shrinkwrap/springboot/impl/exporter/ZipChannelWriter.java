@@ -0,0 +1,354 @@
+package org.shrinkwrap.springboot.impl.exporter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+
+import org.jboss.shrinkwrap.api.exporter.ArchiveExportException;
+
+/**
+ * Minimal ZIP writer appending entries straight to a {@link WritableByteChannel}.
+ *
+ * Entries are handed over already checksummed, sized and, if DEFLATED, compressed, so local headers are complete and no
+ * data descriptors are written. ZIP64 is not supported, which matches what the Spring Boot launcher is able to read.
+ *
+ * When updating an existing archive, entries whose data did not change are kept from its central directory, either in
+ * place or copied byte for byte, instead of being written again.
+ */
+class ZipChannelWriter implements EntryWriter {
+
+    static final int STORED = 0;
+    static final int DEFLATED = 8;
+
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+
+    private static final int LOCAL_HEADER_LENGTH = 30;
+    private static final int CENTRAL_HEADER_LENGTH = 46;
+    private static final int END_OF_CENTRAL_DIRECTORY_LENGTH = 22;
+
+    private static final int VERSION_STORED = 10;
+    private static final int VERSION_DEFLATED = 20;
+    private static final int VERSION_MADE_BY = 20;
+    private static final int FLAG_UTF8 = 0x0800;
+
+    private static final long MAX_ZIP32_VALUE = 0xFFFFFFFFL;
+    private static final int MAX_ZIP32_ENTRIES = 0xFFFF;
+
+    private static final int NESTED_DOS_TIME = toDosTime(LocalDateTime.of(1980, 2, 1, 0, 0));
+
+    private final WritableByteChannel channel;
+    private final int dosTime;
+    private final ByteArrayOutputStream centralDirectory = new ByteArrayOutputStream();
+    private final ZipCentralDirectory previous;
+    private final FileChannel previousFile;
+
+    private long position;
+    private int entries;
+
+    ZipChannelWriter(final WritableByteChannel channel) {
+        this(channel, 0, null, null, toDosTime(LocalDateTime.now()));
+    }
+
+    private ZipChannelWriter(final WritableByteChannel channel, final long position,
+            final ZipCentralDirectory previous, final FileChannel previousFile, final int dosTime) {
+        this.channel = channel;
+        this.position = position;
+        this.previous = previous;
+        this.previousFile = previousFile;
+        this.dosTime = dosTime;
+    }
+
+    /**
+     * Creates a writer for a nested archive. Its entries get a fixed timestamp, so serializing the same content twice
+     * produces the same bytes and an unchanged library keeps its checksum from one export to the next.
+     *
+     * @param channel
+     *            target of the nested archive
+     * @return a writer with a fixed timestamp
+     */
+    static ZipChannelWriter nested(final WritableByteChannel channel) {
+        return new ZipChannelWriter(channel, 0, null, null, NESTED_DOS_TIME);
+    }
+
+    /**
+     * Creates a writer updating an archive in place. Reused entries stay where they are, new ones and the new central
+     * directory are appended after the end of the file, so the previous central directory stays untouched, and the
+     * file readable, until the update is complete.
+     *
+     * @param file
+     *            archive to update
+     * @param previous
+     *            central directory of the archive
+     * @return a writer positioned at the end of the file
+     */
+    static ZipChannelWriter inPlace(final FileChannel file, final ZipCentralDirectory previous) throws IOException {
+        final long end = file.size();
+        file.position(end);
+        return new ZipChannelWriter(file, end, previous, null, toDosTime(LocalDateTime.now()));
+    }
+
+    /**
+     * Creates a writer rewriting an archive into a new target, copying the data of reused entries from the previous
+     * file.
+     *
+     * @param channel
+     *            target of the rewritten archive
+     * @param previous
+     *            central directory of the previous archive
+     * @param previousFile
+     *            previous archive
+     * @return a writer copying reused entries
+     */
+    static ZipChannelWriter compacting(final WritableByteChannel channel, final ZipCentralDirectory previous,
+            final FileChannel previousFile) {
+        return new ZipChannelWriter(channel, 0, previous, previousFile, toDosTime(LocalDateTime.now()));
+    }
+
+    /**
+     * Keeps the entry of the previous archive with the same name if it holds the same data, with the same compression
+     * method. In place, only its central header is written; otherwise its data is copied from the previous file. Either
+     * way it keeps its previous timestamp.
+     *
+     * @param name
+     *            entry name
+     * @param method
+     *            compression method the entry would be written with
+     * @param crc
+     *            CRC-32 of the data
+     * @param size
+     *            length of the data
+     * @return whether the previous entry has been kept, in which case nothing else must be written for it
+     */
+    boolean reuse(final String name, final int method, final long crc, final long size) throws IOException {
+        final ZipCentralDirectory.Entry entry = previous == null ? null : previous.get(name);
+        if (entry == null || !entry.holds(method, crc, size)) {
+            return false;
+        }
+        if (previousFile != null) {
+            putEntry(name, method, entry.dosTime, crc, size, previousFile,
+                    ZipCentralDirectory.dataOffset(previousFile, entry), entry.compressedSize);
+        } else {
+            checkLimits(name, size, entry.compressedSize);
+            writeCentralHeader(name.getBytes(StandardCharsets.UTF_8), method, entry.dosTime, crc, size,
+                    entry.compressedSize, entry.localHeaderOffset);
+            entries++;
+        }
+        return true;
+    }
+
+    /**
+     * Appends a prepared entry, unless the archive being updated already holds it. Files are copied straight from disk
+     * into the target, and mapped entries from the mapping, so their content never needs to be held in memory. Entries
+     * compressed ahead, or mapped compressed, are written DEFLATED.
+     *
+     * @param entry
+     *            entry to write
+     */
+    @Override
+    public void write(final PreparedEntry entry) throws IOException {
+        final int method = entry.deflated != null || entry.mappedDeflated ? DEFLATED : STORED;
+        if (reuse(entry.name, method, entry.crc, entry.size)) {
+            return;
+        }
+        if (entry.mapped != null) {
+            putEntry(entry.name, method, entry.crc, entry.size, entry.mapped.duplicate());
+        } else if (entry.deflated != null) {
+            putEntry(entry.name, DEFLATED, entry.crc, entry.size, entry.deflated.asByteBuffer());
+        } else if (entry.file != null) {
+            try (FileChannel source = FileChannel.open(entry.file, StandardOpenOption.READ)) {
+                putEntry(entry.name, entry.crc, source, 0, source.size());
+            }
+        } else if (entry.buffer != null) {
+            putEntry(entry.name, STORED, entry.crc, entry.buffer.size(), entry.buffer.asByteBuffer());
+        } else {
+            putDirectory(entry.name);
+        }
+    }
+
+    /**
+     * Writes a directory entry.
+     *
+     * @param name
+     *            entry name, ending with '/'
+     */
+    void putDirectory(final String name) throws IOException {
+        putEntry(name, STORED, 0, 0, ByteBuffer.allocate(0));
+    }
+
+    /**
+     * Writes a complete entry, header and data.
+     *
+     * @param name
+     *            entry name
+     * @param method
+     *            compression method the data was encoded with
+     * @param crc
+     *            CRC-32 of the uncompressed data
+     * @param size
+     *            uncompressed size
+     * @param data
+     *            entry data as it has to appear in the archive
+     */
+    void putEntry(final String name, final int method, final long crc, final long size, final ByteBuffer data)
+            throws IOException {
+        final long headerLength = putHeaders(name, method, dosTime, crc, size, data.remaining());
+        position += headerLength + write(data);
+    }
+
+    /**
+     * Writes a complete STORED entry whose data is transferred from a region of a file, without copying it to the
+     * heap when the target channel allows it.
+     *
+     * @param name
+     *            entry name
+     * @param crc
+     *            CRC-32 of the data
+     * @param source
+     *            file holding the data
+     * @param offset
+     *            offset of the data within the file
+     * @param size
+     *            length of the data
+     */
+    void putEntry(final String name, final long crc, final FileChannel source, final long offset, final long size)
+            throws IOException {
+        putEntry(name, STORED, dosTime, crc, size, source, offset, size);
+    }
+
+    private void putEntry(final String name, final int method, final int time, final long crc, final long size,
+            final FileChannel source, final long offset, final long length) throws IOException {
+        final long headerLength = putHeaders(name, method, time, crc, size, length);
+        long transferred = 0;
+        while (transferred < length) {
+            final long count = source.transferTo(offset + transferred, length - transferred, channel);
+            if (count <= 0 && offset + transferred >= source.size()) {
+                throw new IOException("Unexpected end of file while writing " + name);
+            }
+            transferred += count;
+        }
+        position += headerLength + transferred;
+    }
+
+    /**
+     * Writes the central directory and the end of central directory record. The channel is left open.
+     */
+    void finish() throws IOException {
+        if (position > MAX_ZIP32_VALUE) {
+            throw new ArchiveExportException("Archive exceeds the 4 GiB ZIP limit, ZIP64 is not supported");
+        }
+        final ByteBuffer end = newBuffer(END_OF_CENTRAL_DIRECTORY_LENGTH);
+        end.putInt(END_OF_CENTRAL_DIRECTORY_SIGNATURE)
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putShort((short) entries)
+                .putShort((short) entries)
+                .putInt(centralDirectory.size())
+                .putInt((int) position)
+                .putShort((short) 0);
+
+        final long centralDirectoryLength = write(ByteBuffer.wrap(centralDirectory.toByteArray()));
+        position += centralDirectoryLength + write(ByteBuffer.wrap(end.array()));
+    }
+
+    /**
+     * Returns the number of bytes written so far.
+     *
+     * @return the number of bytes written so far
+     */
+    long getPosition() {
+        return position;
+    }
+
+    /**
+     * Writes the local header, records the central one and returns the number of bytes written.
+     */
+    private long putHeaders(final String name, final int method, final int time, final long crc, final long size,
+            final long compressedSize) throws IOException {
+        final byte[] encodedName = name.getBytes(StandardCharsets.UTF_8);
+        checkLimits(name, size, compressedSize);
+
+        final ByteBuffer header = newBuffer(LOCAL_HEADER_LENGTH + encodedName.length);
+        header.putInt(LOCAL_HEADER_SIGNATURE)
+                .putShort((short) versionNeeded(method))
+                .putShort((short) FLAG_UTF8)
+                .putShort((short) method)
+                .putInt(time)
+                .putInt((int) crc)
+                .putInt((int) compressedSize)
+                .putInt((int) size)
+                .putShort((short) encodedName.length)
+                .putShort((short) 0)
+                .put(encodedName);
+
+        writeCentralHeader(encodedName, method, time, crc, size, compressedSize, position);
+        entries++;
+
+        return write(ByteBuffer.wrap(header.array()));
+    }
+
+    private void writeCentralHeader(final byte[] encodedName, final int method, final int time, final long crc,
+            final long size, final long compressedSize, final long offset) {
+        final ByteBuffer header = newBuffer(CENTRAL_HEADER_LENGTH + encodedName.length);
+        header.putInt(CENTRAL_HEADER_SIGNATURE)
+                .putShort((short) VERSION_MADE_BY)
+                .putShort((short) versionNeeded(method))
+                .putShort((short) FLAG_UTF8)
+                .putShort((short) method)
+                .putInt(time)
+                .putInt((int) crc)
+                .putInt((int) compressedSize)
+                .putInt((int) size)
+                .putShort((short) encodedName.length)
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putInt(0)
+                .putInt((int) offset)
+                .put(encodedName);
+        centralDirectory.write(header.array(), 0, header.capacity());
+    }
+
+    private void checkLimits(final String name, final long size, final long compressedSize) {
+        if (entries == MAX_ZIP32_ENTRIES) {
+            throw new ArchiveExportException("Archive exceeds " + MAX_ZIP32_ENTRIES
+                    + " entries, ZIP64 is not supported");
+        }
+        if (size > MAX_ZIP32_VALUE || compressedSize > MAX_ZIP32_VALUE || position > MAX_ZIP32_VALUE) {
+            throw new ArchiveExportException("Entry " + name + " exceeds the 4 GiB ZIP limit, ZIP64 is not supported");
+        }
+    }
+
+    private long write(final ByteBuffer buffer) throws IOException {
+        long written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer);
+        }
+        return written;
+    }
+
+    private static int versionNeeded(final int method) {
+        return method == DEFLATED ? VERSION_DEFLATED : VERSION_STORED;
+    }
+
+    private static ByteBuffer newBuffer(final int length) {
+        return ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static int toDosTime(final LocalDateTime time) {
+        return (time.getYear() - 1980) << 25
+                | time.getMonthValue() << 21
+                | time.getDayOfMonth() << 16
+                | time.getHour() << 11
+                | time.getMinute() << 5
+                | time.getSecond() >> 1;
+    }
+}
@@ -0,0 +1,183 @@
+package org.shrinkwrap.springboot.impl.importer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.importer.ArchiveImportException;
+import org.jboss.shrinkwrap.impl.base.AssignableBase;
+import org.jboss.shrinkwrap.impl.base.Validate;
+import org.shrinkwrap.springboot.api.importer.SpringBootImporter;
+import org.shrinkwrap.springboot.impl.asset.MappedEntryAsset;
+
+/**
+ * Implementation of the {@link SpringBootImporter} interface.
+ *
+ * The file is mapped once, read-only, and its central directory walked from the mapping: directories are added as
+ * such and every other entry as a {@link MappedEntryAsset} sharing the mapping, which stays valid after the file is
+ * closed, until the assets are no longer referenced.
+ */
+public class SpringBootImporterImpl extends AssignableBase<Archive<?>> implements SpringBootImporter {
+
+    private static final Logger log = Logger.getLogger(SpringBootImporterImpl.class.getName());
+
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+
+    private static final int CENTRAL_HEADER_LENGTH = 46;
+    private static final int END_OF_CENTRAL_DIRECTORY_LENGTH = 22;
+    private static final int MAX_COMMENT_LENGTH = 0xFFFF;
+
+    private static final int STORED = 0;
+    private static final int DEFLATED = 8;
+    private static final int FLAG_ENCRYPTED = 0x0001;
+
+    private static final long MAX_ZIP32_VALUE = 0xFFFFFFFFL;
+
+    public SpringBootImporterImpl(final Archive<?> archive) {
+        super(archive);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see SpringBootImporter#importFrom(File)
+     */
+    @Override
+    public SpringBootImporter importFrom(final File file) throws ArchiveImportException, IllegalArgumentException {
+        Validate.notNull(file, "File must be specified");
+        return importFrom(file.toPath());
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see SpringBootImporter#importFrom(Path)
+     */
+    @Override
+    public SpringBootImporter importFrom(final Path file) throws ArchiveImportException, IllegalArgumentException {
+        Validate.notNull(file, "File must be specified");
+        if (!Files.isRegularFile(file)) {
+            throw new IllegalArgumentException("File does not exist or is not a regular file: "
+                    + file.toAbsolutePath());
+        }
+        if (log.isLoggable(Level.FINE)) {
+            log.fine("Importing archive - " + file);
+        }
+
+        final Map<String, MappedEntryAsset> entries;
+        try {
+            entries = readCentralDirectory(file, map(file));
+        } catch (final IOException e) {
+            throw new ArchiveImportException("Archive could not be imported from " + file, e);
+        }
+        // Nothing is added unless the whole central directory could be read
+        final Archive<?> archive = getArchive();
+        for (final Map.Entry<String, MappedEntryAsset> entry : entries.entrySet()) {
+            if (entry.getValue() == null) {
+                archive.addAsDirectory(entry.getKey());
+            } else {
+                archive.add(entry.getValue(), entry.getKey());
+            }
+        }
+        return this;
+    }
+
+    private static ByteBuffer map(final Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("File exceeds 2 GiB and cannot be mapped");
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    /**
+     * Returns the entries of the central directory in archive order, directories mapped to null.
+     */
+    private static Map<String, MappedEntryAsset> readCentralDirectory(final Path file, final ByteBuffer zip)
+            throws IOException {
+        final int end = findEndOfCentralDirectory(zip);
+        if (end < 0) {
+            throw new IOException("File is not a ZIP archive");
+        }
+        if (zip.getShort(end + 4) != 0 || zip.getShort(end + 6) != 0) {
+            throw new IOException("Archives spanning several disks are not supported");
+        }
+        final int count = zip.getShort(end + 10) & 0xFFFF;
+        final long length = zip.getInt(end + 12) & MAX_ZIP32_VALUE;
+        final long offset = zip.getInt(end + 16) & MAX_ZIP32_VALUE;
+        if (offset + length > end) {
+            throw new IOException("Central directory exceeds the end of the file, ZIP64 is not supported");
+        }
+
+        final Map<String, MappedEntryAsset> entries = new LinkedHashMap<>(count * 2);
+        int position = (int) offset;
+        for (int i = 0; i < count; i++) {
+            if (position + CENTRAL_HEADER_LENGTH > offset + length
+                    || zip.getInt(position) != CENTRAL_HEADER_SIGNATURE) {
+                throw new IOException("Invalid central directory header at offset " + position);
+            }
+            final int flags = zip.getShort(position + 8) & 0xFFFF;
+            final int method = zip.getShort(position + 10) & 0xFFFF;
+            final long crc = zip.getInt(position + 16) & MAX_ZIP32_VALUE;
+            final long compressedSize = zip.getInt(position + 20) & MAX_ZIP32_VALUE;
+            final long size = zip.getInt(position + 24) & MAX_ZIP32_VALUE;
+            final int nameLength = zip.getShort(position + 28) & 0xFFFF;
+            final int extraLength = zip.getShort(position + 30) & 0xFFFF;
+            final int commentLength = zip.getShort(position + 32) & 0xFFFF;
+            final long localHeaderOffset = zip.getInt(position + 42) & MAX_ZIP32_VALUE;
+            if (position + CENTRAL_HEADER_LENGTH + nameLength > offset + length) {
+                throw new IOException("Invalid central directory header at offset " + position);
+            }
+            final String name = name(zip, position + CENTRAL_HEADER_LENGTH, nameLength);
+            if (compressedSize == MAX_ZIP32_VALUE || size == MAX_ZIP32_VALUE || localHeaderOffset >= offset) {
+                throw new IOException("Entry " + name + " is invalid or uses ZIP64, which is not supported");
+            }
+            if ((flags & FLAG_ENCRYPTED) != 0 || method != STORED && method != DEFLATED) {
+                throw new IOException("Entry " + name + " is encrypted or uses an unsupported compression method: "
+                        + method);
+            }
+
+            entries.put(name, name.endsWith("/") ? null : new MappedEntryAsset(file, zip, name,
+                    (int) localHeaderOffset, method == DEFLATED, crc, size, (int) compressedSize));
+            position += CENTRAL_HEADER_LENGTH + nameLength + extraLength + commentLength;
+        }
+        return entries;
+    }
+
+    /**
+     * Returns the offset of the end of central directory record, or -1 if there is none.
+     */
+    private static int findEndOfCentralDirectory(final ByteBuffer zip) {
+        final int last = zip.capacity() - END_OF_CENTRAL_DIRECTORY_LENGTH;
+        for (int position = last; position >= 0 && position >= last - MAX_COMMENT_LENGTH; position--) {
+            if (zip.getInt(position) == END_OF_CENTRAL_DIRECTORY_SIGNATURE
+                    && position + END_OF_CENTRAL_DIRECTORY_LENGTH + (zip.getShort(position + 20) & 0xFFFF)
+                            == zip.capacity()) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    private static String name(final ByteBuffer zip, final int position, final int length) {
+        final byte[] name = new byte[length];
+        final ByteBuffer view = zip.duplicate();
+        ((Buffer) view).position(position);
+        view.get(name);
+        return new String(name, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,307 @@
+package org.shrinkwrap.springboot.impl.index;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reads the names of the classes a class file may refer to from its constant pool, or its super types and annotations,
+ * without loading it.
+ *
+ * Every class, field and method reference, descriptor, signature and annotation type of a class file is stored as a
+ * string of its constant pool, so the strings are all that is read: class names in internal form, the {@code L...;}
+ * types of descriptors and signatures, and string constants that look like a class name, in dotted or internal form,
+ * for classes loaded by name. The references found are a superset of the classes actually used; names that are not
+ * classes are simply never resolved.
+ */
+final class ClassFileReader {
+
+    private static final int MAGIC = 0xCAFEBABE;
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_FLOAT = 4;
+    private static final int CONSTANT_LONG = 5;
+    private static final int CONSTANT_DOUBLE = 6;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_STRING = 8;
+    private static final int CONSTANT_FIELD_REF = 9;
+    private static final int CONSTANT_METHOD_REF = 10;
+    private static final int CONSTANT_INTERFACE_METHOD_REF = 11;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+    private static final int CONSTANT_METHOD_HANDLE = 15;
+    private static final int CONSTANT_METHOD_TYPE = 16;
+    private static final int CONSTANT_DYNAMIC = 17;
+    private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+    private static final int CONSTANT_MODULE = 19;
+    private static final int CONSTANT_PACKAGE = 20;
+
+    private static final int ACC_ANNOTATION = 0x2000;
+
+    private static final String RUNTIME_VISIBLE_ANNOTATIONS = "RuntimeVisibleAnnotations";
+    private static final String RUNTIME_INVISIBLE_ANNOTATIONS = "RuntimeInvisibleAnnotations";
+
+    // JDK classes are never packaged in an archive
+    private static final String JDK_PACKAGE = "java/";
+
+    private ClassFileReader() {
+    }
+
+    /**
+     * Adds the internal names of the classes a class file may refer to. Only the constant pool is read.
+     *
+     * @param in
+     *            class file, left open
+     * @param references
+     *            names of the referenced classes, in internal form
+     * @throws IOException
+     *             if the class file cannot be read or is not a class file
+     */
+    static void references(final InputStream in, final Set<String> references) throws IOException {
+        final ConstantPool pool = ConstantPool.read(new DataInputStream(new BufferedInputStream(in)));
+        for (final String value : pool.strings) {
+            if (value != null) {
+                addReferences(value, references);
+            }
+        }
+    }
+
+    /**
+     * Reads the name, super types and annotations of a class. Fields, methods and their attributes are skipped.
+     *
+     * @param in
+     *            class file, left open
+     * @return the header of the class
+     * @throws IOException
+     *             if the class file cannot be read or is not a class file
+     */
+    static ClassHeader header(final InputStream in) throws IOException {
+        final DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        final ConstantPool pool = ConstantPool.read(data);
+        final String[] strings = pool.strings;
+        final int[] classes = pool.classes;
+
+        final int access = data.readUnsignedShort();
+        final String name = strings[classes[data.readUnsignedShort()]];
+        final int superClass = data.readUnsignedShort();
+        final String[] interfaces = new String[data.readUnsignedShort()];
+        for (int i = 0; i < interfaces.length; i++) {
+            interfaces[i] = strings[classes[data.readUnsignedShort()]];
+        }
+        // Fields, then methods
+        for (int members = 0; members < 2; members++) {
+            for (int member = data.readUnsignedShort(); member > 0; member--) {
+                // Access flags, name and descriptor
+                skip(data, 6);
+                skipAttributes(data);
+            }
+        }
+        final List<String> annotations = new ArrayList<>();
+        for (int attribute = data.readUnsignedShort(); attribute > 0; attribute--) {
+            final String attributeName = strings[data.readUnsignedShort()];
+            final int length = data.readInt();
+            if (RUNTIME_VISIBLE_ANNOTATIONS.equals(attributeName)
+                    || RUNTIME_INVISIBLE_ANNOTATIONS.equals(attributeName)) {
+                for (int annotation = data.readUnsignedShort(); annotation > 0; annotation--) {
+                    final String type = strings[data.readUnsignedShort()];
+                    // Annotation types are field descriptors
+                    annotations.add(type.substring(1, type.length() - 1));
+                    skipElementValuePairs(data);
+                }
+            } else {
+                skip(data, length);
+            }
+        }
+        return new ClassHeader(name, superClass == 0 ? null : strings[classes[superClass]], interfaces,
+                annotations.toArray(new String[annotations.size()]), (access & ACC_ANNOTATION) != 0);
+    }
+
+    private static void skipAttributes(final DataInputStream data) throws IOException {
+        for (int attribute = data.readUnsignedShort(); attribute > 0; attribute--) {
+            // Name
+            skip(data, 2);
+            skip(data, data.readInt());
+        }
+    }
+
+    private static void skipElementValuePairs(final DataInputStream data) throws IOException {
+        for (int pair = data.readUnsignedShort(); pair > 0; pair--) {
+            // Name
+            skip(data, 2);
+            skipElementValue(data);
+        }
+    }
+
+    private static void skipElementValue(final DataInputStream data) throws IOException {
+        final int tag = data.readUnsignedByte();
+        switch (tag) {
+        case 'e':
+            skip(data, 4);
+            break;
+        case '@':
+            skip(data, 2);
+            skipElementValuePairs(data);
+            break;
+        case '[':
+            for (int value = data.readUnsignedShort(); value > 0; value--) {
+                skipElementValue(data);
+            }
+            break;
+        default:
+            // Constants and classes
+            skip(data, 2);
+        }
+    }
+
+    /**
+     * Adds the classes named by a string of the constant pool: the object types of a descriptor or signature, or the
+     * string itself if it looks like a class name.
+     */
+    private static void addReferences(final String value, final Set<String> references) {
+        final int length = value.length();
+        if (value.indexOf(';') >= 0) {
+            for (int start = 0; start < length; start++) {
+                if (value.charAt(start) != 'L') {
+                    continue;
+                }
+                int end = start + 1;
+                while (end < length && value.charAt(end) != ';' && value.charAt(end) != '<') {
+                    end++;
+                }
+                if (end < length && end > start + 1) {
+                    addReference(value.substring(start + 1, end), references);
+                }
+                start = end;
+            }
+        } else if (isClassName(value)) {
+            addReference(value.replace('.', '/'), references);
+        }
+    }
+
+    private static void addReference(final String name, final Set<String> references) {
+        if (!name.startsWith(JDK_PACKAGE)) {
+            references.add(name);
+        }
+    }
+
+    private static boolean isClassName(final String value) {
+        final int length = value.length();
+        if (length < 3 || !Character.isJavaIdentifierStart(value.charAt(0))
+                || !Character.isJavaIdentifierPart(value.charAt(length - 1))) {
+            return false;
+        }
+        boolean qualified = false;
+        for (int i = 1; i < length - 1; i++) {
+            final char c = value.charAt(i);
+            if (c == '.' || c == '/') {
+                qualified = true;
+            } else if (!Character.isJavaIdentifierPart(c)) {
+                return false;
+            }
+        }
+        return qualified;
+    }
+
+    private static void skip(final DataInputStream data, final int bytes) throws IOException {
+        for (int skipped = 0; skipped < bytes; ) {
+            final int count = data.skipBytes(bytes - skipped);
+            if (count > 0) {
+                skipped += count;
+            } else {
+                // Only reading tells the end of the stream
+                data.readUnsignedByte();
+                skipped++;
+            }
+        }
+    }
+
+    /**
+     * Strings and class names of a constant pool, by index.
+     */
+    private static final class ConstantPool {
+
+        private final String[] strings;
+        private final int[] classes;
+
+        private ConstantPool(final int count) {
+            this.strings = new String[count];
+            this.classes = new int[count];
+        }
+
+        /**
+         * Reads the constant pool of a class file, and the header preceding it.
+         */
+        private static ConstantPool read(final DataInputStream data) throws IOException {
+            if (data.readInt() != MAGIC) {
+                throw new IOException("Not a class file");
+            }
+            // Minor and major versions
+            data.readInt();
+            final ConstantPool pool = new ConstantPool(data.readUnsignedShort());
+            for (int index = 1; index < pool.strings.length; index++) {
+                final int tag = data.readUnsignedByte();
+                switch (tag) {
+                case CONSTANT_UTF8:
+                    pool.strings[index] = data.readUTF();
+                    break;
+                case CONSTANT_CLASS:
+                    pool.classes[index] = data.readUnsignedShort();
+                    break;
+                case CONSTANT_STRING:
+                case CONSTANT_METHOD_TYPE:
+                case CONSTANT_MODULE:
+                case CONSTANT_PACKAGE:
+                    skip(data, 2);
+                    break;
+                case CONSTANT_METHOD_HANDLE:
+                    skip(data, 3);
+                    break;
+                case CONSTANT_INTEGER:
+                case CONSTANT_FLOAT:
+                case CONSTANT_FIELD_REF:
+                case CONSTANT_METHOD_REF:
+                case CONSTANT_INTERFACE_METHOD_REF:
+                case CONSTANT_NAME_AND_TYPE:
+                case CONSTANT_DYNAMIC:
+                case CONSTANT_INVOKE_DYNAMIC:
+                    skip(data, 4);
+                    break;
+                case CONSTANT_LONG:
+                case CONSTANT_DOUBLE:
+                    skip(data, 8);
+                    // Eight byte constants take two entries
+                    index++;
+                    break;
+                default:
+                    throw new IOException("Unknown constant pool tag " + tag + " at index " + index);
+                }
+            }
+            return pool;
+        }
+    }
+
+    /**
+     * Name, super types and annotations of a class, in internal form.
+     */
+    static final class ClassHeader {
+
+        final String name;
+        final String superName;
+        final String[] interfaces;
+        final String[] annotations;
+        final boolean annotation;
+
+        private ClassHeader(final String name, final String superName, final String[] interfaces,
+                final String[] annotations, final boolean annotation) {
+            this.name = name;
+            this.superName = superName;
+            this.interfaces = interfaces;
+            this.annotations = annotations;
+            this.annotation = annotation;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package org.shrinkwrap.springboot.impl.index;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.ArchivePath;
+import org.jboss.shrinkwrap.api.Node;
+import org.jboss.shrinkwrap.impl.base.path.PathUtil;
+
+/**
+ * Orders the libraries of a Spring Boot archive for the {@code classpath.idx} read by the launcher.
+ *
+ * Libraries with the most recorded class loads come first, so that class lookups find them after probing as few jars
+ * as possible. Libraries without recorded class loads follow, those holding the most classes first, and libraries
+ * holding the same number of classes keep their order in the archive.
+ */
+public class ClassPathIndex {
+
+    /**
+     * Name of the file listing the libraries, stored next to the classes directory.
+     */
+    public static final String CLASSPATH_INDEX = "classpath.idx";
+
+    private final String librariesPrefix;
+    private final Map<String, Long> classLoads;
+
+    /**
+     * Creates the index of the libraries stored under the specified path.
+     *
+     * @param librariesPath
+     *            path holding the libraries
+     * @param classLoads
+     *            number of classes loaded from each library during a recorded run, by library file name; may be empty
+     */
+    public ClassPathIndex(final ArchivePath librariesPath, final Map<String, Long> classLoads) {
+        this.librariesPrefix = PathUtil.optionallyAppendSlash(
+                PathUtil.optionallyRemovePrecedingSlash(librariesPath.get()));
+        this.classLoads = new HashMap<>(classLoads);
+    }
+
+    /**
+     * Returns the names of the libraries of the archive, in class path order.
+     *
+     * @param archive
+     *            archive to index
+     * @return the entry names of the libraries, without leading slash
+     * @throws IllegalArgumentException
+     *             if a library cannot be read
+     */
+    public List<String> libraries(final Archive<?> archive) {
+        final List<Library> libraries = new ArrayList<>();
+        for (final Node node : archive.getContent().values()) {
+            final String name = PathUtil.optionallyRemovePrecedingSlash(node.getPath().get());
+            if (node.getAsset() != null && name.startsWith(librariesPrefix)) {
+                final Long loads = classLoads.get(name.substring(name.lastIndexOf('/') + 1));
+                libraries.add(new Library(name, loads == null ? 0 : loads, countClasses(node)));
+            }
+        }
+        Collections.sort(libraries, new Comparator<Library>() {
+            @Override
+            public int compare(final Library first, final Library second) {
+                if (first.classLoads != second.classLoads) {
+                    return first.classLoads > second.classLoads ? -1 : 1;
+                }
+                return Integer.compare(second.classes, first.classes);
+            }
+        });
+
+        final List<String> names = new ArrayList<>(libraries.size());
+        for (final Library library : libraries) {
+            names.add(library.name);
+        }
+        return names;
+    }
+
+    /**
+     * Returns the content of the class path index of the archive.
+     *
+     * @param archive
+     *            archive to index
+     * @return the class path index, in the format read by the Spring Boot launcher
+     * @throws IllegalArgumentException
+     *             if a library cannot be read
+     */
+    public String index(final Archive<?> archive) {
+        final StringBuilder index = new StringBuilder();
+        for (final String library : libraries(archive)) {
+            index.append("- \"").append(library).append("\"\n");
+        }
+        return index.toString();
+    }
+
+    private static int countClasses(final Node node) {
+        int classes = 0;
+        for (final String name : LibraryEntries.names(node)) {
+            if (name.endsWith(LibraryEntries.CLASS_EXTENSION)) {
+                classes++;
+            }
+        }
+        return classes;
+    }
+
+    private static final class Library {
+
+        final String name;
+        final long classLoads;
+        final int classes;
+
+        Library(final String name, final long classLoads, final int classes) {
+            this.name = name;
+            this.classLoads = classLoads;
+            this.classes = classes;
+        }
+    }
+}
@@ -0,0 +1,375 @@
+package org.shrinkwrap.springboot.impl.index;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.ArchivePath;
+import org.jboss.shrinkwrap.api.Node;
+import org.jboss.shrinkwrap.impl.base.path.PathUtil;
+import org.shrinkwrap.springboot.impl.metrics.OperationRecorder;
+
+/**
+ * Finds the application classes and nested libraries of a Spring Boot archive that cannot be reached from a set of
+ * root classes.
+ *
+ * Every class file of the archive and of its libraries is read once, libraries in parallel, for the classes it may
+ * refer to (see {@link ClassFileReader}). The providers registered in {@code META-INF/services} files,
+ * {@code META-INF/spring.factories} and {@code META-INF/spring/*.imports} are reached as soon as the type they are
+ * registered for is. Classes stored outside of the classes directory and of the libraries, such as the launcher, are
+ * always reached, and so are all the classes when the classes directory is the root of the archive. A library is
+ * reached when one of its classes is; libraries holding no class are always kept.
+ */
+public class ClassReachability {
+
+    private static final String MODULE_INFO = "module-info.class";
+    private static final String META_INF = "META-INF/";
+    private static final String VERSIONS = "META-INF/versions/";
+    private static final String SERVICES = "META-INF/services/";
+    private static final String SPRING_FACTORIES = "META-INF/spring.factories";
+    private static final String SPRING_IMPORTS = "META-INF/spring/";
+    private static final String IMPORTS_EXTENSION = ".imports";
+
+    // Holder of the classes that are never pruned
+    private static final int ARCHIVE = -2;
+    // Holder of the application classes
+    private static final int APPLICATION = -1;
+
+    private final Map<String, ClassNode> classes = new HashMap<>();
+    private final Map<String, List<String>> providers = new HashMap<>();
+    private final Map<String, ArchivePath> applicationClasses = new LinkedHashMap<>();
+    private final List<ArchivePath> libraries = new ArrayList<>();
+    private final List<String> alwaysReached = new ArrayList<>();
+    private boolean[] librariesWithClasses;
+
+    private ClassReachability() {
+    }
+
+    /**
+     * Reads the classes of an archive and of the libraries stored under the specified path.
+     *
+     * @param archive
+     *            archive to scan
+     * @param librariesPath
+     *            path holding the libraries
+     * @param classesPath
+     *            path holding the application classes
+     * @param parallelism
+     *            number of threads reading libraries
+     * @param recorder
+     *            recorder of the allocations of those threads
+     * @return the classes of the archive
+     * @throws IllegalArgumentException
+     *             if a class or a library cannot be read
+     */
+    public static ClassReachability scan(final Archive<?> archive, final ArchivePath librariesPath,
+            final ArchivePath classesPath, final int parallelism, final OperationRecorder recorder) {
+        final String librariesPrefix = prefix(librariesPath);
+        // Classes at the root of the archive are never pruned
+        final String classesPrefix = classesPath.getParent() == null ? null : prefix(classesPath);
+        final List<Node> archiveNodes = new ArrayList<>();
+        final List<Node> applicationNodes = new ArrayList<>();
+        final List<Node> libraryNodes = new ArrayList<>();
+        for (final Node node : archive.getContent().values()) {
+            if (node.getAsset() == null) {
+                continue;
+            }
+            final String name = PathUtil.optionallyRemovePrecedingSlash(node.getPath().get());
+            if (name.startsWith(librariesPrefix)) {
+                libraryNodes.add(node);
+            } else if (classesPrefix != null && name.startsWith(classesPrefix)) {
+                applicationNodes.add(node);
+            } else {
+                archiveNodes.add(node);
+            }
+        }
+
+        final ClassReachability reachability = new ClassReachability();
+        final ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            final List<ForkJoinTask<Scan>> tasks = new ArrayList<>(libraryNodes.size() + 2);
+            tasks.add(pool.submit(() -> measured(recorder, () -> scanEntries(ARCHIVE, archiveNodes, ""))));
+            tasks.add(pool.submit(() -> measured(recorder,
+                    () -> scanEntries(APPLICATION, applicationNodes, classesPrefix))));
+            for (int index = 0; index < libraryNodes.size(); index++) {
+                final int holder = index;
+                final Node node = libraryNodes.get(index);
+                reachability.libraries.add(node.getPath());
+                tasks.add(pool.submit(() -> measured(recorder, () -> scanLibrary(holder, node))));
+            }
+            reachability.librariesWithClasses = new boolean[libraryNodes.size()];
+            for (final ForkJoinTask<Scan> task : tasks) {
+                reachability.add(join(task));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return reachability;
+    }
+
+    /**
+     * Returns the application classes and libraries that cannot be reached from the root classes, nor from the
+     * classes of the root packages.
+     *
+     * @param rootClasses
+     *            names of the classes reached, in internal form
+     * @param rootPackages
+     *            names of the packages whose classes, subpackages included, are reached, in internal form
+     * @return the paths of the application classes, then of the libraries, that are not reached, in archive order
+     */
+    public List<ArchivePath> unreachable(final Collection<String> rootClasses, final Collection<String> rootPackages) {
+        final Deque<String> pending = new ArrayDeque<>(rootClasses);
+        pending.addAll(alwaysReached);
+        for (final String rootPackage : rootPackages) {
+            final String prefix = PathUtil.optionallyAppendSlash(rootPackage);
+            for (final String name : classes.keySet()) {
+                if (name.startsWith(prefix)) {
+                    pending.add(name);
+                }
+            }
+        }
+
+        final Set<String> reached = new HashSet<>();
+        final boolean[] reachedLibraries = new boolean[libraries.size()];
+        while (!pending.isEmpty()) {
+            final String name = pending.pop();
+            if (!reached.add(name)) {
+                continue;
+            }
+            final List<String> registered = providers.get(name);
+            if (registered != null) {
+                pending.addAll(registered);
+            }
+            final ClassNode node = classes.get(name);
+            if (node == null) {
+                continue;
+            }
+            for (final int holder : node.holders) {
+                if (holder >= 0) {
+                    reachedLibraries[holder] = true;
+                }
+            }
+            pending.addAll(Arrays.asList(node.references));
+        }
+
+        final List<ArchivePath> unreachable = new ArrayList<>();
+        for (final Map.Entry<String, ArchivePath> applicationClass : applicationClasses.entrySet()) {
+            if (!reached.contains(applicationClass.getKey())) {
+                unreachable.add(applicationClass.getValue());
+            }
+        }
+        for (int index = 0; index < libraries.size(); index++) {
+            if (librariesWithClasses[index] && !reachedLibraries[index]) {
+                unreachable.add(libraries.get(index));
+            }
+        }
+        return unreachable;
+    }
+
+    private void add(final Scan scan) {
+        for (final Map.Entry<String, String[]> entry : scan.classes.entrySet()) {
+            final String name = entry.getKey();
+            final ClassNode node = classes.get(name);
+            if (node == null) {
+                classes.put(name, new ClassNode(scan.holder, entry.getValue()));
+            } else {
+                node.add(scan.holder, entry.getValue());
+            }
+            if (scan.holder == ARCHIVE) {
+                alwaysReached.add(name);
+            } else if (scan.holder >= 0) {
+                librariesWithClasses[scan.holder] = true;
+            }
+        }
+        applicationClasses.putAll(scan.applicationClasses);
+        for (final Map.Entry<String, List<String>> registered : scan.providers.entrySet()) {
+            List<String> names = providers.get(registered.getKey());
+            if (names == null) {
+                names = new ArrayList<>();
+                providers.put(registered.getKey(), names);
+            }
+            names.addAll(registered.getValue());
+        }
+    }
+
+    private static Scan scanEntries(final int holder, final List<Node> nodes, final String prefix)
+            throws IOException {
+        final Scan scan = new Scan(holder);
+        for (final Node node : nodes) {
+            final String name = PathUtil.optionallyRemovePrecedingSlash(node.getPath().get()).substring(prefix.length());
+            if (scan.accepts(name)) {
+                try (InputStream in = node.getAsset().openStream()) {
+                    final String className = scan.read(name, in);
+                    if (holder == APPLICATION && className != null) {
+                        scan.applicationClasses.put(className, node.getPath());
+                    }
+                } catch (final IOException e) {
+                    throw new IOException("Entry cannot be read: " + node.getPath().get(), e);
+                }
+            }
+        }
+        return scan;
+    }
+
+    private static Scan scanLibrary(final int holder, final Node node) throws IOException {
+        final Scan library = new Scan(holder);
+        try {
+            LibraryEntries.read(node, library::accepts, library::read);
+        } catch (final IOException e) {
+            throw new IOException("Library cannot be read: " + node.getPath().get(), e);
+        }
+        return library;
+    }
+
+    private static Scan measured(final OperationRecorder recorder, final ScanTask task) throws IOException {
+        final long allocated = OperationRecorder.threadAllocatedBytes();
+        try {
+            return task.scan();
+        } finally {
+            recorder.addAllocatedBytes(OperationRecorder.threadAllocatedBytes() - allocated);
+        }
+    }
+
+    private static Scan join(final ForkJoinTask<Scan> task) {
+        try {
+            return task.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reading classes", e);
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalArgumentException(cause.getMessage(), cause);
+        }
+    }
+
+    private static String prefix(final ArchivePath path) {
+        return PathUtil.optionallyAppendSlash(PathUtil.optionallyRemovePrecedingSlash(path.get()));
+    }
+
+    private interface ScanTask {
+
+        Scan scan() throws IOException;
+    }
+
+    /**
+     * Classes and providers read on one thread, merged once all are read.
+     */
+    private static final class Scan {
+
+        private final int holder;
+        private final Map<String, String[]> classes = new HashMap<>();
+        private final Map<String, ArchivePath> applicationClasses = new LinkedHashMap<>();
+        private final Map<String, List<String>> providers = new HashMap<>();
+
+        private Scan(final int holder) {
+            this.holder = holder;
+        }
+
+        private boolean accepts(final String name) {
+            if (name.endsWith(LibraryEntries.CLASS_EXTENSION)) {
+                return !name.endsWith(MODULE_INFO) && (!name.startsWith(META_INF) || name.startsWith(VERSIONS));
+            }
+            return name.startsWith(SERVICES) && name.indexOf('/', SERVICES.length()) < 0
+                    || name.equals(SPRING_FACTORIES)
+                    || name.startsWith(SPRING_IMPORTS) && name.endsWith(IMPORTS_EXTENSION);
+        }
+
+        /**
+         * Reads an accepted entry.
+         *
+         * @return the internal name of the class read, or null if the entry registers providers
+         */
+        private String read(final String name, final InputStream in) throws IOException {
+            if (name.endsWith(LibraryEntries.CLASS_EXTENSION)) {
+                String className = name.substring(0, name.length() - LibraryEntries.CLASS_EXTENSION.length());
+                if (className.startsWith(VERSIONS)) {
+                    // Multi-release classes replace the class of the same name
+                    className = className.substring(className.indexOf('/', VERSIONS.length()) + 1);
+                }
+                final Set<String> references = new HashSet<>();
+                ClassFileReader.references(in, references);
+                final String[] previous = classes.get(className);
+                if (previous != null) {
+                    references.addAll(Arrays.asList(previous));
+                }
+                classes.put(className, references.toArray(new String[references.size()]));
+                return className;
+            }
+            if (name.equals(SPRING_FACTORIES)) {
+                final Properties factories = new Properties();
+                factories.load(in);
+                for (final String type : factories.stringPropertyNames()) {
+                    for (final String provider : factories.getProperty(type).split(",")) {
+                        addProvider(type, provider);
+                    }
+                }
+                return null;
+            }
+            final String type = name.startsWith(SERVICES) ? name.substring(SERVICES.length())
+                    : name.substring(SPRING_IMPORTS.length(), name.length() - IMPORTS_EXTENSION.length());
+            final BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            for (String line; (line = reader.readLine()) != null; ) {
+                final int comment = line.indexOf('#');
+                addProvider(type, comment < 0 ? line : line.substring(0, comment));
+            }
+            return null;
+        }
+
+        private void addProvider(final String type, final String provider) {
+            final String name = provider.trim();
+            if (name.isEmpty()) {
+                return;
+            }
+            final String key = type.trim().replace('.', '/');
+            List<String> names = providers.get(key);
+            if (names == null) {
+                names = new ArrayList<>();
+                providers.put(key, names);
+            }
+            names.add(name.replace('.', '/'));
+        }
+    }
+
+    private static final class ClassNode {
+
+        private int[] holders;
+        private String[] references;
+
+        private ClassNode(final int holder, final String[] references) {
+            this.holders = new int[] { holder };
+            this.references = references;
+        }
+
+        private void add(final int holder, final String[] moreReferences) {
+            holders = Arrays.copyOf(holders, holders.length + 1);
+            holders[holders.length - 1] = holder;
+            final Set<String> merged = new HashSet<>(Arrays.asList(references));
+            merged.addAll(Arrays.asList(moreReferences));
+            references = merged.toArray(new String[merged.size()]);
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package org.shrinkwrap.springboot.impl.index;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.ArchivePath;
+import org.jboss.shrinkwrap.api.Node;
+import org.jboss.shrinkwrap.impl.base.path.PathUtil;
+import org.shrinkwrap.springboot.impl.index.ClassFileReader.ClassHeader;
+
+/**
+ * Lists the candidate components of the application classes of a Spring Boot archive in a
+ * {@code META-INF/spring.components} file, as the {@code spring-context-indexer} annotation processor does at compile
+ * time, so that Spring reads the candidates from the index instead of scanning the class path at startup.
+ *
+ * Only the name, super types and annotations of every class file are read, without loading it: the application
+ * classes split between threads, and the libraries, where annotations and super types are resolved, in parallel. A
+ * class is a candidate for the annotations meta-annotated with {@code @Indexed} it carries, directly or through other
+ * annotations, for its super types annotated with {@code @Indexed}, and for its {@code javax} and {@code jakarta}
+ * annotations; an annotated {@code package-info} is a candidate for {@code package-info}. Candidates are sorted by
+ * name, so the index only changes when classes do.
+ */
+public class ComponentIndex {
+
+    /**
+     * Name of the file listing the candidate components, stored at the root of the classes path.
+     */
+    public static final String COMPONENTS_INDEX = "META-INF/spring.components";
+
+    private static final String INDEXED = "org/springframework/stereotype/Indexed";
+    private static final String[] STANDARD_PACKAGES = { "javax/", "jakarta/" };
+    private static final String PACKAGE_INFO = "package-info";
+    private static final String META_INF = "META-INF/";
+    private static final String MODULE_INFO = "module-info.class";
+
+    private final String librariesPrefix;
+    private final String classesPrefix;
+    private final int parallelism;
+
+    /**
+     * Creates the index of the application classes stored under the specified path.
+     *
+     * @param librariesPath
+     *            path holding the libraries
+     * @param classesPath
+     *            path holding the application classes
+     * @param parallelism
+     *            number of threads reading classes
+     */
+    public ComponentIndex(final ArchivePath librariesPath, final ArchivePath classesPath, final int parallelism) {
+        this.librariesPrefix = prefix(librariesPath);
+        this.classesPrefix = classesPath.getParent() == null ? "" : prefix(classesPath);
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Returns the content of the component index of the archive.
+     *
+     * @param archive
+     *            archive to index
+     * @return the component index, one {@code class=stereotype,...} line per candidate
+     * @throws IllegalArgumentException
+     *             if a class or a library cannot be read
+     */
+    public String index(final Archive<?> archive) {
+        final List<Node> applicationNodes = new ArrayList<>();
+        final List<Node> libraryNodes = new ArrayList<>();
+        for (final Node node : archive.getContent().values()) {
+            if (node.getAsset() == null) {
+                continue;
+            }
+            final String name = PathUtil.optionallyRemovePrecedingSlash(node.getPath().get());
+            if (name.startsWith(librariesPrefix)) {
+                libraryNodes.add(node);
+            } else if (name.startsWith(classesPrefix) && accepts(name.substring(classesPrefix.length()))) {
+                applicationNodes.add(node);
+            }
+        }
+
+        final Map<String, ClassHeader> applicationClasses = new HashMap<>();
+        final Map<String, ClassHeader> libraryClasses = new HashMap<>();
+        final ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            final List<ForkJoinTask<Map<String, ClassHeader>>> applicationTasks = new ArrayList<>();
+            final int chunk = Math.max(1, (applicationNodes.size() + parallelism - 1) / parallelism);
+            for (int start = 0; start < applicationNodes.size(); start += chunk) {
+                final List<Node> nodes = applicationNodes.subList(start,
+                        Math.min(start + chunk, applicationNodes.size()));
+                applicationTasks.add(pool.submit(() -> readClasses(nodes)));
+            }
+            final List<ForkJoinTask<Map<String, ClassHeader>>> libraryTasks = new ArrayList<>();
+            for (final Node node : libraryNodes) {
+                libraryTasks.add(pool.submit(() -> readLibrary(node)));
+            }
+            for (final ForkJoinTask<Map<String, ClassHeader>> task : applicationTasks) {
+                applicationClasses.putAll(join(task));
+            }
+            // The first library holding a class defines it, as on the class path
+            for (final ForkJoinTask<Map<String, ClassHeader>> task : libraryTasks) {
+                for (final Map.Entry<String, ClassHeader> header : join(task).entrySet()) {
+                    if (!libraryClasses.containsKey(header.getKey())) {
+                        libraryClasses.put(header.getKey(), header.getValue());
+                    }
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        final Types types = new Types(applicationClasses, libraryClasses);
+        final Map<String, Set<String>> candidates = new TreeMap<>();
+        for (final ClassHeader header : applicationClasses.values()) {
+            final Set<String> stereotypes = types.stereotypes(header);
+            if (!stereotypes.isEmpty()) {
+                final String name = header.name.endsWith("/" + PACKAGE_INFO)
+                        ? header.name.substring(0, header.name.length() - PACKAGE_INFO.length() - 1) : header.name;
+                candidates.put(name.replace('/', '.'), stereotypes);
+            }
+        }
+
+        final StringBuilder index = new StringBuilder();
+        for (final Map.Entry<String, Set<String>> candidate : candidates.entrySet()) {
+            index.append(candidate.getKey()).append('=');
+            String separator = "";
+            for (final String stereotype : candidate.getValue()) {
+                index.append(separator).append(stereotype);
+                separator = ",";
+            }
+            index.append('\n');
+        }
+        return index.toString();
+    }
+
+    private static boolean accepts(final String name) {
+        return name.endsWith(LibraryEntries.CLASS_EXTENSION) && !name.startsWith(META_INF)
+                && !name.endsWith(MODULE_INFO);
+    }
+
+    private static Map<String, ClassHeader> readClasses(final List<Node> nodes) throws IOException {
+        final Map<String, ClassHeader> headers = new HashMap<>();
+        for (final Node node : nodes) {
+            try (InputStream in = node.getAsset().openStream()) {
+                final ClassHeader header = ClassFileReader.header(in);
+                headers.put(header.name, header);
+            } catch (final IOException e) {
+                throw new IOException("Class cannot be read: " + node.getPath().get(), e);
+            }
+        }
+        return headers;
+    }
+
+    private static Map<String, ClassHeader> readLibrary(final Node node) throws IOException {
+        final Map<String, ClassHeader> headers = new HashMap<>();
+        try {
+            LibraryEntries.read(node, ComponentIndex::accepts, (name, in) -> {
+                final ClassHeader header = ClassFileReader.header(in);
+                if (!headers.containsKey(header.name)) {
+                    headers.put(header.name, header);
+                }
+            });
+        } catch (final IOException e) {
+            throw new IOException("Library cannot be read: " + node.getPath().get(), e);
+        }
+        return headers;
+    }
+
+    private static Map<String, ClassHeader> join(final ForkJoinTask<Map<String, ClassHeader>> task) {
+        try {
+            return task.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reading classes", e);
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalArgumentException(cause.getMessage(), cause);
+        }
+    }
+
+    private static String prefix(final ArchivePath path) {
+        return PathUtil.optionallyAppendSlash(PathUtil.optionallyRemovePrecedingSlash(path.get()));
+    }
+
+    /**
+     * Classes of the application and of its libraries, resolving stereotypes as the annotation processor of Spring.
+     */
+    private static final class Types {
+
+        private final Map<String, ClassHeader> applicationClasses;
+        private final Map<String, ClassHeader> libraryClasses;
+
+        private Types(final Map<String, ClassHeader> applicationClasses,
+                final Map<String, ClassHeader> libraryClasses) {
+            this.applicationClasses = applicationClasses;
+            this.libraryClasses = libraryClasses;
+        }
+
+        private Set<String> stereotypes(final ClassHeader header) {
+            final Set<String> stereotypes = new TreeSet<>();
+            if (header.name.endsWith("/" + PACKAGE_INFO) || header.name.equals(PACKAGE_INFO)) {
+                if (header.annotations.length > 0) {
+                    stereotypes.add(PACKAGE_INFO);
+                }
+                return stereotypes;
+            }
+            if (header.annotation) {
+                // Annotation types are never candidates
+                return stereotypes;
+            }
+            for (final String annotation : header.annotations) {
+                for (final String standardPackage : STANDARD_PACKAGES) {
+                    if (annotation.startsWith(standardPackage)) {
+                        stereotypes.add(annotation.replace('/', '.'));
+                    }
+                }
+            }
+            addAnnotationStereotypes(header, new HashSet<String>(), stereotypes);
+            addTypeStereotypes(header, new HashSet<String>(), stereotypes);
+            return stereotypes;
+        }
+
+        /**
+         * Adds the annotations of a type, and of its annotations, that are annotated with {@code @Indexed}.
+         */
+        private void addAnnotationStereotypes(final ClassHeader header, final Set<String> seen,
+                final Set<String> stereotypes) {
+            for (final String annotation : header.annotations) {
+                if (!seen.add(annotation)) {
+                    continue;
+                }
+                final ClassHeader annotationHeader = get(annotation);
+                if (annotationHeader == null) {
+                    continue;
+                }
+                if (isIndexed(annotationHeader)) {
+                    stereotypes.add(annotation.replace('/', '.'));
+                }
+                addAnnotationStereotypes(annotationHeader, seen, stereotypes);
+            }
+        }
+
+        /**
+         * Adds a type and its super types that are annotated with {@code @Indexed}.
+         */
+        private void addTypeStereotypes(final ClassHeader header, final Set<String> seen,
+                final Set<String> stereotypes) {
+            if (!seen.add(header.name)) {
+                return;
+            }
+            if (isIndexed(header)) {
+                stereotypes.add(header.name.replace('/', '.'));
+            }
+            final List<String> superTypes = new ArrayList<>();
+            if (header.superName != null) {
+                superTypes.add(header.superName);
+            }
+            for (final String superType : header.interfaces) {
+                superTypes.add(superType);
+            }
+            for (final String superType : superTypes) {
+                final ClassHeader superHeader = get(superType);
+                if (superHeader != null) {
+                    addTypeStereotypes(superHeader, seen, stereotypes);
+                }
+            }
+        }
+
+        private static boolean isIndexed(final ClassHeader header) {
+            for (final String annotation : header.annotations) {
+                if (annotation.equals(INDEXED)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private ClassHeader get(final String name) {
+            final ClassHeader header = applicationClasses.get(name);
+            return header == null ? libraryClasses.get(name) : header;
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package org.shrinkwrap.springboot.impl.index;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.ArchivePath;
+import org.jboss.shrinkwrap.api.Node;
+import org.jboss.shrinkwrap.impl.base.path.PathUtil;
+
+/**
+ * Merges the {@code META-INF/spring.factories}, {@code META-INF/spring-autoconfigure-metadata.properties},
+ * {@code META-INF/services/*} and {@code META-INF/spring/*.imports} files of the application classes and of every
+ * nested library into a single index, so that a launcher can answer the enumerations of those resources without
+ * probing every library of the class path.
+ *
+ * The index starts with a {@code FactoriesIndex-Version} header, followed by one block per resource name, sorted,
+ * separated by blank lines: the resource name, then its merged content, one line per entry. The application classes
+ * come first, then the libraries in archive order. Factories are merged by type, without duplicates, autoconfigure
+ * metadata by key, later files overriding earlier ones as Spring Boot does, and services and imports list every
+ * provider once, without comments.
+ */
+public class FactoriesIndex {
+
+    /**
+     * Name of the file merging the factories and services, stored at the root of the classes path.
+     */
+    public static final String FACTORIES_INDEX = "META-INF/factories.idx";
+
+    private static final String HEADER = "FactoriesIndex-Version: 1.0\n";
+    private static final String SPRING_FACTORIES = "META-INF/spring.factories";
+    private static final String AUTOCONFIGURE_METADATA = "META-INF/spring-autoconfigure-metadata.properties";
+    private static final String SERVICES = "META-INF/services/";
+    private static final String SPRING_IMPORTS = "META-INF/spring/";
+    private static final String IMPORTS_EXTENSION = ".imports";
+
+    private final String librariesPrefix;
+    private final String classesPrefix;
+
+    /**
+     * Creates the index of the classes and libraries stored under the specified paths.
+     *
+     * @param librariesPath
+     *            path holding the libraries
+     * @param classesPath
+     *            path holding the application classes
+     */
+    public FactoriesIndex(final ArchivePath librariesPath, final ArchivePath classesPath) {
+        this.librariesPrefix = prefix(librariesPath);
+        this.classesPrefix = classesPath.getParent() == null ? "" : prefix(classesPath);
+    }
+
+    /**
+     * Returns whether a resource is merged by the index.
+     *
+     * @param name
+     *            name of the resource, without leading slash
+     * @return true if the resource is merged
+     */
+    public static boolean isIndexed(final String name) {
+        return name.equals(SPRING_FACTORIES) || name.equals(AUTOCONFIGURE_METADATA)
+                || name.startsWith(SERVICES) && name.length() > SERVICES.length()
+                        && name.indexOf('/', SERVICES.length()) < 0
+                || name.startsWith(SPRING_IMPORTS) && name.endsWith(IMPORTS_EXTENSION);
+    }
+
+    /**
+     * Returns the content of the factories index of the archive.
+     *
+     * @param archive
+     *            archive to index
+     * @return the factories index
+     * @throws IllegalArgumentException
+     *             if a resource or a library cannot be read
+     */
+    public String index(final Archive<?> archive) {
+        final List<Node> libraries = new ArrayList<>();
+        final Map<String, Map<String, Set<String>>> factories = new TreeMap<>();
+        final Map<String, Map<String, String>> properties = new TreeMap<>();
+        final Map<String, Set<String>> providers = new TreeMap<>();
+        try {
+            for (final Node node : archive.getContent().values()) {
+                if (node.getAsset() == null) {
+                    continue;
+                }
+                final String name = PathUtil.optionallyRemovePrecedingSlash(node.getPath().get());
+                if (name.startsWith(librariesPrefix)) {
+                    libraries.add(node);
+                } else if (name.startsWith(classesPrefix) && isIndexed(name.substring(classesPrefix.length()))) {
+                    try (InputStream in = node.getAsset().openStream()) {
+                        merge(name.substring(classesPrefix.length()), in, factories, properties, providers);
+                    }
+                }
+            }
+            for (final Node library : libraries) {
+                try {
+                    LibraryEntries.read(library, FactoriesIndex::isIndexed,
+                            (name, in) -> merge(name, in, factories, properties, providers));
+                } catch (final IOException e) {
+                    throw new IllegalArgumentException("Library cannot be read: " + library.getPath().get(), e);
+                }
+            }
+        } catch (final IOException e) {
+            throw new IllegalArgumentException("Application resources cannot be read", e);
+        }
+
+        final Map<String, List<String>> blocks = new TreeMap<>();
+        for (final Map.Entry<String, Map<String, Set<String>>> resource : factories.entrySet()) {
+            final List<String> lines = new ArrayList<>();
+            for (final Map.Entry<String, Set<String>> type : resource.getValue().entrySet()) {
+                lines.add(escape(type.getKey()) + "=" + escape(String.join(",", type.getValue())));
+            }
+            blocks.put(resource.getKey(), lines);
+        }
+        for (final Map.Entry<String, Map<String, String>> resource : properties.entrySet()) {
+            final List<String> lines = new ArrayList<>();
+            for (final Map.Entry<String, String> property : resource.getValue().entrySet()) {
+                lines.add(escape(property.getKey()) + "=" + escape(property.getValue()));
+            }
+            blocks.put(resource.getKey(), lines);
+        }
+        for (final Map.Entry<String, Set<String>> resource : providers.entrySet()) {
+            blocks.put(resource.getKey(), new ArrayList<>(resource.getValue()));
+        }
+
+        final StringBuilder index = new StringBuilder(HEADER);
+        for (final Map.Entry<String, List<String>> block : blocks.entrySet()) {
+            index.append('\n').append(block.getKey()).append('\n');
+            for (final String line : block.getValue()) {
+                index.append(line).append('\n');
+            }
+        }
+        return index.toString();
+    }
+
+    private static void merge(final String name, final InputStream in,
+            final Map<String, Map<String, Set<String>>> factories, final Map<String, Map<String, String>> properties,
+            final Map<String, Set<String>> providers) throws IOException {
+        if (name.equals(SPRING_FACTORIES)) {
+            final Properties loaded = new Properties();
+            loaded.load(in);
+            Map<String, Set<String>> types = factories.get(name);
+            if (types == null) {
+                types = new TreeMap<>();
+                factories.put(name, types);
+            }
+            for (final String type : loaded.stringPropertyNames()) {
+                Set<String> names = types.get(type.trim());
+                if (names == null) {
+                    names = new LinkedHashSet<>();
+                    types.put(type.trim(), names);
+                }
+                for (final String factory : loaded.getProperty(type).split(",")) {
+                    if (!factory.trim().isEmpty()) {
+                        names.add(factory.trim());
+                    }
+                }
+            }
+        } else if (name.equals(AUTOCONFIGURE_METADATA)) {
+            final Properties loaded = new Properties();
+            loaded.load(in);
+            Map<String, String> merged = properties.get(name);
+            if (merged == null) {
+                merged = new TreeMap<>();
+                properties.put(name, merged);
+            }
+            for (final String key : loaded.stringPropertyNames()) {
+                merged.put(key, loaded.getProperty(key));
+            }
+        } else {
+            Set<String> names = providers.get(name);
+            if (names == null) {
+                names = new LinkedHashSet<>();
+                providers.put(name, names);
+            }
+            final BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            for (String line; (line = reader.readLine()) != null; ) {
+                final int comment = line.indexOf('#');
+                final String provider = (comment < 0 ? line : line.substring(0, comment)).trim();
+                if (!provider.isEmpty()) {
+                    names.add(provider);
+                }
+            }
+        }
+    }
+
+    /**
+     * Escapes a key or value of a properties line, keeping it ASCII.
+     */
+    private static String escape(final String value) {
+        final StringBuilder escaped = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+            case '\\':
+            case '=':
+            case ':':
+            case '#':
+            case '!':
+            case ' ':
+                escaped.append('\\').append(c);
+                break;
+            case '\n':
+                escaped.append("\\n");
+                break;
+            case '\r':
+                escaped.append("\\r");
+                break;
+            case '\t':
+                escaped.append("\\t");
+                break;
+            default:
+                if (c > 0x7E) {
+                    // Properties files are read as ISO 8859-1
+                    escaped.append(String.format("\\u%04x", (int) c));
+                } else {
+                    escaped.append(c);
+                }
+            }
+        }
+        return escaped.toString();
+    }
+
+    private static String prefix(final ArchivePath path) {
+        return PathUtil.optionallyAppendSlash(PathUtil.optionallyRemovePrecedingSlash(path.get()));
+    }
+}
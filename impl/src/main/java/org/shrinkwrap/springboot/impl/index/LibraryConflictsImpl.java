@@ -0,0 +1,65 @@
+package org.shrinkwrap.springboot.impl.index;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.shrinkwrap.springboot.api.library.LibraryConflicts;
+
+/**
+ * Implementation of the {@link LibraryConflicts} interface
+ */
+public class LibraryConflictsImpl implements LibraryConflicts {
+
+    private static final int DESCRIBED_DUPLICATES = 10;
+
+    private final Map<String, List<String>> duplicateEntries;
+    private final Map<String, List<String>> conflictingVersions;
+    private final List<String> deletedLibraries;
+
+    public LibraryConflictsImpl(final Map<String, List<String>> duplicateEntries,
+            final Map<String, List<String>> conflictingVersions, final List<String> deletedLibraries) {
+        this.duplicateEntries = Collections.unmodifiableMap(duplicateEntries);
+        this.conflictingVersions = Collections.unmodifiableMap(conflictingVersions);
+        this.deletedLibraries = Collections.unmodifiableList(deletedLibraries);
+    }
+
+    @Override
+    public Map<String, List<String>> getDuplicateEntries() {
+        return duplicateEntries;
+    }
+
+    @Override
+    public Map<String, List<String>> getConflictingVersions() {
+        return conflictingVersions;
+    }
+
+    @Override
+    public List<String> getDeletedLibraries() {
+        return deletedLibraries;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return duplicateEntries.isEmpty() && conflictingVersions.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder description = new StringBuilder()
+                .append(conflictingVersions.size()).append(" conflicting versions, ")
+                .append(duplicateEntries.size()).append(" duplicate entries");
+        for (final Map.Entry<String, List<String>> artifact : conflictingVersions.entrySet()) {
+            description.append("\n  ").append(artifact.getKey()).append(": ").append(artifact.getValue());
+        }
+        int described = 0;
+        for (final Map.Entry<String, List<String>> entry : duplicateEntries.entrySet()) {
+            if (described++ == DESCRIBED_DUPLICATES) {
+                description.append("\n  ...");
+                break;
+            }
+            description.append("\n  ").append(entry.getKey()).append(": ").append(entry.getValue());
+        }
+        return description.toString();
+    }
+}
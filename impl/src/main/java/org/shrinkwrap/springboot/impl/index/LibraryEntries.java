@@ -0,0 +1,198 @@
+package org.shrinkwrap.springboot.impl.index;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.function.Predicate;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import org.jboss.shrinkwrap.api.ArchivePaths;
+import org.jboss.shrinkwrap.api.Node;
+import org.jboss.shrinkwrap.api.asset.ArchiveAsset;
+import org.jboss.shrinkwrap.api.asset.Asset;
+import org.jboss.shrinkwrap.api.asset.FileAsset;
+import org.jboss.shrinkwrap.impl.base.path.PathUtil;
+
+/**
+ * Lists the entries of a nested library without exporting it: libraries built with ShrinkWrap are listed from their
+ * content, library files from their central directory, and only other assets are streamed.
+ */
+final class LibraryEntries {
+
+    static final String CLASS_EXTENSION = ".class";
+
+    private LibraryEntries() {
+    }
+
+    /**
+     * Returns the names of the entries of a library, without leading slash, directories ending with a slash.
+     *
+     * @param node
+     *            node holding the library
+     * @return the entry names
+     * @throws IllegalArgumentException
+     *             if the library cannot be read
+     */
+    static List<String> names(final Node node) {
+        final Asset asset = node.getAsset();
+        final List<String> names = new ArrayList<>();
+        if (asset instanceof ArchiveAsset) {
+            for (final Node entry : ((ArchiveAsset) asset).getArchive().getContent().values()) {
+                // Directories are named as ZIP entries, with a trailing slash
+                final String name = PathUtil.optionallyRemovePrecedingSlash(entry.getPath().get());
+                names.add(entry.getAsset() == null ? PathUtil.optionallyAppendSlash(name) : name);
+            }
+            return names;
+        }
+        try {
+            if (asset instanceof FileAsset) {
+                try (ZipFile zip = new ZipFile(((FileAsset) asset).getSource())) {
+                    for (final ZipEntry entry : Collections.list(zip.entries())) {
+                        names.add(entry.getName());
+                    }
+                }
+                return names;
+            }
+            try (InputStream in = asset.openStream(); ZipInputStream zip = new ZipInputStream(in)) {
+                for (ZipEntry entry; (entry = zip.getNextEntry()) != null; ) {
+                    names.add(entry.getName());
+                }
+            }
+            return names;
+        } catch (final IOException e) {
+            throw new IllegalArgumentException("Library cannot be read: " + node.getPath().get(), e);
+        }
+    }
+
+    /**
+     * Reads the files of a library, directories excluded, in library order.
+     *
+     * @param node
+     *            node holding the library
+     * @param reader
+     *            reader of the files
+     * @throws IOException
+     *             if the library, or one of its files, cannot be read
+     */
+    static void read(final Node node, final EntryReader reader) throws IOException {
+        read(node, name -> true, reader);
+    }
+
+    /**
+     * Reads the files of a library accepted by a filter, in library order. Files that are not accepted are not opened.
+     *
+     * @param node
+     *            node holding the library
+     * @param filter
+     *            filter of the names of the files to read, without leading slash
+     * @param reader
+     *            reader of the files
+     * @throws IOException
+     *             if the library, or one of its files, cannot be read
+     */
+    static void read(final Node node, final Predicate<String> filter, final EntryReader reader) throws IOException {
+        final Asset asset = node.getAsset();
+        if (asset instanceof ArchiveAsset) {
+            for (final Node entry : ((ArchiveAsset) asset).getArchive().getContent().values()) {
+                final String name = PathUtil.optionallyRemovePrecedingSlash(entry.getPath().get());
+                if (entry.getAsset() != null && filter.test(name)) {
+                    try (InputStream in = entry.getAsset().openStream()) {
+                        reader.read(name, in);
+                    }
+                }
+            }
+            return;
+        }
+        if (asset instanceof FileAsset) {
+            try (ZipFile zip = new ZipFile(((FileAsset) asset).getSource())) {
+                for (final ZipEntry entry : Collections.list(zip.entries())) {
+                    if (!entry.isDirectory() && filter.test(entry.getName())) {
+                        try (InputStream in = zip.getInputStream(entry)) {
+                            reader.read(entry.getName(), in);
+                        }
+                    }
+                }
+            }
+            return;
+        }
+        try (InputStream in = asset.openStream(); ZipInputStream zip = new ZipInputStream(in)) {
+            for (ZipEntry entry; (entry = zip.getNextEntry()) != null; ) {
+                if (!entry.isDirectory() && filter.test(entry.getName())) {
+                    reader.read(entry.getName(), zip);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads an entry of a library as properties.
+     *
+     * @param node
+     *            node holding the library
+     * @param name
+     *            name of the entry, without leading slash
+     * @return the properties, empty if the library does not hold the entry
+     * @throws IllegalArgumentException
+     *             if the library cannot be read
+     */
+    static Properties properties(final Node node, final String name) {
+        final Asset asset = node.getAsset();
+        final Properties properties = new Properties();
+        try {
+            if (asset instanceof ArchiveAsset) {
+                final Node entry = ((ArchiveAsset) asset).getArchive().get(ArchivePaths.create(name));
+                if (entry != null && entry.getAsset() != null) {
+                    try (InputStream in = entry.getAsset().openStream()) {
+                        properties.load(in);
+                    }
+                }
+                return properties;
+            }
+            if (asset instanceof FileAsset) {
+                try (ZipFile zip = new ZipFile(((FileAsset) asset).getSource())) {
+                    final ZipEntry entry = zip.getEntry(name);
+                    if (entry != null) {
+                        try (InputStream in = zip.getInputStream(entry)) {
+                            properties.load(in);
+                        }
+                    }
+                }
+                return properties;
+            }
+            try (InputStream in = asset.openStream(); ZipInputStream zip = new ZipInputStream(in)) {
+                for (ZipEntry entry; (entry = zip.getNextEntry()) != null; ) {
+                    if (entry.getName().equals(name)) {
+                        properties.load(zip);
+                        break;
+                    }
+                }
+            }
+            return properties;
+        } catch (final IOException e) {
+            throw new IllegalArgumentException("Library cannot be read: " + node.getPath().get(), e);
+        }
+    }
+
+    /**
+     * Reader of the files of a library.
+     */
+    interface EntryReader {
+
+        /**
+         * Reads a file of a library.
+         *
+         * @param name
+         *            name of the file, without leading slash
+         * @param in
+         *            content of the file, closed once read
+         * @throws IOException
+         *             if the file cannot be read
+         */
+        void read(String name, InputStream in) throws IOException;
+    }
+}
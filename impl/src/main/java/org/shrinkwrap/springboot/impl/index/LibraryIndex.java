@@ -0,0 +1,265 @@
+package org.shrinkwrap.springboot.impl.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.ArchivePath;
+import org.jboss.shrinkwrap.api.Node;
+import org.jboss.shrinkwrap.impl.base.path.PathUtil;
+
+/**
+ * Maps the classes and resources of the nested libraries of a Spring Boot archive to the libraries holding them, to
+ * find duplicate entries and artifacts bundled in several versions.
+ *
+ * The index is built in a single pass over the entry names of the libraries, read from their content or central
+ * directory, costing one hash lookup per entry; only the entries held by more than one library are mapped to a list of
+ * libraries. Directories, {@code module-info.class} and the entries under {@code META-INF} are not indexed.
+ */
+public class LibraryIndex {
+
+    private static final String META_INF = "META-INF/";
+    private static final String MODULE_INFO = "module-info.class";
+    private static final Pattern POM_PROPERTIES = Pattern.compile("META-INF/maven/[^/]+/[^/]+/pom\\.properties");
+    private static final Pattern VERSIONED_FILE_NAME = Pattern.compile("(.+?)-(\\d[^/]*)\\.jar");
+
+    private final List<Library> libraries = new ArrayList<>();
+    private final Map<String, Integer> owners = new HashMap<>();
+    private final Map<String, List<Integer>> duplicates = new LinkedHashMap<>();
+
+    private LibraryIndex() {
+    }
+
+    /**
+     * Indexes the libraries stored under the specified path of an archive.
+     *
+     * @param librariesPath
+     *            path holding the libraries
+     * @param archive
+     *            archive to index
+     * @return the index of the libraries
+     * @throws IllegalArgumentException
+     *             if a library cannot be read
+     */
+    public static LibraryIndex of(final ArchivePath librariesPath, final Archive<?> archive) {
+        final LibraryIndex index = new LibraryIndex();
+        final Node librariesNode = archive.get(librariesPath);
+        if (librariesNode != null) {
+            index.addLibraries(librariesNode);
+        }
+        return index;
+    }
+
+    private void addLibraries(final Node directory) {
+        for (final Node node : directory.getChildren()) {
+            if (node.getAsset() == null) {
+                addLibraries(node);
+            } else {
+                addLibrary(node);
+            }
+        }
+    }
+
+    private void addLibrary(final Node node) {
+        final Integer index = libraries.size();
+        final Library library = new Library(PathUtil.optionallyRemovePrecedingSlash(node.getPath().get()));
+        libraries.add(library);
+
+        final List<String> names = LibraryEntries.names(node);
+        String pomProperties = null;
+        int pomPropertiesCount = 0;
+        for (final String name : names) {
+            if (name.startsWith(META_INF)) {
+                if (POM_PROPERTIES.matcher(name).matches()) {
+                    pomProperties = name;
+                    pomPropertiesCount++;
+                }
+                continue;
+            }
+            if (name.endsWith("/") || name.equals(MODULE_INFO)) {
+                continue;
+            }
+            library.entries++;
+            final Integer owner = owners.get(name);
+            if (owner == null) {
+                owners.put(name, index);
+            } else if (!owner.equals(index)) {
+                List<Integer> holders = duplicates.get(name);
+                if (holders == null) {
+                    holders = new ArrayList<>(Collections.singletonList(owner));
+                    duplicates.put(name, holders);
+                }
+                if (!holders.get(holders.size() - 1).equals(index)) {
+                    holders.add(index);
+                    library.duplicated++;
+                }
+            }
+        }
+        if (library.entries > 0 && library.duplicated == library.entries) {
+            // Only libraries all entries of which are held by earlier ones may be redundant
+            library.names = names;
+        }
+
+        if (pomPropertiesCount == 1) {
+            final Properties properties = LibraryEntries.properties(node, pomProperties);
+            final String groupId = properties.getProperty("groupId");
+            final String artifactId = properties.getProperty("artifactId");
+            final String version = properties.getProperty("version");
+            if (groupId != null && artifactId != null && version != null) {
+                library.artifact = groupId + ":" + artifactId;
+                library.version = version;
+                return;
+            }
+        }
+        final Matcher fileName = VERSIONED_FILE_NAME.matcher(library.name.substring(library.name.lastIndexOf('/') + 1));
+        if (fileName.matches()) {
+            library.artifact = fileName.group(1);
+            library.version = fileName.group(2);
+        }
+    }
+
+    /**
+     * Returns the libraries holding an entry, in archive order.
+     *
+     * @param name
+     *            name of the class or resource, without leading slash
+     * @return the entry names of the libraries holding it, empty if none does
+     */
+    public List<String> librariesOf(final String name) {
+        final List<Integer> holders = duplicates.get(name);
+        if (holders != null) {
+            return namesOf(holders);
+        }
+        final Integer owner = owners.get(name);
+        return owner == null ? Collections.<String>emptyList()
+                : Collections.singletonList(libraries.get(owner).name);
+    }
+
+    /**
+     * Returns the entries held by more than one library, with the libraries holding them.
+     *
+     * @return the entry names of the libraries holding each duplicate entry, by entry name
+     */
+    public Map<String, List<String>> duplicateEntries() {
+        final Map<String, List<String>> entries = new LinkedHashMap<>();
+        for (final Map.Entry<String, List<Integer>> entry : duplicates.entrySet()) {
+            entries.put(entry.getKey(), namesOf(entry.getValue()));
+        }
+        return entries;
+    }
+
+    /**
+     * Returns the artifacts bundled in more than one version, with the libraries holding them.
+     *
+     * @return the entry names of the libraries of each artifact bundled in several versions, by artifact
+     */
+    public Map<String, List<String>> conflictingVersions() {
+        final Map<String, List<Library>> artifacts = new LinkedHashMap<>();
+        for (final Library library : libraries) {
+            if (library.artifact != null) {
+                List<Library> versions = artifacts.get(library.artifact);
+                if (versions == null) {
+                    versions = new ArrayList<>();
+                    artifacts.put(library.artifact, versions);
+                }
+                versions.add(library);
+            }
+        }
+
+        final Map<String, List<String>> conflicts = new LinkedHashMap<>();
+        for (final Map.Entry<String, List<Library>> artifact : artifacts.entrySet()) {
+            final Set<String> versions = new HashSet<>();
+            final List<String> names = new ArrayList<>();
+            for (final Library library : artifact.getValue()) {
+                versions.add(library.version);
+                names.add(library.name);
+            }
+            if (versions.size() > 1) {
+                conflicts.put(artifact.getKey(), names);
+            }
+        }
+        return conflicts;
+    }
+
+    /**
+     * Returns the libraries conflicting with the ones coming before them in archive order: other versions of an
+     * artifact of an earlier library, and libraries all entries of which are held by earlier libraries that are not
+     * redundant themselves.
+     *
+     * @return the entry names of the redundant libraries, in archive order
+     */
+    public List<String> redundantLibraries() {
+        final Map<String, String> keptVersions = new HashMap<>();
+        final boolean[] redundant = new boolean[libraries.size()];
+        final List<String> names = new ArrayList<>();
+        for (int index = 0; index < libraries.size(); index++) {
+            final Library library = libraries.get(index);
+            final String keptVersion = library.artifact == null ? null : keptVersions.get(library.artifact);
+            // Libraries of the same version may differ by classifier, so they are only redundant if shadowed
+            redundant[index] = keptVersion != null && !keptVersion.equals(library.version)
+                    || library.names != null && isShadowed(library, index, redundant);
+            if (redundant[index]) {
+                names.add(library.name);
+            } else if (keptVersion == null && library.artifact != null) {
+                keptVersions.put(library.artifact, library.version);
+            }
+        }
+        return names;
+    }
+
+    private boolean isShadowed(final Library library, final int index, final boolean[] redundant) {
+        for (final String name : library.names) {
+            final List<Integer> holders = duplicates.get(name);
+            if (holders == null) {
+                // Not indexed
+                continue;
+            }
+            boolean kept = false;
+            for (final Integer holder : holders) {
+                if (holder >= index) {
+                    break;
+                }
+                if (!redundant[holder]) {
+                    kept = true;
+                    break;
+                }
+            }
+            if (!kept) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private List<String> namesOf(final List<Integer> indexes) {
+        final String[] names = new String[indexes.size()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = libraries.get(indexes.get(i)).name;
+        }
+        return Arrays.asList(names);
+    }
+
+    private static final class Library {
+
+        private final String name;
+        private int entries;
+        private int duplicated;
+        private List<String> names;
+        private String artifact;
+        private String version;
+
+        private Library(final String name) {
+            this.name = name;
+        }
+    }
+}
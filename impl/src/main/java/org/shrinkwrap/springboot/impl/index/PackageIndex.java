@@ -0,0 +1,107 @@
+package org.shrinkwrap.springboot.impl.index;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.ArchivePath;
+import org.jboss.shrinkwrap.api.Node;
+import org.jboss.shrinkwrap.impl.base.path.PathUtil;
+
+/**
+ * Maps the packages of a Spring Boot archive to the classes directory and the nested libraries defining classes in
+ * them, in the spirit of the {@code META-INF/INDEX.LIST} of the JAR specification, so that a launcher can load a class
+ * from the right nested archive instead of probing every one of them in turn.
+ *
+ * The index starts with a {@code JarIndex-Version} header, followed by one block per nested archive holding classes,
+ * separated by blank lines: the entry name of the classes directory or library, then one package per line, as a path.
+ * Classes in the default package or under {@code META-INF} are not indexed.
+ */
+public class PackageIndex {
+
+    /**
+     * Name of the file mapping packages to nested archives, stored next to the classes directory.
+     */
+    public static final String PACKAGES_INDEX = "packages.idx";
+
+    private static final String HEADER = "JarIndex-Version: 1.0\n";
+    private static final String META_INF = "META-INF/";
+
+    private final String librariesPrefix;
+    private final String classesPrefix;
+
+    /**
+     * Creates the index of the classes and libraries stored under the specified paths.
+     *
+     * @param librariesPath
+     *            path holding the libraries
+     * @param classesPath
+     *            path holding the application classes
+     */
+    public PackageIndex(final ArchivePath librariesPath, final ArchivePath classesPath) {
+        this.librariesPrefix = prefix(librariesPath);
+        this.classesPrefix = prefix(classesPath);
+    }
+
+    /**
+     * Returns the content of the package index of the archive. The classes directory comes first, then the libraries
+     * in archive order.
+     *
+     * @param archive
+     *            archive to index
+     * @return the package index
+     * @throws IllegalArgumentException
+     *             if a library cannot be read
+     */
+    public String index(final Archive<?> archive) {
+        final Map<String, Set<String>> packages = new LinkedHashMap<>();
+        final Set<String> applicationPackages = new LinkedHashSet<>();
+        packages.put(classesPrefix, applicationPackages);
+
+        for (final Node node : archive.getContent().values()) {
+            final String name = PathUtil.optionallyRemovePrecedingSlash(node.getPath().get());
+            if (node.getAsset() == null) {
+                continue;
+            }
+            if (name.startsWith(librariesPrefix)) {
+                packages.put(name, packagesOf(LibraryEntries.names(node)));
+            } else if (name.startsWith(classesPrefix)) {
+                addPackage(applicationPackages, name.substring(classesPrefix.length()));
+            }
+        }
+
+        final StringBuilder index = new StringBuilder(HEADER);
+        for (final Map.Entry<String, Set<String>> entry : packages.entrySet()) {
+            if (entry.getValue().isEmpty()) {
+                continue;
+            }
+            index.append('\n').append(entry.getKey()).append('\n');
+            for (final String packageName : entry.getValue()) {
+                index.append(packageName).append('\n');
+            }
+        }
+        return index.toString();
+    }
+
+    private static Set<String> packagesOf(final List<String> names) {
+        final Set<String> packages = new LinkedHashSet<>();
+        for (final String name : names) {
+            addPackage(packages, name);
+        }
+        return packages;
+    }
+
+    private static void addPackage(final Set<String> packages, final String className) {
+        final int slash = className.lastIndexOf('/');
+        if (slash > 0 && className.endsWith(LibraryEntries.CLASS_EXTENSION) && !className.startsWith(META_INF)) {
+            packages.add(className.substring(0, slash));
+        }
+    }
+
+    private static String prefix(final ArchivePath path) {
+        return PathUtil.optionallyAppendSlash(PathUtil.optionallyRemovePrecedingSlash(path.get()));
+    }
+}
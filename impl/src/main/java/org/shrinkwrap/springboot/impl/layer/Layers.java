@@ -0,0 +1,159 @@
+package org.shrinkwrap.springboot.impl.layer;
+
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.ArchivePath;
+import org.jboss.shrinkwrap.api.ArchivePaths;
+import org.jboss.shrinkwrap.api.Node;
+import org.jboss.shrinkwrap.impl.base.path.PathUtil;
+import org.shrinkwrap.springboot.api.layer.SpringBootLayer;
+import org.shrinkwrap.springboot.impl.SpringBootManifest;
+
+/**
+ * Classifies the entries of a Spring Boot archive into {@link SpringBootLayer}s.
+ *
+ * Libraries go to the dependency layers, entries under the directory holding the classes and the libraries (BOOT-INF
+ * or WEB-INF) and under META-INF go to the application layer, and everything else is the launcher. Layouts keeping
+ * the classes at the root of the archive cannot tell the launcher from the application, so they are not supported.
+ */
+public class Layers {
+
+    /**
+     * Name of the file listing the layers, stored next to the classes directory.
+     */
+    public static final String LAYERS_INDEX = "layers.idx";
+
+    private static final String META_INF = "META-INF/";
+    private static final String SNAPSHOT = "SNAPSHOT";
+
+    private final String librariesPrefix;
+    private final String classesPrefix;
+    private final String indexesPrefix;
+
+    private Layers(final ArchivePath librariesPath, final ArchivePath classesPath) {
+        final ArchivePath indexesPath = classesPath.getParent();
+        if (indexesPath == null) {
+            throw new UnsupportedOperationException("Layers are not supported when classes are stored at "
+                    + classesPath.get());
+        }
+        this.librariesPrefix = prefix(librariesPath);
+        this.classesPrefix = prefix(classesPath);
+        this.indexesPrefix = prefix(indexesPath);
+    }
+
+    /**
+     * Creates the layers of an archive using the specified paths.
+     *
+     * @param librariesPath
+     *            path holding the libraries
+     * @param classesPath
+     *            path holding the application classes
+     * @return the layers
+     * @throws UnsupportedOperationException
+     *             if the classes are stored at the root of the archive
+     */
+    public static Layers of(final ArchivePath librariesPath, final ArchivePath classesPath) {
+        return new Layers(librariesPath, classesPath);
+    }
+
+    /**
+     * Creates the layers of an archive using the paths declared in its Spring Boot manifest.
+     *
+     * @param archive
+     *            archive with a Spring Boot manifest
+     * @return the layers
+     * @throws IllegalArgumentException
+     *             if the archive has no Spring Boot manifest
+     * @throws UnsupportedOperationException
+     *             if the classes are stored at the root of the archive
+     */
+    public static Layers fromManifest(final Archive<?> archive) {
+        final SpringBootManifest manifest = SpringBootManifest.read(archive);
+        return of(manifest.getLibrariesPath(), manifest.getClassesPath());
+    }
+
+    /**
+     * Returns the path of the layers index in the archive.
+     *
+     * @return the path of the layers index
+     */
+    public ArchivePath getIndexPath() {
+        return ArchivePaths.create(indexesPrefix, LAYERS_INDEX);
+    }
+
+    /**
+     * Returns the layer of the entry with the specified name.
+     *
+     * @param name
+     *            entry name, without leading slash
+     * @return the layer of the entry
+     */
+    public SpringBootLayer getLayer(final String name) {
+        if (name.startsWith(librariesPrefix)) {
+            return name.contains(SNAPSHOT) ? SpringBootLayer.SNAPSHOT_DEPENDENCIES : SpringBootLayer.DEPENDENCIES;
+        }
+        if (name.startsWith(indexesPrefix) || name.startsWith(META_INF)) {
+            return SpringBootLayer.APPLICATION;
+        }
+        return SpringBootLayer.SPRING_BOOT_LOADER;
+    }
+
+    /**
+     * Returns the content of the layers index of the archive: libraries are listed one by one, and other entries by
+     * the shortest prefix that does not mix layers.
+     *
+     * @param archive
+     *            archive to index
+     * @return the layers index, in the format read by the Spring Boot launcher
+     */
+    public String index(final Archive<?> archive) {
+        final Map<SpringBootLayer, Set<String>> layers = new EnumMap<>(SpringBootLayer.class);
+        for (final SpringBootLayer layer : SpringBootLayer.values()) {
+            layers.put(layer, new LinkedHashSet<String>());
+        }
+        for (final Node node : archive.getContent().values()) {
+            if (node.getAsset() == null) {
+                continue;
+            }
+            final String name = PathUtil.optionallyRemovePrecedingSlash(node.getPath().get());
+            final SpringBootLayer layer = getLayer(name);
+            layers.get(layer).add(indexEntry(name, layer));
+        }
+
+        final StringBuilder index = new StringBuilder();
+        for (final Map.Entry<SpringBootLayer, Set<String>> layer : layers.entrySet()) {
+            index.append("- \"").append(layer.getKey().getLayerName()).append("\":\n");
+            for (final String entry : layer.getValue()) {
+                index.append("  - \"").append(entry).append("\"\n");
+            }
+        }
+        return index.toString();
+    }
+
+    private String indexEntry(final String name, final SpringBootLayer layer) {
+        switch (layer) {
+            case DEPENDENCIES:
+            case SNAPSHOT_DEPENDENCIES:
+                return name;
+            case SPRING_BOOT_LOADER:
+                final int slash = name.indexOf('/');
+                return slash < 0 ? name : name.substring(0, slash + 1);
+            default:
+                if (name.startsWith(classesPrefix)) {
+                    return classesPrefix;
+                }
+                if (name.startsWith(META_INF)) {
+                    return META_INF;
+                }
+                return name;
+        }
+    }
+
+    private static String prefix(final ArchivePath path) {
+        return PathUtil.optionallyAppendSlash(PathUtil.optionallyRemovePrecedingSlash(path.get()));
+    }
+}
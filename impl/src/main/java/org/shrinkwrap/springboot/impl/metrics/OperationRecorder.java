@@ -0,0 +1,142 @@
+package org.shrinkwrap.springboot.impl.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jboss.shrinkwrap.api.asset.Asset;
+import org.jboss.shrinkwrap.api.asset.FileAsset;
+import org.shrinkwrap.springboot.api.metrics.SpringBootBuildListener;
+import org.shrinkwrap.springboot.api.metrics.SpringBootOperation;
+import org.shrinkwrap.springboot.api.metrics.SpringBootOperationMetrics;
+
+/**
+ * Measures one operation, from its creation to {@link #finish(SpringBootOperation, String, long)}.
+ *
+ * Allocations are measured on the calling thread; operations running work on other threads add what those threads
+ * allocated with {@link #addAllocatedBytes(long)}. On JVMs that do not measure allocations per thread, the allocated
+ * bytes are reported as -1.
+ */
+public final class OperationRecorder {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final boolean ALLOCATIONS_MEASURED = isAllocationMeasured();
+
+    private final SpringBootBuildListener listener;
+    private final long start;
+    private final long startAllocatedBytes;
+    private final AtomicLong otherThreadsAllocatedBytes = new AtomicLong();
+    private long entries;
+    private long bytesIn;
+
+    private OperationRecorder(final SpringBootBuildListener listener) {
+        this.listener = listener;
+        this.startAllocatedBytes = threadAllocatedBytes();
+        this.start = System.nanoTime();
+    }
+
+    /**
+     * Starts measuring an operation.
+     *
+     * @param listener
+     *            listener to notify when the operation finishes, may be null
+     * @return the recorder
+     */
+    public static OperationRecorder start(final SpringBootBuildListener listener) {
+        return new OperationRecorder(listener);
+    }
+
+    /**
+     * Counts entries added or written by the operation.
+     *
+     * @param count
+     *            number of entries
+     * @param bytes
+     *            number of bytes read for them
+     */
+    public void addEntries(final long count, final long bytes) {
+        entries += count;
+        bytesIn += bytes;
+    }
+
+    /**
+     * Adds the bytes allocated on another thread on behalf of the operation. May be called from any thread.
+     *
+     * @param bytes
+     *            number of bytes allocated, ignored if negative
+     */
+    public void addAllocatedBytes(final long bytes) {
+        if (bytes > 0) {
+            otherThreadsAllocatedBytes.addAndGet(bytes);
+        }
+    }
+
+    /**
+     * Returns the number of bytes read so far.
+     *
+     * @return the number of bytes read
+     */
+    public long getBytesIn() {
+        return bytesIn;
+    }
+
+    /**
+     * Ends the measure, and notifies the listener.
+     *
+     * @param operation
+     *            measured operation
+     * @param target
+     *            subject of the operation
+     * @param bytesOut
+     *            number of bytes written
+     * @return the metrics of the operation
+     */
+    public SpringBootOperationMetrics finish(final SpringBootOperation operation, final String target,
+            final long bytesOut) {
+        final long wallTime = System.nanoTime() - start;
+        final long allocatedBytes = ALLOCATIONS_MEASURED
+                ? threadAllocatedBytes() - startAllocatedBytes + otherThreadsAllocatedBytes.get() : -1;
+        final SpringBootOperationMetrics metrics = new SpringBootOperationMetricsImpl(operation, target, wallTime,
+                bytesIn, bytesOut, entries, allocatedBytes);
+        if (listener != null) {
+            listener.operationCompleted(metrics);
+        }
+        return metrics;
+    }
+
+    /**
+     * Returns the number of bytes allocated by the current thread since it started, or -1 if not measured.
+     *
+     * @return the number of bytes allocated by the current thread, or -1
+     */
+    public static long threadAllocatedBytes() {
+        if (!ALLOCATIONS_MEASURED) {
+            return -1;
+        }
+        return ((com.sun.management.ThreadMXBean) THREADS).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Returns the size of an asset known without reading it, that is the size of a file asset, or 0.
+     *
+     * @param asset
+     *            asset to size, may be null
+     * @return the size of the asset, or 0
+     */
+    public static long knownSize(final Asset asset) {
+        return asset instanceof FileAsset ? ((FileAsset) asset).getSource().length() : 0;
+    }
+
+    private static boolean isAllocationMeasured() {
+        try {
+            if (!(THREADS instanceof com.sun.management.ThreadMXBean)) {
+                return false;
+            }
+            final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) THREADS;
+            return threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled();
+        } catch (final LinkageError e) {
+            // JVM without the com.sun.management extensions
+            return false;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.shrinkwrap.springboot.impl.metrics;
+
+import org.shrinkwrap.springboot.api.metrics.SpringBootOperation;
+import org.shrinkwrap.springboot.api.metrics.SpringBootOperationMetrics;
+
+/**
+ * Implementation of the {@link SpringBootOperationMetrics} interface
+ */
+public class SpringBootOperationMetricsImpl implements SpringBootOperationMetrics {
+
+    private final SpringBootOperation operation;
+    private final String target;
+    private final long wallTimeNanos;
+    private final long bytesIn;
+    private final long bytesOut;
+    private final long entries;
+    private final long allocatedBytes;
+
+    public SpringBootOperationMetricsImpl(final SpringBootOperation operation, final String target,
+            final long wallTimeNanos, final long bytesIn, final long bytesOut, final long entries,
+            final long allocatedBytes) {
+        this.operation = operation;
+        this.target = target;
+        this.wallTimeNanos = wallTimeNanos;
+        this.bytesIn = bytesIn;
+        this.bytesOut = bytesOut;
+        this.entries = entries;
+        this.allocatedBytes = allocatedBytes;
+    }
+
+    @Override
+    public SpringBootOperation getOperation() {
+        return operation;
+    }
+
+    @Override
+    public String getTarget() {
+        return target;
+    }
+
+    @Override
+    public long getWallTimeNanos() {
+        return wallTimeNanos;
+    }
+
+    @Override
+    public long getBytesIn() {
+        return bytesIn;
+    }
+
+    @Override
+    public long getBytesOut() {
+        return bytesOut;
+    }
+
+    @Override
+    public long getEntries() {
+        return entries;
+    }
+
+    @Override
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    @Override
+    public String toString() {
+        return operation + " " + target + ": " + entries + " entries, " + bytesIn + " bytes in, " + bytesOut
+                + " bytes out, " + wallTimeNanos / 1000000 + " ms, " + allocatedBytes + " bytes allocated";
+    }
+}
@@ -43,6 +43,11 @@ public class SpringBootArchiveImpl extends SpringBootContainerBase<SpringBootArc
         super(SpringBootArchive.class, delegate);
     }
 
+    @Override
+    protected SpringBootLayout getSpringBootLayout() {
+        return layout;
+    }
+
     @Override
     protected String getSpringBootLauncherClass() {
         return layout.getLauncherClassName();
@@ -0,0 +1,175 @@
+package org.shrinkwrap.springboot.impl.web;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.jboss.shrinkwrap.api.asset.Asset;
+import org.jboss.shrinkwrap.api.asset.StringAsset;
+import org.jboss.shrinkwrap.impl.base.Validate;
+import org.shrinkwrap.springboot.impl.metrics.OperationRecorder;
+
+/**
+ * Maps static web resources to names holding a hash of their content, such as {@code js/app.3f9a1c2e.js} for
+ * {@code js/app.js}, so that they can be cached forever: a resource whose content changes gets a new name.
+ *
+ * Resources are hashed with MD5, as by the content version strategy of Spring, streaming their content in chunks, and
+ * the first eight hexadecimal digits of the hash are inserted before the extension. The mapping, relative to the web
+ * path, is stored in a {@code fingerprints.properties} file at the root of the classes path, sorted by logical name so
+ * that the file only changes when resources do.
+ */
+public class Fingerprints {
+
+    /**
+     * Name of the file mapping the logical names of the resources to their fingerprinted names, stored at the root of
+     * the classes path.
+     */
+    public static final String FINGERPRINTS_MANIFEST = "fingerprints.properties";
+
+    private static final int CHUNK_SIZE = 8192;
+    private static final int FINGERPRINT_LENGTH = 8;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final Map<String, String> names = new TreeMap<>();
+    private final Set<String> fingerprintedNames = new HashSet<>();
+
+    private Fingerprints() {
+    }
+
+    /**
+     * Creates an empty mapping.
+     *
+     * @return the mapping
+     */
+    public static Fingerprints empty() {
+        return new Fingerprints();
+    }
+
+    /**
+     * Reads the mapping stored in a {@code fingerprints.properties} file.
+     *
+     * @param manifest
+     *            content of the file
+     * @return the mapping
+     * @throws IllegalArgumentException
+     *             if the manifest is not specified or cannot be read
+     */
+    public static Fingerprints read(final Asset manifest) {
+        Validate.notNull(manifest, "Manifest must be specified");
+        final Properties properties = new Properties();
+        try (InputStream in = manifest.openStream()) {
+            properties.load(in);
+        } catch (final IOException e) {
+            throw new IllegalArgumentException("Fingerprints cannot be read", e);
+        }
+        final Fingerprints fingerprints = new Fingerprints();
+        for (final String name : properties.stringPropertyNames()) {
+            fingerprints.names.put(name, properties.getProperty(name));
+            fingerprints.fingerprintedNames.add(properties.getProperty(name));
+        }
+        return fingerprints;
+    }
+
+    /**
+     * Returns whether a name is the fingerprinted name of a resource, that is whether it was already fingerprinted.
+     *
+     * @param name
+     *            name of the resource, relative to the web path
+     * @return true if the name holds a fingerprint
+     */
+    public boolean isFingerprinted(final String name) {
+        return fingerprintedNames.contains(name);
+    }
+
+    /**
+     * Hashes the content of a resource and maps its name to its fingerprinted name.
+     *
+     * @param name
+     *            name of the resource, relative to the web path
+     * @param resource
+     *            content of the resource
+     * @param recorder
+     *            recorder counting the bytes read
+     * @return the fingerprinted name of the resource, relative to the web path
+     * @throws IllegalArgumentException
+     *             if the resource cannot be read
+     */
+    public String fingerprint(final String name, final Asset resource, final OperationRecorder recorder) {
+        final MessageDigest digest = md5();
+        long read = 0;
+        try (InputStream in = resource.openStream()) {
+            final byte[] chunk = new byte[CHUNK_SIZE];
+            for (int length; (length = in.read(chunk)) != -1; ) {
+                digest.update(chunk, 0, length);
+                read += length;
+            }
+        } catch (final IOException e) {
+            throw new IllegalArgumentException("Web resource cannot be read: " + name, e);
+        }
+        recorder.addEntries(1, read);
+
+        final byte[] hash = digest.digest();
+        final char[] fingerprint = new char[FINGERPRINT_LENGTH];
+        for (int i = 0; i < FINGERPRINT_LENGTH; i++) {
+            final int digit = hash[i / 2] >> (i % 2 == 0 ? 4 : 0);
+            fingerprint[i] = HEX_DIGITS[digit & 0xF];
+        }
+        final int slash = name.lastIndexOf('/');
+        final int dot = name.lastIndexOf('.');
+        final String fingerprinted = dot > slash + 1
+                ? name.substring(0, dot) + '.' + new String(fingerprint) + name.substring(dot)
+                : name + '.' + new String(fingerprint);
+        final String previous = names.put(name, fingerprinted);
+        if (previous != null) {
+            fingerprintedNames.remove(previous);
+        }
+        fingerprintedNames.add(fingerprinted);
+        return fingerprinted;
+    }
+
+    /**
+     * Returns the {@code fingerprints.properties} file holding the mapping, in the encoding of properties files.
+     *
+     * @return the content of the manifest
+     */
+    public Asset asAsset() {
+        final StringBuilder manifest = new StringBuilder();
+        for (final Map.Entry<String, String> name : names.entrySet()) {
+            escape(name.getKey(), manifest);
+            manifest.append('=');
+            escape(name.getValue(), manifest);
+            manifest.append('\n');
+        }
+        return new StringAsset(manifest.toString());
+    }
+
+    private static void escape(final String value, final StringBuilder manifest) {
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == '\\' || c == '=' || c == ':' || c == ' ' || c == '#' || c == '!') {
+                manifest.append('\\').append(c);
+            } else if (c < 0x20 || c > 0x7E) {
+                manifest.append("\\u")
+                        .append(HEX_DIGITS[c >> 12 & 0xF]).append(HEX_DIGITS[c >> 8 & 0xF])
+                        .append(HEX_DIGITS[c >> 4 & 0xF]).append(HEX_DIGITS[c & 0xF]);
+            } else {
+                manifest.append(c);
+            }
+        }
+    }
+
+    private static MessageDigest md5() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (final NoSuchAlgorithmException e) {
+            // Every Java platform supports MD5
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,733 @@
+package org.shrinkwrap.springboot.impl.exporter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.Asset;
+import org.jboss.shrinkwrap.api.asset.ByteArrayAsset;
+import org.jboss.shrinkwrap.api.asset.StringAsset;
+import org.jboss.shrinkwrap.api.exporter.ArchiveExportException;
+import org.jboss.shrinkwrap.api.exporter.FileExistsException;
+import org.jboss.shrinkwrap.api.exporter.ZipExporter;
+import org.jboss.shrinkwrap.api.exporter.ZipStoredExporter;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.shrinkwrap.springboot.api.exporter.SpringBootExporter;
+import org.shrinkwrap.springboot.api.metrics.SpringBootOperation;
+import org.shrinkwrap.springboot.api.metrics.SpringBootOperationMetrics;
+import org.shrinkwrap.springboot.api.spec.SpringBootArchive;
+import org.shrinkwrap.springboot.impl.SpringBootLayoutImpl;
+import org.shrinkwrap.springboot.impl.SpringBootLayouts;
+import org.springboot.Application;
+import org.springboot.HelloController;
+
+public class SpringBootExporterImplTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void should_export_same_entries_as_zip_stored_exporter() throws IOException {
+        final SpringBootArchive archive = prepareArchive();
+        final File expected = new File(temporaryFolder.getRoot(), "expected.jar");
+        archive.as(ZipStoredExporter.class).exportTo(expected);
+
+        final Path actual = temporaryFolder.getRoot().toPath().resolve("app.jar");
+        archive.as(SpringBootExporter.class).exportTo(actual);
+
+        assertThat(entryNames(actual.toFile())).isEqualTo(entryNames(expected));
+    }
+
+    @Test
+    public void should_store_every_entry() throws IOException {
+        final Path target = temporaryFolder.getRoot().toPath().resolve("app.jar");
+        prepareArchive().as(SpringBootExporter.class).exportTo(target);
+
+        try (ZipFile zip = new ZipFile(target.toFile())) {
+            assertThat(Collections.list(zip.entries()))
+                    .extracting("method")
+                    .containsOnly(ZipEntry.STORED);
+            assertThat(read(zip, zip.getEntry("BOOT-INF/classes/static/hello"))).isEqualTo("world");
+        }
+    }
+
+    @Test
+    public void should_deflate_entries_other_than_libraries() throws IOException {
+        final Path library = temporaryFolder.getRoot().toPath().resolve("file-library.jar");
+        ShrinkWrap.create(JavaArchive.class)
+                .addAsResource(new StringAsset("name=file-library"), "file-library.properties")
+                .as(ZipExporter.class)
+                .exportTo(library.toFile());
+        final SpringBootArchive archive = prepareArchive()
+                .addAsLibrary(library)
+                .addAsWebResource(new ByteArrayAsset(new byte[64 * 1024]), "large");
+
+        final Path target = temporaryFolder.getRoot().toPath().resolve("app.jar");
+        archive.as(SpringBootExporter.class).withCompressionLevel(6).exportTo(target);
+
+        assertValidEntries(target.toFile());
+        try (ZipFile zip = new ZipFile(target.toFile())) {
+            final ZipEntry large = zip.getEntry("BOOT-INF/classes/static/large");
+            assertThat(large.getMethod()).isEqualTo(ZipEntry.DEFLATED);
+            assertThat(large.getCompressedSize()).isLessThan(large.getSize());
+            assertThat(zip.getEntry("BOOT-INF/classes/org/springboot/Application.class").getMethod())
+                    .isEqualTo(ZipEntry.DEFLATED);
+            // Compression would make it larger
+            assertThat(zip.getEntry("BOOT-INF/classes/static/hello").getMethod()).isEqualTo(ZipEntry.STORED);
+            assertThat(zip.getEntry("BOOT-INF/lib/library.jar").getMethod()).isEqualTo(ZipEntry.STORED);
+            final ZipEntry fileLibrary = zip.getEntry("BOOT-INF/lib/file-library.jar");
+            assertThat(fileLibrary.getMethod()).isEqualTo(ZipEntry.STORED);
+            assertThat(readBytes(zip, fileLibrary)).isEqualTo(Files.readAllBytes(library));
+            try (ZipInputStream nested = new ZipInputStream(
+                    zip.getInputStream(zip.getEntry("BOOT-INF/lib/library.jar")))) {
+                for (ZipEntry entry; (entry = nested.getNextEntry()) != null; ) {
+                    assertThat(entry.getMethod()).isEqualTo(ZipEntry.STORED);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void should_keep_deflated_entries_when_updating() throws IOException {
+        final Path target = temporaryFolder.getRoot().toPath().resolve("app.jar");
+        final SpringBootArchive archive = prepareArchive();
+        archive.as(SpringBootExporter.class).withCompressionLevel(9).updateTo(target);
+        final ZipCentralDirectory before = centralDirectory(target);
+
+        archive.addAsWebResource(new StringAsset("changed"), "hello");
+        archive.as(SpringBootExporter.class).withCompressionLevel(9).updateTo(target);
+
+        final ZipCentralDirectory after = centralDirectory(target);
+        final String name = "BOOT-INF/classes/org/springboot/Application.class";
+        assertThat(after.get(name).method).isEqualTo(ZipEntry.DEFLATED);
+        assertThat(after.get(name).localHeaderOffset).isEqualTo(before.get(name).localHeaderOffset);
+        assertValidEntries(target.toFile());
+    }
+
+    @Test
+    public void should_write_readable_nested_libraries() throws IOException {
+        final Path target = temporaryFolder.getRoot().toPath().resolve("app.jar");
+        prepareArchive().as(SpringBootExporter.class).exportTo(target);
+
+        try (ZipFile zip = new ZipFile(target.toFile());
+             ZipInputStream nested = new ZipInputStream(zip.getInputStream(zip.getEntry("BOOT-INF/lib/library.jar")))) {
+            ZipEntry entry;
+            final List<String> names = new ArrayList<>();
+            while ((entry = nested.getNextEntry()) != null) {
+                assertThat(entry.getMethod()).isEqualTo(ZipEntry.STORED);
+                names.add(entry.getName());
+            }
+            assertThat(names).contains("library.properties");
+        }
+    }
+
+    @Test
+    public void should_copy_library_files_unchanged() throws IOException {
+        final Path library = temporaryFolder.getRoot().toPath().resolve("file-library.jar");
+        ShrinkWrap.create(JavaArchive.class)
+                .addAsResource(new StringAsset("name=file-library"), "file-library.properties")
+                .as(ZipExporter.class)
+                .exportTo(library.toFile());
+
+        final Path target = temporaryFolder.getRoot().toPath().resolve("app.jar");
+        prepareArchive().addAsLibrary(library).as(SpringBootExporter.class).exportTo(target);
+
+        try (ZipFile zip = new ZipFile(target.toFile())) {
+            final ZipEntry entry = zip.getEntry("BOOT-INF/lib/file-library.jar");
+            assertThat(entry.getMethod()).isEqualTo(ZipEntry.STORED);
+            assertThat(readBytes(zip, entry)).isEqualTo(Files.readAllBytes(library));
+        }
+    }
+
+    @Test
+    public void should_write_same_entries_whatever_the_parallelism() throws IOException {
+        final SpringBootArchive archive = prepareArchive();
+        for (int i = 0; i < 100; i++) {
+            archive.addAsWebResource(new StringAsset("resource " + i), "resource" + i);
+        }
+        final Path sequential = temporaryFolder.getRoot().toPath().resolve("sequential.jar");
+        archive.as(SpringBootExporter.class).withParallelism(1).exportTo(sequential);
+
+        final Path parallel = temporaryFolder.getRoot().toPath().resolve("parallel.jar");
+        archive.as(SpringBootExporter.class).withParallelism(8).exportTo(parallel);
+
+        assertThat(entryCrcs(parallel.toFile())).isEqualTo(entryCrcs(sequential.toFile()));
+    }
+
+    @Test
+    public void should_report_failing_assets() {
+        final SpringBootArchive archive = prepareArchive()
+                .addAsWebResource(new Asset() {
+                    @Override
+                    public InputStream openStream() {
+                        throw new IllegalStateException("unreadable");
+                    }
+                }, "broken");
+
+        try {
+            archive.as(SpringBootExporter.class).withParallelism(4).exportTo(new ByteArrayOutputStream());
+            fail("Export should fail on an unreadable asset");
+        } catch (ArchiveExportException e) {
+            assertThat(e).hasMessageContaining("/BOOT-INF/classes/static/broken");
+        }
+    }
+
+    @Test
+    public void should_copy_unchanged_libraries_from_cache() throws IOException {
+        final Path cache = temporaryFolder.getRoot().toPath().resolve("cache");
+        final Path first = temporaryFolder.getRoot().toPath().resolve("first.jar");
+        prepareArchive().as(SpringBootExporter.class).withCache(cache).exportTo(first);
+
+        final List<Path> cachedLibraries = cachedLibraries(cache);
+        assertThat(cachedLibraries).hasSize(1);
+        assertThat(cache.resolve("index.properties")).exists();
+
+        final Path second = temporaryFolder.getRoot().toPath().resolve("second.jar");
+        prepareArchive().as(SpringBootExporter.class).withCache(cache).exportTo(second);
+
+        assertThat(entryCrcs(second.toFile())).isEqualTo(entryCrcs(first.toFile()));
+        try (ZipFile zip = new ZipFile(second.toFile())) {
+            assertThat(readBytes(zip, zip.getEntry("BOOT-INF/lib/library.jar")))
+                    .isEqualTo(Files.readAllBytes(cachedLibraries.get(0)));
+        }
+    }
+
+    @Test
+    public void should_evict_replaced_libraries_from_cache() throws IOException {
+        final Path cache = temporaryFolder.getRoot().toPath().resolve("cache");
+        prepareArchive().as(SpringBootExporter.class).withCache(cache)
+                .exportTo(temporaryFolder.getRoot().toPath().resolve("first.jar"));
+        final List<Path> replaced = cachedLibraries(cache);
+        assertThat(replaced).hasSize(1);
+
+        prepareArchive()
+                .addAsLibrary(ShrinkWrap.create(JavaArchive.class, "library.jar")
+                        .addAsResource(new StringAsset("name=changed"), "library.properties"))
+                .as(SpringBootExporter.class).withCache(cache)
+                .exportTo(temporaryFolder.getRoot().toPath().resolve("second.jar"));
+
+        assertThat(cachedLibraries(cache)).hasSize(1).doesNotContain(replaced.get(0));
+        final String digest = replaced.get(0).getFileName().toString().replace(".jar", "");
+        assertThat(new String(Files.readAllBytes(cache.resolve("index.properties")), StandardCharsets.ISO_8859_1))
+                .doesNotContain(digest);
+    }
+
+    @Test
+    public void should_checksum_changed_library_files_again() throws IOException {
+        final Path cache = temporaryFolder.getRoot().toPath().resolve("cache");
+        final Path library = temporaryFolder.getRoot().toPath().resolve("file-library.jar");
+        Files.write(library, "first".getBytes("UTF-8"));
+        prepareArchive().addAsLibrary(library).as(SpringBootExporter.class).withCache(cache)
+                .exportTo(temporaryFolder.getRoot().toPath().resolve("first.jar"));
+
+        Files.write(library, "second version".getBytes("UTF-8"));
+        Files.setLastModifiedTime(library, FileTime.fromMillis(System.currentTimeMillis() + 60000));
+        final Path target = temporaryFolder.getRoot().toPath().resolve("second.jar");
+        prepareArchive().addAsLibrary(library).as(SpringBootExporter.class).withCache(cache).exportTo(target);
+
+        try (ZipFile zip = new ZipFile(target.toFile())) {
+            assertThat(read(zip, zip.getEntry("BOOT-INF/lib/file-library.jar"))).isEqualTo("second version");
+        }
+    }
+
+    @Test
+    public void should_update_changed_entries_in_place() throws IOException {
+        final Path target = temporaryFolder.getRoot().toPath().resolve("app.jar");
+        final SpringBootArchive archive = prepareArchive();
+        archive.as(SpringBootExporter.class).updateTo(target);
+        final byte[] original = Files.readAllBytes(target);
+        final ZipCentralDirectory before = centralDirectory(target);
+
+        archive.addAsWebResource(new StringAsset("changed"), "hello")
+                .addAsWebResource(new StringAsset("added"), "added");
+        archive.as(SpringBootExporter.class).updateTo(target);
+
+        final byte[] updated = Files.readAllBytes(target);
+        final int dataLength = (int) before.getOffset();
+        assertThat(Arrays.copyOf(updated, dataLength)).isEqualTo(Arrays.copyOf(original, dataLength));
+        final ZipCentralDirectory after = centralDirectory(target);
+        for (String name : Arrays.asList("BOOT-INF/lib/library.jar",
+                "BOOT-INF/classes/org/springboot/Application.class")) {
+            assertThat(after.get(name).localHeaderOffset).as(name).isEqualTo(before.get(name).localHeaderOffset);
+        }
+        assertValidEntries(target.toFile());
+        try (ZipFile zip = new ZipFile(target.toFile())) {
+            assertThat(read(zip, zip.getEntry("BOOT-INF/classes/static/hello"))).isEqualTo("changed");
+            assertThat(read(zip, zip.getEntry("BOOT-INF/classes/static/added"))).isEqualTo("added");
+        }
+    }
+
+    @Test
+    public void should_leave_target_readable_when_update_fails() throws IOException {
+        final Path target = temporaryFolder.getRoot().toPath().resolve("app.jar");
+        final SpringBootArchive archive = prepareArchive();
+        archive.as(SpringBootExporter.class).updateTo(target);
+        final byte[] original = Files.readAllBytes(target);
+
+        archive.addAsWebResource(new StringAsset("changed"), "hello")
+                .addAsWebResource(new Asset() {
+                    @Override
+                    public InputStream openStream() {
+                        throw new IllegalStateException("unreadable");
+                    }
+                }, "broken");
+        try {
+            archive.as(SpringBootExporter.class).updateTo(target);
+            fail("Update should fail on an unreadable asset");
+        } catch (ArchiveExportException e) {
+            assertThat(e).hasMessageContaining("/BOOT-INF/classes/static/broken");
+        }
+
+        assertThat(Files.readAllBytes(target)).isEqualTo(original);
+        assertValidEntries(target.toFile());
+        try (ZipFile zip = new ZipFile(target.toFile())) {
+            assertThat(read(zip, zip.getEntry("BOOT-INF/classes/static/hello"))).isEqualTo("world");
+        }
+    }
+
+    @Test
+    public void should_keep_timestamps_of_unchanged_entries() throws IOException {
+        final Path target = temporaryFolder.getRoot().toPath().resolve("app.jar");
+        final SpringBootArchive archive = prepareArchive();
+        archive.addAsWebResource(new ByteArrayAsset(new byte[64 * 1024]), "large");
+        archive.as(SpringBootExporter.class).exportTo(target);
+        // 1 January 1990, so the entries cannot be told apart from new ones by accident
+        final int time = 10 << 25 | 1 << 21 | 1 << 16;
+        stampEntries(target, time);
+
+        final byte[] large = new byte[64 * 1024];
+        large[0] = 1;
+        archive.addAsWebResource(new ByteArrayAsset(large), "large");
+        // The first update is made in place, the second one compacts the archive
+        for (int i = 0; i < 2; i++) {
+            archive.as(SpringBootExporter.class).updateTo(target);
+
+            final ZipCentralDirectory directory = centralDirectory(target);
+            for (String name : Arrays.asList("BOOT-INF/lib/library.jar",
+                    "BOOT-INF/classes/org/springboot/Application.class")) {
+                assertThat(directory.get(name).dosTime).as(name).isEqualTo(time);
+                assertThat(localDosTime(target, directory.get(name))).as(name).isEqualTo(time);
+            }
+            final ZipCentralDirectory.Entry changed = directory.get("BOOT-INF/classes/static/large");
+            assertThat(changed.dosTime).isNotEqualTo(time);
+            assertThat(localDosTime(target, changed)).isEqualTo(changed.dosTime);
+        }
+    }
+
+    @Test
+    public void should_compact_updated_archive_once_mostly_unreferenced() throws IOException {
+        final Path target = temporaryFolder.getRoot().toPath().resolve("app.jar");
+        final SpringBootArchive archive = prepareArchive();
+        archive.addAsWebResource(new ByteArrayAsset(new byte[64 * 1024]), "large");
+        archive.as(SpringBootExporter.class).exportTo(target);
+
+        final byte[] large = new byte[64 * 1024];
+        large[0] = 1;
+        archive.addAsWebResource(new ByteArrayAsset(large), "large");
+        archive.as(SpringBootExporter.class).updateTo(target);
+        archive.as(SpringBootExporter.class).updateTo(target);
+
+        final Path fresh = temporaryFolder.getRoot().toPath().resolve("fresh.jar");
+        archive.as(SpringBootExporter.class).exportTo(fresh);
+        assertThat(Files.size(target)).isEqualTo(Files.size(fresh));
+        assertThat(entryCrcs(target.toFile())).isEqualTo(entryCrcs(fresh.toFile()));
+        assertValidEntries(target.toFile());
+    }
+
+    @Test
+    public void should_not_update_unreadable_target() throws IOException {
+        final Path target = temporaryFolder.getRoot().toPath().resolve("app.jar");
+        Files.write(target, "not a zip".getBytes("UTF-8"));
+
+        try {
+            prepareArchive().as(SpringBootExporter.class).updateTo(target);
+            fail("Update should fail on a target that is not an archive");
+        } catch (ArchiveExportException e) {
+            assertThat(e).hasMessageContaining(target.toString());
+        }
+        assertThat(new String(Files.readAllBytes(target), "UTF-8")).isEqualTo("not a zip");
+    }
+
+    @Test
+    public void should_export_layers_to_directories() throws IOException {
+        final Path layers = temporaryFolder.getRoot().toPath().resolve("layers");
+        prepareArchive().addLayersIndex().as(SpringBootExporter.class).exportLayersTo(layers);
+
+        assertThat(layers.resolve("dependencies/BOOT-INF/lib/library.jar")).isRegularFile();
+        assertThat(layers.resolve("application/BOOT-INF/classes/org/springboot/Application.class")).isRegularFile();
+        assertThat(layers.resolve("application/BOOT-INF/layers.idx")).isRegularFile();
+        assertThat(layers.resolve("application/META-INF/MANIFEST.MF")).isRegularFile();
+        assertThat(layers.resolve("snapshot-dependencies")).isDirectory();
+        assertThat(layers.resolve("spring-boot-loader")).isDirectory();
+        try (ZipFile library = new ZipFile(layers.resolve("dependencies/BOOT-INF/lib/library.jar").toFile())) {
+            assertThat(read(library, library.getEntry("library.properties"))).isEqualTo("name=library");
+        }
+    }
+
+    @Test
+    public void should_export_layers_to_tar_files() throws IOException {
+        final Path layers = temporaryFolder.getRoot().toPath().resolve("layers");
+        prepareArchive().as(SpringBootExporter.class).exportLayerTarsTo(layers);
+
+        assertThat(tarEntries(layers.resolve("dependencies.tar"))).containsOnly("BOOT-INF/lib/library.jar");
+        assertThat(tarEntries(layers.resolve("application.tar")))
+                .contains("BOOT-INF/classes/org/springboot/Application.class", "BOOT-INF/classes/static/hello",
+                        "META-INF/MANIFEST.MF")
+                .doesNotContain("BOOT-INF/lib/library.jar");
+        assertThat(tarEntries(layers.resolve("snapshot-dependencies.tar"))).isEmpty();
+    }
+
+    @Test
+    public void should_export_exploded_archive_with_launch_descriptor() throws IOException {
+        final Path library = temporaryFolder.getRoot().toPath().resolve("file-library.jar");
+        ShrinkWrap.create(JavaArchive.class)
+                .addAsResource(new StringAsset("name=file-library"), "file-library.properties")
+                .as(ZipExporter.class)
+                .exportTo(library.toFile());
+
+        final Path exploded = temporaryFolder.getRoot().toPath().resolve("exploded");
+        prepareArchive().addAsLibrary(library).as(SpringBootExporter.class).exportExplodedTo(exploded);
+
+        assertThat(exploded.resolve("BOOT-INF/classes/org/springboot/Application.class")).isRegularFile();
+        assertThat(exploded.resolve("BOOT-INF/classes/static/hello")).hasContent("world");
+        assertThat(Files.readAllBytes(exploded.resolve("BOOT-INF/lib/file-library.jar")))
+                .isEqualTo(Files.readAllBytes(library));
+        try (ZipFile nested = new ZipFile(exploded.resolve("BOOT-INF/lib/library.jar").toFile())) {
+            assertThat(read(nested, nested.getEntry("library.properties"))).isEqualTo("name=library");
+        }
+        assertThat(Files.readAllLines(exploded.resolve("launch.args"), StandardCharsets.UTF_8)).containsExactly("-cp",
+                classPath("BOOT-INF/classes", "BOOT-INF/lib/library.jar", "BOOT-INF/lib/file-library.jar"),
+                Application.class.getName());
+        final Path script = exploded.resolve("launch.sh");
+        assertThat(Files.isExecutable(script)).isTrue();
+        assertThat(script).hasContent("#!/bin/sh\n"
+                + "DIR=$(cd \"$(dirname \"$0\")\" && pwd)\n"
+                + "exec \"${JAVA_HOME:+$JAVA_HOME/bin/}java\" $JAVA_OPTS"
+                + " -cp \"$DIR/BOOT-INF/classes:$DIR/BOOT-INF/lib/library.jar:$DIR/BOOT-INF/lib/file-library.jar\""
+                + " \"" + Application.class.getName() + "\" \"$@\"");
+    }
+
+    @Test
+    public void should_launch_classes_stored_at_the_root_of_an_exploded_archive() throws IOException {
+        final Path exploded = temporaryFolder.getRoot().toPath().resolve("exploded");
+        ShrinkWrap.create(SpringBootArchive.class)
+                .setSpringBootLayout(SpringBootLayouts.SPRING_BOOT_10)
+                .addClass(Application.class)
+                .addAsLibrary(ShrinkWrap.create(JavaArchive.class, "library.jar"))
+                .setSpringBootManifest(Application.class.getName())
+                .as(SpringBootExporter.class)
+                .exportExplodedTo(exploded);
+
+        assertThat(exploded.resolve("org/springboot/Application.class")).isRegularFile();
+        assertThat(Files.readAllLines(exploded.resolve("launch.args"), StandardCharsets.UTF_8)).containsExactly("-cp",
+                classPath(".", "lib/library.jar"), Application.class.getName());
+        assertThat(Files.readAllLines(exploded.resolve("launch.sh"), StandardCharsets.UTF_8).get(2))
+                .contains(" -cp \"$DIR:$DIR/lib/library.jar\" ");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void should_not_explode_archive_without_spring_boot_manifest() {
+        ShrinkWrap.create(SpringBootArchive.class)
+                .addClass(Application.class)
+                .as(SpringBootExporter.class)
+                .exportExplodedTo(temporaryFolder.getRoot().toPath());
+    }
+
+    @Test
+    public void should_return_export_metrics() throws IOException {
+        final SpringBootArchive archive = prepareArchive();
+        final List<SpringBootOperationMetrics> reported = new ArrayList<>();
+        final Path target = temporaryFolder.getRoot().toPath().resolve("app.jar");
+
+        final SpringBootOperationMetrics metrics = archive.as(SpringBootExporter.class)
+                .withListener(reported::add)
+                .exportTo(target);
+
+        assertThat(reported).containsExactly(metrics);
+        assertThat(metrics.getOperation()).isEqualTo(SpringBootOperation.EXPORT);
+        assertThat(metrics.getTarget()).isEqualTo(target.toString());
+        assertThat(metrics.getEntries()).isEqualTo(archive.getContent().size());
+        assertThat(metrics.getBytesOut()).isEqualTo(Files.size(target));
+        assertThat(metrics.getBytesIn()).isPositive().isLessThan(metrics.getBytesOut());
+        assertThat(metrics.getWallTimeNanos()).isPositive();
+        assertThat(metrics.getAllocatedBytes()).isNotZero();
+    }
+
+    @Test
+    public void should_count_appended_bytes_of_updates() throws IOException {
+        final SpringBootArchive archive = prepareArchive();
+        final Path target = temporaryFolder.getRoot().toPath().resolve("app.jar");
+        archive.as(SpringBootExporter.class).exportTo(target);
+
+        archive.addAsWebResource(new StringAsset("added"), "added");
+        final SpringBootOperationMetrics metrics = archive.as(SpringBootExporter.class).updateTo(target);
+
+        assertThat(metrics.getBytesOut()).isPositive().isLessThan(Files.size(target));
+        assertThat(metrics.getEntries()).isEqualTo(archive.getContent().size());
+    }
+
+    @Test
+    public void should_train_class_data_sharing_archive() throws IOException {
+        final Path target = temporaryFolder.getRoot().toPath().resolve("app.jar");
+        final Path sharedArchive = ShrinkWrap.create(SpringBootArchive.class)
+                .setSpringBootLayout(new SpringBootLayoutImpl(TrainingLauncher.class.getName(), "/BOOT-INF", null,
+                        "/BOOT-INF/lib", "/BOOT-INF/classes"))
+                .addLauncherClass(TrainingLauncher.class)
+                .setSpringBootManifest(Application.class.getName())
+                .as(SpringBootExporter.class)
+                .exportWithClassDataSharingTo(target, 1, TimeUnit.MINUTES, true);
+
+        assertThat(sharedArchive).isEqualTo(target.resolveSibling("app.jsa").toAbsolutePath());
+        assertThat(Files.size(sharedArchive)).isPositive();
+        assertThat(Files.readAllLines(target.resolveSibling("app.classlist"), StandardCharsets.UTF_8))
+                .contains("java/util/TreeMap");
+        assertThat(new String(Files.readAllBytes(target.resolveSibling("app.sh")), StandardCharsets.UTF_8))
+                .contains("-XX:SharedArchiveFile=\"$DIR/app.jsa\"", "-jar \"$DIR/app.jar\"");
+    }
+
+    @Test
+    public void should_pass_training_arguments_to_the_application() {
+        final Path target = temporaryFolder.getRoot().toPath().resolve("app.jar");
+        final SpringBootArchive archive = ShrinkWrap.create(SpringBootArchive.class)
+                .setSpringBootLayout(new SpringBootLayoutImpl(TrainingLauncher.class.getName(), "/BOOT-INF", null,
+                        "/BOOT-INF/lib", "/BOOT-INF/classes"))
+                .addLauncherClass(TrainingLauncher.class)
+                .setSpringBootManifest(Application.class.getName());
+
+        try {
+            archive.as(SpringBootExporter.class).exportWithClassDataSharingTo(target, 1, TimeUnit.MINUTES, false, "3");
+            fail("Training should fail when the application exits with an error");
+        } catch (ArchiveExportException e) {
+            assertThat(e).hasMessageContaining("JVM exited with 3");
+        }
+    }
+
+    @Test
+    public void should_kill_training_run_ignoring_termination() throws IOException, InterruptedException {
+        final Path target = temporaryFolder.getRoot().toPath().resolve("app.jar");
+        ShrinkWrap.create(SpringBootArchive.class)
+                .setSpringBootLayout(new SpringBootLayoutImpl(StubbornLauncher.class.getName(), "/BOOT-INF", null,
+                        "/BOOT-INF/lib", "/BOOT-INF/classes"))
+                .addLauncherClass(StubbornLauncher.class)
+                .setSpringBootManifest(Application.class.getName())
+                .as(SpringBootExporter.class)
+                .exportTo(target);
+
+        final long start = System.nanoTime();
+        try {
+            new ClassDataSharingTrainer(500).train(target, 1000);
+            fail("Training should fail when the application does not stop");
+        } catch (ArchiveExportException e) {
+            assertThat(e).hasMessageContaining("was killed");
+        }
+        assertThat(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start)).isLessThan(30);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void should_reject_training_time_lower_than_one() {
+        final Path target = temporaryFolder.getRoot().toPath().resolve("app.jar");
+        prepareArchive().as(SpringBootExporter.class).exportWithClassDataSharingTo(target, 0, TimeUnit.SECONDS, false);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void should_reject_parallelism_lower_than_one() {
+        prepareArchive().as(SpringBootExporter.class).withParallelism(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void should_reject_compression_level_greater_than_nine() {
+        prepareArchive().as(SpringBootExporter.class).withCompressionLevel(10);
+    }
+
+    @Test(expected = FileExistsException.class)
+    public void should_not_overwrite_existing_target() throws IOException {
+        final File target = temporaryFolder.newFile("app.jar");
+        prepareArchive().as(SpringBootExporter.class).exportTo(target);
+    }
+
+    /**
+     * Launcher exiting right away, so that training does not wait for the timeout, with the status given as argument.
+     */
+    public static class TrainingLauncher {
+
+        public static void main(String[] args) {
+            // Loads a class the JVM does not load at startup, which the class list must then hold
+            new TreeMap<String, String>();
+            if (args.length > 0) {
+                System.exit(Integer.parseInt(args[0]));
+            }
+        }
+    }
+
+    /**
+     * Launcher running until killed, its shutdown hook blocking the termination requested once training is over.
+     */
+    public static class StubbornLauncher implements Runnable {
+
+        public static void main(String[] args) throws InterruptedException {
+            Runtime.getRuntime().addShutdownHook(new Thread(new StubbornLauncher()));
+            Thread.sleep(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void run() {
+            try {
+                Thread.sleep(Long.MAX_VALUE);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static SpringBootArchive prepareArchive() {
+        final JavaArchive library = ShrinkWrap.create(JavaArchive.class, "library.jar")
+                .addAsResource(new StringAsset("name=library"), "library.properties");
+
+        return ShrinkWrap.create(SpringBootArchive.class)
+                .setSpringBootLayout(SpringBootLayouts.SPRING_BOOT_14)
+                .addClass(Application.class)
+                .addClass(HelloController.class)
+                .addAsLibrary(library)
+                .addAsWebResource(new StringAsset("world"), "hello")
+                .setSpringBootManifest(Application.class.getName());
+    }
+
+    private static String classPath(String... entries) {
+        final StringBuilder classPath = new StringBuilder();
+        for (String entry : entries) {
+            if (classPath.length() > 0) {
+                classPath.append(File.pathSeparatorChar);
+            }
+            classPath.append(entry.replace('/', File.separatorChar));
+        }
+        return classPath.toString();
+    }
+
+    private static List<String> entryNames(File file) throws IOException {
+        try (ZipFile zip = new ZipFile(file)) {
+            final List<String> names = new ArrayList<>();
+            for (ZipEntry entry : Collections.list(zip.entries())) {
+                names.add(entry.getName());
+            }
+            return names;
+        }
+    }
+
+    private static List<Path> cachedLibraries(Path cache) throws IOException {
+        final List<Path> libraries = new ArrayList<>();
+        try (DirectoryStream<Path> jars = Files.newDirectoryStream(cache, "*.jar")) {
+            for (Path jar : jars) {
+                libraries.add(jar);
+            }
+        }
+        return libraries;
+    }
+
+    private static ZipCentralDirectory centralDirectory(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file)) {
+            return ZipCentralDirectory.read(channel);
+        }
+    }
+
+    /**
+     * Overwrites the timestamp of every entry, in its local and its central header.
+     */
+    private static void stampEntries(Path file, int dosTime) throws IOException {
+        final ByteBuffer zip = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+        final int end = zip.capacity() - 22;
+        int position = zip.getInt(end + 16);
+        for (int i = 0; i < (zip.getShort(end + 10) & 0xFFFF); i++) {
+            zip.putInt(position + 12, dosTime);
+            zip.putInt(zip.getInt(position + 42) + 10, dosTime);
+            position += 46 + (zip.getShort(position + 28) & 0xFFFF) + (zip.getShort(position + 30) & 0xFFFF)
+                    + (zip.getShort(position + 32) & 0xFFFF);
+        }
+        Files.write(file, zip.array());
+    }
+
+    private static int localDosTime(Path file, ZipCentralDirectory.Entry entry) throws IOException {
+        final ByteBuffer header = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+        try (FileChannel channel = FileChannel.open(file)) {
+            channel.read(header, entry.localHeaderOffset + 10);
+        }
+        return header.getInt(0);
+    }
+
+    private static void assertValidEntries(File file) throws IOException {
+        try (ZipFile zip = new ZipFile(file)) {
+            for (ZipEntry entry : Collections.list(zip.entries())) {
+                final CRC32 crc = new CRC32();
+                crc.update(readBytes(zip, entry));
+                assertThat(crc.getValue()).as(entry.getName()).isEqualTo(entry.getCrc());
+            }
+        }
+    }
+
+    private static List<String> tarEntries(Path tar) throws IOException {
+        final byte[] content = Files.readAllBytes(tar);
+        final List<String> names = new ArrayList<>();
+        for (int offset = 0; content[offset] != 0; ) {
+            final String name = new String(content, offset, 100, "UTF-8").trim();
+            final String prefix = new String(content, offset + 345, 155, "UTF-8").trim();
+            final long size = Long.parseLong(new String(content, offset + 124, 11, "US-ASCII"), 8);
+            if (content[offset + 156] == '0') {
+                names.add(prefix.isEmpty() ? name : prefix + "/" + name);
+            }
+            offset += 512 + (size + 511) / 512 * 512;
+        }
+        return names;
+    }
+
+    private static Map<String, Long> entryCrcs(File file) throws IOException {
+        try (ZipFile zip = new ZipFile(file)) {
+            final Map<String, Long> crcs = new LinkedHashMap<>();
+            for (ZipEntry entry : Collections.list(zip.entries())) {
+                crcs.put(entry.getName(), entry.getCrc());
+            }
+            return crcs;
+        }
+    }
+
+    private static String read(ZipFile zip, ZipEntry entry) throws IOException {
+        return new String(readBytes(zip, entry), "UTF-8");
+    }
+
+    private static byte[] readBytes(ZipFile zip, ZipEntry entry) throws IOException {
+        try (InputStream input = zip.getInputStream(entry)) {
+            final ByteArrayOutputStream content = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[4096];
+            for (int read; (read = input.read(buffer)) != -1; ) {
+                content.write(buffer, 0, read);
+            }
+            return content.toByteArray();
+        }
+    }
+}
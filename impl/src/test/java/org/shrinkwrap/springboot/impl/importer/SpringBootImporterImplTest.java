@@ -0,0 +1,190 @@
+package org.shrinkwrap.springboot.impl.importer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.jboss.shrinkwrap.api.ArchivePath;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.Asset;
+import org.jboss.shrinkwrap.api.asset.StringAsset;
+import org.jboss.shrinkwrap.api.importer.ArchiveImportException;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.shrinkwrap.springboot.api.exporter.SpringBootExporter;
+import org.shrinkwrap.springboot.api.importer.SpringBootImporter;
+import org.shrinkwrap.springboot.api.spec.SpringBootArchive;
+import org.shrinkwrap.springboot.impl.SpringBootLayouts;
+import org.shrinkwrap.springboot.impl.asset.MappedEntryAsset;
+import org.springboot.Application;
+import org.springboot.HelloController;
+
+public class SpringBootImporterImplTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void should_import_every_entry_lazily() throws IOException {
+        final Path source = exportSource();
+
+        final SpringBootArchive imported = ShrinkWrap.create(SpringBootArchive.class);
+        imported.as(SpringBootImporter.class).importFrom(source);
+
+        final List<String> names = new ArrayList<>();
+        for (final ArchivePath path : imported.getContent().keySet()) {
+            names.add(path.get().substring(1));
+        }
+        assertThat(names).containsOnlyElementsOf(entryNames(source, true))
+                .containsAll(entryNames(source, false));
+        final Asset library = imported.get("/BOOT-INF/lib/library.jar").getAsset();
+        assertThat(library).isInstanceOf(MappedEntryAsset.class);
+        assertThat(((MappedEntryAsset) library).isDeflated()).isFalse();
+        final Asset application = imported.get("/BOOT-INF/classes/org/springboot/Application.class").getAsset();
+        assertThat(((MappedEntryAsset) application).isDeflated()).isTrue();
+        assertThat(read(imported.get("/BOOT-INF/classes/static/hello").getAsset())).isEqualTo("world");
+        try (ZipFile zip = new ZipFile(source.toFile())) {
+            final ZipEntry entry = zip.getEntry("BOOT-INF/classes/org/springboot/Application.class");
+            try (InputStream expected = zip.getInputStream(entry)) {
+                assertThat(readBytes(application.openStream())).isEqualTo(readBytes(expected));
+            }
+        }
+    }
+
+    @Test
+    public void should_export_untouched_entries_from_the_mapping() throws IOException {
+        final Path source = exportSource();
+        final SpringBootArchive imported = ShrinkWrap.create(SpringBootArchive.class)
+                .setSpringBootLayout(SpringBootLayouts.SPRING_BOOT_14);
+        imported.as(SpringBootImporter.class).importFrom(source.toFile());
+        imported.addAsWebResource(new StringAsset("changed"), "hello");
+
+        final Path target = temporaryFolder.getRoot().toPath().resolve("patched.jar");
+        imported.as(SpringBootExporter.class).withCompressionLevel(6).exportTo(target);
+
+        assertValidEntries(target);
+        try (ZipFile before = new ZipFile(source.toFile()); ZipFile after = new ZipFile(target.toFile())) {
+            assertThat(read(after, after.getEntry("BOOT-INF/classes/static/hello"))).isEqualTo("changed");
+            final ZipEntry library = after.getEntry("BOOT-INF/lib/library.jar");
+            assertThat(library.getMethod()).isEqualTo(ZipEntry.STORED);
+            assertThat(readBytes(after.getInputStream(library)))
+                    .isEqualTo(readBytes(before.getInputStream(before.getEntry("BOOT-INF/lib/library.jar"))));
+            final String name = "BOOT-INF/classes/org/springboot/Application.class";
+            assertThat(after.getEntry(name).getMethod()).isEqualTo(ZipEntry.DEFLATED);
+            assertThat(after.getEntry(name).getCompressedSize()).isEqualTo(before.getEntry(name).getCompressedSize());
+        }
+    }
+
+    @Test
+    public void should_store_imported_deflated_entries_without_compression_level() throws IOException {
+        final Path source = exportSource();
+        final SpringBootArchive imported = ShrinkWrap.create(SpringBootArchive.class);
+        imported.as(SpringBootImporter.class).importFrom(source);
+
+        final Path target = temporaryFolder.getRoot().toPath().resolve("stored.jar");
+        imported.as(SpringBootExporter.class).exportTo(target);
+
+        assertValidEntries(target);
+        try (ZipFile zip = new ZipFile(target.toFile())) {
+            assertThat(Collections.list(zip.entries()))
+                    .extracting("method")
+                    .containsOnly(ZipEntry.STORED);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void should_not_export_over_imported_file() throws IOException {
+        final Path source = exportSource();
+        final SpringBootArchive imported = ShrinkWrap.create(SpringBootArchive.class);
+        imported.as(SpringBootImporter.class).importFrom(source);
+
+        imported.as(SpringBootExporter.class).exportTo(source, true);
+    }
+
+    @Test
+    public void should_reject_file_that_is_not_an_archive() throws IOException {
+        final Path file = temporaryFolder.newFile("app.jar").toPath();
+        Files.write(file, "not an archive".getBytes("UTF-8"));
+        final SpringBootArchive archive = ShrinkWrap.create(SpringBootArchive.class);
+
+        try {
+            archive.as(SpringBootImporter.class).importFrom(file);
+            fail("Expected ArchiveImportException");
+        } catch (final ArchiveImportException e) {
+            assertThat(archive.getContent()).isEmpty();
+        }
+    }
+
+    private Path exportSource() {
+        final JavaArchive library = ShrinkWrap.create(JavaArchive.class, "library.jar")
+                .addAsResource(new StringAsset("name=library"), "library.properties");
+        final Path source = temporaryFolder.getRoot().toPath().resolve("app.jar");
+        ShrinkWrap.create(SpringBootArchive.class)
+                .setSpringBootLayout(SpringBootLayouts.SPRING_BOOT_14)
+                .addClass(Application.class)
+                .addClass(HelloController.class)
+                .addAsLibrary(library)
+                .addAsWebResource(new StringAsset("world"), "hello")
+                .setSpringBootManifest(Application.class.getName())
+                .as(SpringBootExporter.class)
+                .withCompressionLevel(6)
+                .exportTo(source);
+        return source;
+    }
+
+    private static List<String> entryNames(Path file, boolean directories) throws IOException {
+        try (ZipFile zip = new ZipFile(file.toFile())) {
+            final List<String> names = new ArrayList<>();
+            for (ZipEntry entry : Collections.list(zip.entries())) {
+                if (!entry.isDirectory()) {
+                    names.add(entry.getName());
+                } else if (directories) {
+                    names.add(entry.getName().substring(0, entry.getName().length() - 1));
+                }
+            }
+            return names;
+        }
+    }
+
+    private static void assertValidEntries(Path file) throws IOException {
+        try (ZipFile zip = new ZipFile(file.toFile())) {
+            for (ZipEntry entry : Collections.list(zip.entries())) {
+                final CRC32 crc = new CRC32();
+                crc.update(readBytes(zip.getInputStream(entry)));
+                assertThat(crc.getValue()).as(entry.getName()).isEqualTo(entry.getCrc());
+            }
+        }
+    }
+
+    private static String read(Asset asset) throws IOException {
+        return new String(readBytes(asset.openStream()), "UTF-8");
+    }
+
+    private static String read(ZipFile zip, ZipEntry entry) throws IOException {
+        return new String(readBytes(zip.getInputStream(entry)), "UTF-8");
+    }
+
+    private static byte[] readBytes(InputStream in) throws IOException {
+        try (InputStream input = in) {
+            final ByteArrayOutputStream content = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[4096];
+            for (int read; (read = input.read(buffer)) != -1; ) {
+                content.write(buffer, 0, read);
+            }
+            return content.toByteArray();
+        }
+    }
+}
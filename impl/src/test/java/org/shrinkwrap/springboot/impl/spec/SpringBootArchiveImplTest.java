@@ -1,26 +1,54 @@
 package org.shrinkwrap.springboot.impl.spec;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.junit.Assert.fail;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+import javax.tools.ToolProvider;
 
 import org.jboss.shrinkwrap.api.Node;
 import org.jboss.shrinkwrap.api.ShrinkWrap;
 import org.jboss.shrinkwrap.api.asset.Asset;
 import org.jboss.shrinkwrap.api.asset.EmptyAsset;
+import org.jboss.shrinkwrap.api.asset.FileAsset;
+import org.jboss.shrinkwrap.api.asset.StringAsset;
+import org.jboss.shrinkwrap.api.exporter.ZipStoredExporter;
 import org.jboss.shrinkwrap.api.spec.JavaArchive;
 import org.jboss.shrinkwrap.impl.base.path.BasicPath;
 import org.jboss.shrinkwrap.resolver.api.maven.Maven;
+import org.hamcrest.Matcher;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.shrinkwrap.springboot.api.library.LibraryConflictPolicy;
+import org.shrinkwrap.springboot.api.library.LibraryConflicts;
+import org.shrinkwrap.springboot.api.metrics.SpringBootOperation;
+import org.shrinkwrap.springboot.api.metrics.SpringBootOperationMetrics;
 import org.shrinkwrap.springboot.api.spec.SpringBootArchive;
 import org.shrinkwrap.springboot.impl.SpringBootLayouts;
+import org.shrinkwrap.springboot.impl.asset.LibraryArchiveAsset;
 import org.springboot.Application;
 import org.springboot.HelloController;
+import org.springframework.boot.SpringApplication;
+import org.springframework.web.bind.annotation.RestController;
 
 public class SpringBootArchiveImplTest {
 
@@ -28,6 +56,12 @@ public class SpringBootArchiveImplTest {
     private static String SPRING_BOOT_VERSION_14 = "1.4.4.RELEASE";
     private static String SPRING_BOOT_VERSION_15 = "1.5.1.RELEASE";
 
+    private static final Pattern TYPE_DECLARATION =
+            Pattern.compile("package ([\\w.]+);.*?(?:class|interface) (\\w+)");
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     @Test
     public void sb13_should_add_libs_in_lib_directory() {
         final SpringBootArchive archive = prepareSpringBoot13Archive();
@@ -125,6 +159,524 @@ public class SpringBootArchiveImplTest {
         assertThat(jarLauncher).isNotNull();
     }
 
+    @Test
+    public void sb14_should_merge_launcher_without_meta_inf() {
+        final Asset launcherClass = new StringAsset("launcher");
+        final JavaArchive launcher = ShrinkWrap.create(JavaArchive.class, "launcher.jar")
+                .addAsManifestResource(new StringAsset("ignored"), "services/ignored")
+                .add(launcherClass, "/org/launcher/Launcher.class")
+                .addAsDirectory("/org/launcher/empty");
+
+        final SpringBootArchive archive = ShrinkWrap.create(SpringBootArchive.class)
+                .setSpringBootLayout(SpringBootLayouts.SPRING_BOOT_14)
+                .addAsLauncherLibrary(launcher);
+
+        assertThat(archive.getContent().keySet())
+                .extracting("context")
+                .containsExactly("/org", "/org/launcher", "/org/launcher/Launcher.class", "/org/launcher/empty");
+        assertThat(archive.get("/org/launcher/Launcher.class").getAsset()).isSameAs(launcherClass);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void sb14_should_reject_missing_library_files() {
+        ShrinkWrap.create(SpringBootArchive.class)
+                .setSpringBootLayout(SpringBootLayouts.SPRING_BOOT_14)
+                .addAsLibrary(Paths.get("target", "missing-library.jar"));
+    }
+
+    @Test
+    public void sb14_should_defer_library_serialization_until_export() throws IOException {
+        final CountingAsset content = new CountingAsset();
+        final SpringBootArchive archive = prepareSpringBoot14LibraryArchive(content);
+
+        assertThat(archive.get("/BOOT-INF/lib/library.jar").getAsset()).isInstanceOf(LibraryArchiveAsset.class);
+        assertThat(content.opened).isZero();
+
+        archive.as(ZipStoredExporter.class).exportTo(new ByteArrayOutputStream());
+        assertThat(content.opened).isPositive();
+    }
+
+    @Test
+    public void sb14_should_not_serialize_deleted_libraries() {
+        final CountingAsset content = new CountingAsset();
+        final SpringBootArchive archive = prepareSpringBoot14LibraryArchive(content);
+        archive.delete("/BOOT-INF/lib/library.jar");
+
+        archive.as(ZipStoredExporter.class).exportTo(new ByteArrayOutputStream());
+        assertThat(content.opened).isZero();
+    }
+
+    @Test
+    public void sb14_should_not_serialize_replaced_libraries() {
+        final CountingAsset content = new CountingAsset();
+        final SpringBootArchive archive = prepareSpringBoot14LibraryArchive(content);
+        archive.addAsLibrary(ShrinkWrap.create(JavaArchive.class, "library.jar")
+                .addAsResource(EmptyAsset.INSTANCE, "library.properties"));
+
+        archive.as(ZipStoredExporter.class).exportTo(new ByteArrayOutputStream());
+        assertThat(content.opened).isZero();
+    }
+
+    private static SpringBootArchive prepareSpringBoot14LibraryArchive(Asset libraryContent) {
+        return ShrinkWrap.create(SpringBootArchive.class)
+                .setSpringBootLayout(SpringBootLayouts.SPRING_BOOT_14)
+                .addClass(Application.class)
+                .addAsLibrary(ShrinkWrap.create(JavaArchive.class, "library.jar")
+                        .addAsResource(libraryContent, "library.properties"));
+    }
+
+    @Test
+    public void sb14_should_add_layers_index() throws IOException {
+        final SpringBootArchive archive = ShrinkWrap.create(SpringBootArchive.class)
+                .setSpringBootLayout(SpringBootLayouts.SPRING_BOOT_14)
+                .addClass(Application.class)
+                .addAsLibrary(ShrinkWrap.create(JavaArchive.class, "release.jar"))
+                .addAsLibrary(ShrinkWrap.create(JavaArchive.class, "snapshot-1.0-SNAPSHOT.jar"))
+                .addAsLauncherLibrary(ShrinkWrap.create(JavaArchive.class)
+                        .add(EmptyAsset.INSTANCE, "org/springframework/boot/loader/JarLauncher.class"))
+                .addLayersIndex()
+                .setSpringBootManifest(Application.class.getName());
+
+        try (final InputStream input = archive.get("/BOOT-INF/layers.idx").getAsset().openStream()) {
+            assertThat(read(input)).isEqualTo(lines(
+                    "- \"dependencies\":",
+                    "  - \"BOOT-INF/lib/release.jar\"",
+                    "- \"spring-boot-loader\":",
+                    "  - \"org/\"",
+                    "- \"snapshot-dependencies\":",
+                    "  - \"BOOT-INF/lib/snapshot-1.0-SNAPSHOT.jar\"",
+                    "- \"application\":",
+                    "  - \"BOOT-INF/classes/\"",
+                    "  - \"BOOT-INF/layers.idx\"",
+                    "  - \"META-INF/\""));
+        }
+        try (final InputStream input = archive.get("/META-INF/MANIFEST.MF").getAsset().openStream()) {
+            assertThat(read(input)).contains("Spring-Boot-Layers-Index: BOOT-INF/layers.idx");
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void sb13_should_not_support_layers_index() {
+        ShrinkWrap.create(SpringBootArchive.class)
+                .setSpringBootLayout(SpringBootLayouts.SPRING_BOOT_10)
+                .addLayersIndex();
+    }
+
+    @Test
+    public void sb14_should_add_class_path_index() throws IOException {
+        final SpringBootArchive archive = ShrinkWrap.create(SpringBootArchive.class)
+                .setSpringBootLayout(SpringBootLayouts.SPRING_BOOT_14)
+                .addClass(Application.class)
+                .addAsLibrary(ShrinkWrap.create(JavaArchive.class, "small.jar").addClass(Application.class))
+                .addAsLibrary(ShrinkWrap.create(JavaArchive.class, "resources.jar"))
+                .addAsLibrary(ShrinkWrap.create(JavaArchive.class, "large.jar")
+                        .addClasses(Application.class, HelloController.class))
+                .addClassPathIndex()
+                .setSpringBootManifest(Application.class.getName());
+
+        try (final InputStream input = archive.get("/BOOT-INF/classpath.idx").getAsset().openStream()) {
+            assertThat(read(input)).isEqualTo(lines(
+                    "- \"BOOT-INF/lib/large.jar\"",
+                    "- \"BOOT-INF/lib/small.jar\"",
+                    "- \"BOOT-INF/lib/resources.jar\""));
+        }
+        try (final InputStream input = archive.get("/META-INF/MANIFEST.MF").getAsset().openStream()) {
+            assertThat(read(input)).contains("Spring-Boot-Classpath-Index: BOOT-INF/classpath.idx");
+        }
+    }
+
+    @Test
+    public void sb14_should_put_most_loaded_libraries_first_in_class_path_index() throws IOException {
+        final SpringBootArchive archive = ShrinkWrap.create(SpringBootArchive.class)
+                .setSpringBootLayout(SpringBootLayouts.SPRING_BOOT_14)
+                .addAsLibrary(ShrinkWrap.create(JavaArchive.class, "small.jar").addClass(Application.class))
+                .addAsLibrary(ShrinkWrap.create(JavaArchive.class, "resources.jar"))
+                .addAsLibrary(ShrinkWrap.create(JavaArchive.class, "large.jar")
+                        .addClasses(Application.class, HelloController.class))
+                .addClassPathIndex(Collections.singletonMap("resources.jar", 3L));
+
+        try (final InputStream input = archive.get("/BOOT-INF/classpath.idx").getAsset().openStream()) {
+            assertThat(read(input)).isEqualTo(lines(
+                    "- \"BOOT-INF/lib/resources.jar\"",
+                    "- \"BOOT-INF/lib/large.jar\"",
+                    "- \"BOOT-INF/lib/small.jar\""));
+        }
+    }
+
+    @Test
+    public void sb14_should_add_package_index() throws IOException {
+        final SpringBootArchive archive = ShrinkWrap.create(SpringBootArchive.class)
+                .setSpringBootLayout(SpringBootLayouts.SPRING_BOOT_14)
+                .addClass(Application.class)
+                .addAsLibrary(ShrinkWrap.create(JavaArchive.class, "library.jar")
+                        .addClass(HelloController.class)
+                        .addClass(String.class)
+                        .addAsManifestResource(EmptyAsset.INSTANCE, "versions/9/module-info.class"))
+                .addAsLibrary(ShrinkWrap.create(JavaArchive.class, "resources.jar")
+                        .addAsResource(EmptyAsset.INSTANCE, "org/springboot/application.properties"))
+                .addPackageIndex()
+                .setSpringBootManifest(Application.class.getName());
+
+        try (final InputStream input = archive.get("/BOOT-INF/packages.idx").getAsset().openStream()) {
+            assertThat(read(input)).isEqualTo(lines(
+                    "JarIndex-Version: 1.0",
+                    "",
+                    "BOOT-INF/classes/",
+                    "org/springboot",
+                    "",
+                    "BOOT-INF/lib/library.jar",
+                    "org/springboot",
+                    "java/lang"));
+        }
+        try (final InputStream input = archive.get("/META-INF/MANIFEST.MF").getAsset().openStream()) {
+            assertThat(read(input)).contains("Spring-Boot-Packages-Index: BOOT-INF/packages.idx");
+        }
+    }
+
+    @Test
+    public void sb14_should_add_component_index() throws IOException {
+        final File classes = compile(
+                "package org.springframework.stereotype; @java.lang.annotation.Retention(java.lang.annotation.RetentionPolicy.RUNTIME) public @interface Indexed {}",
+                // Removed from the JDK in Java 11
+                "package javax.annotation; @java.lang.annotation.Retention(java.lang.annotation.RetentionPolicy.RUNTIME) public @interface Resource {}",
+                "package com.example.lib; @org.springframework.stereotype.Indexed public @interface Managed {}",
+                "package com.example.lib; @Managed public @interface Service {}",
+                "package com.example.lib; @org.springframework.stereotype.Indexed public interface Repository {}",
+                "package com.example.app; @com.example.lib.Service public class OrderService {}",
+                "package com.example.app; public class OrderRepository implements com.example.lib.Repository {}",
+                "package com.example.app; @javax.annotation.Resource public class Order {}",
+                "package com.example.app; @com.example.lib.Service public @interface Custom {}",
+                "package com.example.app; public class Plain {}");
+        final JavaArchive library = ShrinkWrap.create(JavaArchive.class, "stereotypes.jar");
+        final SpringBootArchive archive = ShrinkWrap.create(SpringBootArchive.class)
+                .setSpringBootLayout(SpringBootLayouts.SPRING_BOOT_14)
+                .addAsLibrary(library)
+                .addComponentIndex();
+        for (String name : new String[] { "org/springframework/stereotype/Indexed", "javax/annotation/Resource",
+                "com/example/lib/Managed", "com/example/lib/Service", "com/example/lib/Repository" }) {
+            library.add(new FileAsset(new File(classes, name + ".class")), name + ".class");
+        }
+        for (String name : new String[] { "OrderService", "OrderRepository", "Order", "Custom", "Plain" }) {
+            archive.add(new FileAsset(new File(classes, "com/example/app/" + name + ".class")),
+                    "/BOOT-INF/classes/com/example/app/" + name + ".class");
+        }
+
+        try (final InputStream input = archive.get("/BOOT-INF/classes/META-INF/spring.components").getAsset()
+                .openStream()) {
+            assertThat(read(input)).isEqualTo(lines(
+                    "com.example.app.Order=javax.annotation.Resource",
+                    "com.example.app.OrderRepository=com.example.lib.Repository",
+                    "com.example.app.OrderService=com.example.lib.Managed"));
+        }
+    }
+
+    @Test
+    public void sb14_should_add_empty_component_index_without_indexed_stereotypes() throws IOException {
+        // Spring 4.3 has no @Indexed stereotype
+        final SpringBootArchive archive = prepareSpringBoot14Archive().addComponentIndex();
+
+        try (final InputStream input = archive.get("/BOOT-INF/classes/META-INF/spring.components").getAsset()
+                .openStream()) {
+            assertThat(read(input)).isEmpty();
+        }
+    }
+
+    @Test
+    public void sb14_should_add_factories_index() throws IOException {
+        final SpringBootArchive archive = ShrinkWrap.create(SpringBootArchive.class)
+                .setSpringBootLayout(SpringBootLayouts.SPRING_BOOT_14)
+                .addAsResource(new StringAsset(lines("com.example.Listener=com.example.app.AppListener")),
+                        "META-INF/spring.factories")
+                .addAsLibrary(ShrinkWrap.create(JavaArchive.class, "first.jar")
+                        .addAsResource(new StringAsset(lines(
+                                "com.example.Listener=com.example.first.FirstListener,\\",
+                                "  com.example.app.AppListener",
+                                "com.example.AutoConfiguration=com.example.first.FirstConfiguration")),
+                                "META-INF/spring.factories")
+                        .addAsResource(new StringAsset(lines("com.example.first.FirstConfiguration=first")),
+                                "META-INF/spring-autoconfigure-metadata.properties")
+                        .addAsResource(new StringAsset(lines("# providers", "com.example.first.FirstDriver")),
+                                "META-INF/services/java.sql.Driver"))
+                .addAsLibrary(ShrinkWrap.create(JavaArchive.class, "second.jar")
+                        .addAsResource(new StringAsset(lines("com.example.Listener=com.example.second.SecondListener")),
+                                "META-INF/spring.factories")
+                        .addAsResource(new StringAsset(lines("com.example.first.FirstConfiguration=second key")),
+                                "META-INF/spring-autoconfigure-metadata.properties")
+                        .addAsResource(new StringAsset(lines("com.example.second.SecondDriver")),
+                                "META-INF/services/java.sql.Driver")
+                        .addAsResource(new StringAsset(lines("com.example.second.Ignored")),
+                                "META-INF/services/nested/com.example.Ignored"))
+                .addFactoriesIndex()
+                .setSpringBootManifest(Application.class.getName());
+
+        try (final InputStream input = archive.get("/BOOT-INF/classes/META-INF/factories.idx").getAsset()
+                .openStream()) {
+            assertThat(read(input)).isEqualTo(lines(
+                    "FactoriesIndex-Version: 1.0",
+                    "",
+                    "META-INF/services/java.sql.Driver",
+                    "com.example.first.FirstDriver",
+                    "com.example.second.SecondDriver",
+                    "",
+                    "META-INF/spring-autoconfigure-metadata.properties",
+                    "com.example.first.FirstConfiguration=second\\ key",
+                    "",
+                    "META-INF/spring.factories",
+                    "com.example.AutoConfiguration=com.example.first.FirstConfiguration",
+                    "com.example.Listener=com.example.app.AppListener,com.example.first.FirstListener,"
+                            + "com.example.second.SecondListener"));
+        }
+        try (final InputStream input = archive.get("/META-INF/MANIFEST.MF").getAsset().openStream()) {
+            assertThat(read(input)).contains("Spring-Boot-Factories-Index: BOOT-INF/classes/META-INF/factories.idx");
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void sb13_should_not_support_class_path_index() {
+        ShrinkWrap.create(SpringBootArchive.class)
+                .setSpringBootLayout(SpringBootLayouts.SPRING_BOOT_10)
+                .addClassPathIndex();
+    }
+
+    @Test
+    public void sb14_should_fork_archive_sharing_assets() throws IOException {
+        final Asset config = new StringAsset("shared");
+        final SpringBootArchive template = ShrinkWrap.create(SpringBootArchive.class, "template.jar")
+                .setSpringBootLayout(SpringBootLayouts.SPRING_BOOT_14)
+                .addClass(Application.class)
+                .addAsBootInfResource(config, "config.properties")
+                .addAsLibrary(ShrinkWrap.create(JavaArchive.class, "shared.jar"))
+                .addLayersIndex()
+                .setSpringBootManifest(Application.class.getName());
+
+        final SpringBootArchive fork = template.fork()
+                .addClass(HelloController.class)
+                .addAsLibrary(ShrinkWrap.create(JavaArchive.class, "forked.jar"));
+        template.delete("/BOOT-INF/config.properties");
+
+        assertThat(fork.getName()).isEqualTo("template.jar");
+        assertThat(fork.get("/BOOT-INF/config.properties").getAsset()).isSameAs(config);
+        assertThat(fork.get("/META-INF/MANIFEST.MF").getAsset())
+                .isSameAs(template.get("/META-INF/MANIFEST.MF").getAsset());
+        assertThat(fork.contains("/BOOT-INF/classes/org/springboot/HelloController.class")).isTrue();
+        assertThat(template.contains("/BOOT-INF/classes/org/springboot/HelloController.class")).isFalse();
+        try (final InputStream input = fork.get("/BOOT-INF/layers.idx").getAsset().openStream()) {
+            assertThat(read(input)).contains("BOOT-INF/lib/shared.jar", "BOOT-INF/lib/forked.jar");
+        }
+        try (final InputStream input = template.get("/BOOT-INF/layers.idx").getAsset().openStream()) {
+            assertThat(read(input)).doesNotContain("BOOT-INF/lib/forked.jar");
+        }
+    }
+
+    @Test
+    public void sb14_should_precompress_web_resources() throws IOException {
+        final Asset compressedPage = new StringAsset("compressed page");
+        final SpringBootArchive archive = ShrinkWrap.create(SpringBootArchive.class)
+                .setSpringBootLayout(SpringBootLayouts.SPRING_BOOT_14)
+                .addAsWebResource(new StringAsset("body {}"), "app.css")
+                .addAsWebResource(new StringAsset("var lib;"), "js/lib.JS")
+                .addAsWebResource(EmptyAsset.INSTANCE, "logo.png")
+                .addAsWebResource(new StringAsset("<html/>"), "index.html")
+                .addAsWebResource(compressedPage, "index.html.gz")
+                .precompressWebResources();
+        archive.addAsWebResource(new StringAsset("body { margin: 0 }"), "app.css");
+
+        assertThat(archive.contains("/BOOT-INF/classes/static/js/lib.JS.gz")).isTrue();
+        assertThat(archive.contains("/BOOT-INF/classes/static/logo.png.gz")).isFalse();
+        assertThat(archive.get("/BOOT-INF/classes/static/index.html.gz").getAsset()).isSameAs(compressedPage);
+        try (final InputStream input = new GZIPInputStream(
+                archive.get("/BOOT-INF/classes/static/app.css.gz").getAsset().openStream())) {
+            assertThat(read(input)).isEqualTo(lines("body { margin: 0 }"));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void sb14_should_reject_null_precompressed_extensions() {
+        ShrinkWrap.create(SpringBootArchive.class)
+                .setSpringBootLayout(SpringBootLayouts.SPRING_BOOT_14)
+                .precompressWebResources("css", null);
+    }
+
+    @Test
+    public void sb14_should_fingerprint_web_resources() throws IOException {
+        final List<SpringBootOperationMetrics> reported = new ArrayList<>();
+        final SpringBootArchive archive = ShrinkWrap.create(SpringBootArchive.class)
+                .setSpringBootLayout(SpringBootLayouts.SPRING_BOOT_14)
+                .setBuildListener(reported::add)
+                .addAsWebResource(new StringAsset("var app;"), "js/app.js")
+                .addAsWebResource(new StringAsset("body {}"), "app.css")
+                .addAsWebResource(new StringAsset("<html/>"), "index.html")
+                .precompressWebResources()
+                .fingerprintWebResources();
+
+        // md5("var app;") = d0309284...
+        assertThat(archive.contains("/BOOT-INF/classes/static/js/app.d0309284.js")).isTrue();
+        assertThat(archive.contains("/BOOT-INF/classes/static/js/app.js")).isFalse();
+        assertThat(archive.contains("/BOOT-INF/classes/static/index.html")).isTrue();
+        try (final InputStream input = new GZIPInputStream(
+                archive.get("/BOOT-INF/classes/static/js/app.d0309284.js.gz").getAsset().openStream())) {
+            assertThat(read(input)).isEqualTo(lines("var app;"));
+        }
+        assertThat(reported).extracting("operation", "entries")
+                .containsExactly(tuple(SpringBootOperation.FINGERPRINT, 2L));
+
+        archive.addAsWebResource(new StringAsset("var other;"), "other.js").fingerprintWebResources();
+
+        final Properties fingerprints = new Properties();
+        try (final InputStream input = archive.get("/BOOT-INF/classes/fingerprints.properties").getAsset().openStream()) {
+            fingerprints.load(input);
+        }
+        assertThat(fingerprints).hasSize(3)
+                .containsEntry("js/app.js", "js/app.d0309284.js")
+                .containsKey("app.css")
+                .containsKey("other.js");
+        assertThat(archive.contains("/BOOT-INF/classes/static/" + fingerprints.getProperty("other.js"))).isTrue();
+    }
+
+    @Test
+    public void sb14_should_report_duplicate_entries_and_conflicting_versions() throws IOException {
+        final SpringBootArchive archive = prepareSpringBoot14ConflictingLibrariesArchive();
+
+        final LibraryConflicts conflicts = archive.checkLibraries(LibraryConflictPolicy.REPORT);
+
+        assertThat(conflicts.isEmpty()).isFalse();
+        assertThat(conflicts.getDuplicateEntries()).containsOnlyKeys("org/springboot/Application.class");
+        assertThat(conflicts.getDuplicateEntries().get("org/springboot/Application.class")).containsExactly(
+                "BOOT-INF/lib/commons-1.0.jar", "BOOT-INF/lib/copy.jar", "BOOT-INF/lib/partial.jar");
+        assertThat(conflicts.getConflictingVersions()).containsOnlyKeys("org.example:commons");
+        assertThat(conflicts.getConflictingVersions().get("org.example:commons"))
+                .containsExactly("BOOT-INF/lib/commons-1.0.jar", "BOOT-INF/lib/commons-2.0.jar");
+        assertThat(conflicts.getDeletedLibraries()).isEmpty();
+        assertThat(archive.get("/BOOT-INF/lib").getChildren()).hasSize(4);
+    }
+
+    @Test
+    public void sb14_should_fail_on_conflicting_libraries() throws IOException {
+        final SpringBootArchive archive = prepareSpringBoot14ConflictingLibrariesArchive();
+        try {
+            archive.checkLibraries(LibraryConflictPolicy.FAIL);
+            fail();
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage()).contains("org.example:commons", "org/springboot/Application.class");
+        }
+        assertThat(archive.get("/BOOT-INF/lib").getChildren()).hasSize(4);
+    }
+
+    @Test
+    public void sb14_should_keep_first_of_conflicting_libraries() throws IOException {
+        final SpringBootArchive archive = prepareSpringBoot14ConflictingLibrariesArchive();
+
+        final LibraryConflicts conflicts = archive.checkLibraries(LibraryConflictPolicy.KEEP_FIRST);
+
+        assertThat(conflicts.getDeletedLibraries())
+                .containsExactly("BOOT-INF/lib/commons-2.0.jar", "BOOT-INF/lib/copy.jar");
+        assertThat(archive.get("/BOOT-INF/lib").getChildren())
+                .extracting("path")
+                .containsExactly(new BasicPath("/BOOT-INF/lib/commons-1.0.jar"),
+                        new BasicPath("/BOOT-INF/lib/partial.jar"));
+        assertThat(archive.checkLibraries(LibraryConflictPolicy.REPORT).getConflictingVersions()).isEmpty();
+    }
+
+    @Test
+    public void sb14_should_prune_unreachable_classes_and_libraries() {
+        final List<SpringBootOperationMetrics> reported = new ArrayList<>();
+        final SpringBootArchive archive = ShrinkWrap.create(SpringBootArchive.class)
+                .setSpringBootLayout(SpringBootLayouts.SPRING_BOOT_14)
+                .setBuildListener(reported::add)
+                .addClasses(Application.class, HelloController.class, SpringBootArchiveImplTest.class)
+                .addAsLibrary(ShrinkWrap.create(JavaArchive.class, "boot.jar")
+                        .addClass(SpringApplication.class))
+                .addAsLibrary(ShrinkWrap.create(JavaArchive.class, "web.jar")
+                        .addClass(RestController.class))
+                .addAsLibrary(ShrinkWrap.create(JavaArchive.class, "provider.jar")
+                        .addClass(Test.class)
+                        .addAsServiceProvider(SpringApplication.class.getName(), Test.class.getName()))
+                .addAsLibrary(ShrinkWrap.create(JavaArchive.class, "kept.jar")
+                        .addClass(Matcher.class))
+                .addAsLibrary(ShrinkWrap.create(JavaArchive.class, "resources.jar")
+                        .addAsResource(EmptyAsset.INSTANCE, "static/index.html"))
+                .addAsLibrary(ShrinkWrap.create(JavaArchive.class, "unused.jar")
+                        .addClass(org.assertj.core.api.Assertions.class))
+                .setSpringBootManifest(Application.class.getName());
+
+        archive.pruneUnreachable("org.hamcrest.*");
+
+        assertThat(archive.get("/BOOT-INF/lib").getChildren())
+                .extracting("path")
+                .containsExactly(new BasicPath("/BOOT-INF/lib/boot.jar"), new BasicPath("/BOOT-INF/lib/web.jar"),
+                        new BasicPath("/BOOT-INF/lib/provider.jar"), new BasicPath("/BOOT-INF/lib/kept.jar"),
+                        new BasicPath("/BOOT-INF/lib/resources.jar"));
+        assertThat(archive.contains("/BOOT-INF/classes/org/springboot/Application.class")).isTrue();
+        assertThat(archive.contains("/BOOT-INF/classes/org/springboot/HelloController.class")).isTrue();
+        assertThat(archive.contains("/BOOT-INF/classes/org/shrinkwrap/springboot/impl/spec/"
+                + "SpringBootArchiveImplTest.class")).isFalse();
+        assertThat(reported).extracting("operation").contains(SpringBootOperation.PRUNE);
+    }
+
+    @Test
+    public void sb14_should_not_prune_archive_without_manifest() {
+        final SpringBootArchive archive = prepareSpringBoot14LibraryArchive(EmptyAsset.INSTANCE);
+        try {
+            archive.pruneUnreachable();
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void sb14_should_report_add_operations_to_build_listener() {
+        final List<SpringBootOperationMetrics> operations = new ArrayList<>();
+        final JavaArchive launcher = ShrinkWrap.create(JavaArchive.class, "launcher.jar")
+                .addClass(Application.class)
+                .addAsManifestResource(new StringAsset("ignored"), "ignored.txt");
+
+        ShrinkWrap.create(SpringBootArchive.class)
+                .setSpringBootLayout(SpringBootLayouts.SPRING_BOOT_14)
+                .setBuildListener(operations::add)
+                .addAsLibrary(ShrinkWrap.create(JavaArchive.class, "library.jar"))
+                .addAsLauncherLibrary(launcher)
+                .addAsBootInfResource(new StringAsset("value"), "config.properties")
+                .setBuildListener(null)
+                .addAsLibrary(ShrinkWrap.create(JavaArchive.class, "unreported.jar"));
+
+        assertThat(operations)
+                .extracting("operation", "target")
+                .containsExactly(
+                        tuple(SpringBootOperation.ADD_LIBRARY, "/BOOT-INF/lib/library.jar"),
+                        tuple(SpringBootOperation.ADD_LAUNCHER_LIBRARY, "launcher.jar"),
+                        tuple(SpringBootOperation.ADD_BOOT_INF_RESOURCE, "/BOOT-INF/config.properties"));
+        // the launcher class and its package directories, without META-INF
+        assertThat(operations.get(1).getEntries()).isEqualTo(launcher.getContent(
+                path -> !path.get().startsWith("/META-INF")).size());
+        assertThat(operations).extracting("wallTimeNanos").doesNotContain(0L);
+    }
+
+    private SpringBootArchive prepareSpringBoot14ConflictingLibrariesArchive() throws IOException {
+        final File commons2 = temporaryFolder.newFile("commons-2.0.jar");
+        ShrinkWrap.create(JavaArchive.class)
+                .addClass(HelloController.class)
+                .addAsResource(pomProperties("2.0"), "META-INF/maven/org.example/commons/pom.properties")
+                .as(ZipStoredExporter.class)
+                .exportTo(commons2, true);
+
+        return ShrinkWrap.create(SpringBootArchive.class)
+                .setSpringBootLayout(SpringBootLayouts.SPRING_BOOT_14)
+                .addAsLibrary(ShrinkWrap.create(JavaArchive.class, "commons-1.0.jar")
+                        .addClass(Application.class)
+                        .addAsResource(pomProperties("1.0"), "META-INF/maven/org.example/commons/pom.properties"))
+                .addAsLibrary(commons2.toPath())
+                .addAsLibrary(ShrinkWrap.create(JavaArchive.class, "copy.jar")
+                        .addClass(Application.class))
+                .addAsLibrary(ShrinkWrap.create(JavaArchive.class, "partial.jar")
+                        .addClass(Application.class)
+                        .addAsResource(EmptyAsset.INSTANCE, "partial.properties"));
+    }
+
+    private static Asset pomProperties(String version) {
+        return new StringAsset(lines("groupId=org.example", "artifactId=commons", "version=" + version));
+    }
+
     private static SpringBootArchive prepareSpringBoot13Archive() {
         return ShrinkWrap.create(SpringBootArchive.class)
                 .setSpringBootLayout(SpringBootLayouts.SPRING_BOOT_10)
@@ -185,6 +737,41 @@ public class SpringBootArchiveImplTest {
                 .setSpringBootManifest(Application.class.getName(), SPRING_BOOT_VERSION_15);
     }
 
+    private static class CountingAsset implements Asset {
+
+        private int opened;
+
+        @Override
+        public InputStream openStream() {
+            opened++;
+            return new ByteArrayInputStream("name=library".getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private File compile(String... sources) throws IOException {
+        final File directory = temporaryFolder.newFolder();
+        final List<String> arguments = new ArrayList<>(Arrays.asList("-d", directory.getPath(), "-classpath", ""));
+        for (String source : sources) {
+            final java.util.regex.Matcher type = TYPE_DECLARATION.matcher(source);
+            assertThat(type.find()).isTrue();
+            final File file = new File(directory, type.group(1).replace('.', '/') + "/" + type.group(2) + ".java");
+            file.getParentFile().mkdirs();
+            Files.write(file.toPath(), source.getBytes(StandardCharsets.UTF_8));
+            arguments.add(file.getPath());
+        }
+        assertThat(ToolProvider.getSystemJavaCompiler().run(null, null, null, arguments.toArray(new String[0])))
+                .isEqualTo(0);
+        return directory;
+    }
+
+    private static String lines(String... lines) {
+        StringBuilder content = new StringBuilder();
+        for (String line : lines) {
+            content.append(line).append(System.lineSeparator());
+        }
+        return content.toString();
+    }
+
     private static String read(InputStream input) throws IOException {
         StringBuilder content = new StringBuilder();
         try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {